@@ -14,18 +14,28 @@ package compiler.actors;
 import akka.actor.ActorRef;
 import akka.actor.PoisonPill;
 import akka.actor.UntypedAbstractActor;
+import akka.util.ByteString;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import compiler.impl.DiagnosticDiff;
 import compiler.impl.WebOutputListener;
 import compiler.impl.WebSocketStatusHandler;
+import compiler.inputmessage.BinaryMessageDecoder;
 import compiler.inputmessage.CompilerMessage;
-import edu.clemson.cs.rsrg.init.ResolveCompiler;
+import compiler.inputmessage.ContentBuffer;
+import compiler.inputmessage.DocumentBuffer;
+import compiler.scheduling.CompileJob;
+import compiler.scheduling.CompileJobRejectedException;
 import edu.clemson.cs.rsrg.init.file.ResolveFile;
 import edu.clemson.cs.rsrg.init.output.OutputListener;
 import edu.clemson.cs.rsrg.statushandling.StatusHandler;
-import java.io.File;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.misc.Interval;
 import org.slf4j.Logger;
 import play.libs.Json;
 
@@ -46,9 +56,15 @@ public abstract class AbstractCompilerActor extends UntypedAbstractActor {
   // Compiler Actor-Related
   // -----------------------------------------------------------
 
+  /** The message an actor in session mode sends itself once its compile job is done. */
+  protected static final String COMPILE_JOB_DONE = "compileJobDone";
+
   /** Logger for Akka related items */
   private final Logger myAkkaLogger;
 
+  /** This identifies the client (IP address or session) that sent the request. */
+  private final String myClientId;
+
   /** This indicates the name of the job to be executed. */
   private final String myJob;
 
@@ -68,15 +84,33 @@ public abstract class AbstractCompilerActor extends UntypedAbstractActor {
   /** This contains the user supplied {@link ResolveFile ResolveFiles}. */
   protected final Map<String, ResolveFile> myFilesMap;
 
+  /** This is the first message of a file that is being sent in several pieces (if any). */
+  private CompilerMessage myChunkedMessage;
+
+  /** This is the compile job that has been handed to the scheduler (if any). */
+  private CompileJob myCompileJob;
+
+  /**
+   * This contains the errors and warnings reported by the last analysis of each file that only
+   * wants the changes to them (session mode), keyed by name.
+   */
+  private final Map<String, DiagnosticDiff> myDiagnosticDiffs;
+
+  /**
+   * This contains the files that are being edited (session mode), keyed by name. Each file's
+   * contents are held by its message's {@code document}.
+   */
+  private final Map<String, CompilerMessage> myDocuments;
+
   /** This is an implementation of the {@link OutputListener} for the {@code RESOLVE} compiler. */
   private OutputListener myOutputListener;
 
+  /** This contains all the application-wide components needed by this actor. */
+  private final CompilerServices myServices;
+
   /** This is an implementation of the {@link StatusHandler} for the {@code RESOLVE} compiler. */
   private WebSocketStatusHandler myStatusHandler;
 
-  /** This indicates the path to all of our {@code RESOLVE} workspaces. */
-  private final String myWorkspacePath;
-
   // ===========================================================
   // Constructors
   // ===========================================================
@@ -88,15 +122,20 @@ public abstract class AbstractCompilerActor extends UntypedAbstractActor {
    * @param out Outgoing end of the stream.
    * @param job Name of the job to be executed.
    * @param project RESOLVE project folder to be used.
-   * @param workspacePath Path to all the RESOLVE workspaces.
+   * @param clientId Identifies the client (IP address or session) that sent the request.
+   * @param services Application-wide components needed by compiler actors.
    */
-  protected AbstractCompilerActor(ActorRef out, String job, String project, String workspacePath) {
+  protected AbstractCompilerActor(
+      ActorRef out, String job, String project, String clientId, CompilerServices services) {
     myAkkaLogger = org.slf4j.LoggerFactory.getLogger("akka");
+    myClientId = clientId;
+    myDiagnosticDiffs = new HashMap<>();
+    myDocuments = new HashMap<>();
     myFilesMap = new LinkedHashMap<>();
     myJob = job;
     myProject = project;
+    myServices = services;
     myWebSocketOut = out;
-    myWorkspacePath = workspacePath;
 
     // Populate the common compiler arguments
     myCompilerArgs = new ArrayList<>();
@@ -118,7 +157,17 @@ public abstract class AbstractCompilerActor extends UntypedAbstractActor {
       myStatusHandler.stopLogging();
     }
 
+    // Nobody is listening anymore, so there is no point in
+    // keeping (or waiting for) a slot in the scheduler.
+    if (myCompileJob != null) {
+      myServices.getCompileJobScheduler().cancel(myCompileJob);
+    }
+
     // Set these to null
+    myChunkedMessage = null;
+    myCompileJob = null;
+    myDiagnosticDiffs.clear();
+    myDocuments.clear();
     myStatusHandler = null;
     myOutputListener = null;
   }
@@ -146,6 +195,34 @@ public abstract class AbstractCompilerActor extends UntypedAbstractActor {
   // Protected Methods
   // ===========================================================
 
+  /**
+   * An helper method that applies the edits in an input message to the file it names (see {@link
+   * DocumentBuffer}). Edits made for an older version of the file (or that don't fit the file) are
+   * rejected, and the user is told the file's current version so it can send the whole file again.
+   *
+   * @param compilerMessage An input message with edits.
+   * @return The message that opened the file (its {@code document} now includes the edits) or
+   *     {@code null} if an error has been reported.
+   */
+  protected final CompilerMessage applyEdits(CompilerMessage compilerMessage) {
+    CompilerMessage document =
+        compilerMessage.name == null ? null : myDocuments.get(compilerMessage.name);
+    if (document == null) {
+      notifyError("Unknown file: " + compilerMessage.name);
+      return null;
+    }
+
+    int currentVersion = document.document.getVersion();
+    try {
+      document.document.applyEdits(compilerMessage.version, compilerMessage.edits);
+    } catch (IllegalArgumentException e) {
+      notifyDocumentError(document.name, e.getMessage(), currentVersion);
+      return null;
+    }
+
+    return document;
+  }
+
   /**
    * An helper method that builds the input {@link ResolveFile} from a {@link CompilerMessage}.
    *
@@ -154,6 +231,81 @@ public abstract class AbstractCompilerActor extends UntypedAbstractActor {
    */
   protected abstract ResolveFile buildInputResolveFile(CompilerMessage compilerMessage);
 
+  /**
+   * An helper method that collects the pieces of a file that is sent in several messages (see
+   * {@link CompilerMessage}). The pieces are decoded into a single {@link ContentBuffer} as they
+   * arrive, and the buffer's size is checked against {@code webapi.compiler.maxContentSize} before
+   * it is allocated.
+   *
+   * @param compilerMessage An input message.
+   * @return The complete message if we have all of its pieces (messages that aren't sent in pieces
+   *     are returned as they are), {@code null} if we are waiting for more pieces or an error has
+   *     been reported.
+   */
+  protected final CompilerMessage collectChunks(CompilerMessage compilerMessage) {
+    // Each actor only handles a single request (unless it is in session mode)
+    if (myCompileJob != null && !isSession()) {
+      notifyError("A compile job has already been requested!");
+      return null;
+    }
+
+    boolean more = Boolean.TRUE.equals(compilerMessage.more);
+    if (myChunkedMessage == null && !more) {
+      return compilerMessage;
+    }
+
+    try {
+      if (myChunkedMessage == null) {
+        if (compilerMessage.contentLength == null) {
+          notifyMissingInputFields(Collections.singletonList("contentLength"));
+          return null;
+        }
+
+        myChunkedMessage = compilerMessage;
+        myChunkedMessage.contentBuffer =
+            new ContentBuffer(compilerMessage.contentLength, myServices.getMaxContentSize());
+      }
+
+      if (compilerMessage.content != null) {
+        myChunkedMessage.contentBuffer.appendEncoded(compilerMessage.content);
+      }
+    } catch (IllegalArgumentException e) {
+      notifyError(e.getMessage());
+      return null;
+    }
+
+    if (more) {
+      return null;
+    }
+
+    // We have all the pieces
+    CompilerMessage completeMessage = myChunkedMessage;
+    completeMessage.content = null;
+    completeMessage.more = null;
+    myChunkedMessage = null;
+
+    return completeMessage;
+  }
+
+  /**
+   * An helper method that returns the contents of a {@link CompilerMessage} as a stream the
+   * compiler can read.
+   *
+   * @param compilerMessage An input message.
+   * @return A {@link CharStream} containing the decoded contents.
+   */
+  protected final CharStream contentStream(CompilerMessage compilerMessage) {
+    if (compilerMessage.document != null) {
+      return compilerMessage.document.toCharStream(compilerMessage.name);
+    }
+
+    if (compilerMessage.contentBuffer != null) {
+      return compilerMessage.contentBuffer.toCharStream(compilerMessage.name);
+    }
+
+    return CharStreams.fromString(decode(compilerMessage.content));
+  }
+
   /**
    * An helper method that helps us decode the input message that should have been encoded before
    * sending it through the stream.
@@ -185,46 +337,123 @@ public abstract class AbstractCompilerActor extends UntypedAbstractActor {
     return decoded;
   }
 
+  /**
+   * An helper method that forgets about the compile job once it is done (session mode only), so
+   * the next one can be started.
+   */
+  protected final void endCompileJob() {
+    if (myStatusHandler != null && !myStatusHandler.hasStopped()) {
+      myStatusHandler.stopLogging();
+    }
+
+    myCompileJob = null;
+    myOutputListener = null;
+    myStatusHandler = null;
+  }
+
   /**
    * An helper method for forming the specified project's workspace path.
    *
    * @return The project workspace path as a string.
    */
   protected final String formProjectWorkspacePath() {
-    return myWorkspacePath
-        + File.separator
-        + myProject
-        + File.separator
-        + "RESOLVE"
-        + File.separator
-        + "Main"
-        + File.separator;
+    return myServices.getWorkspaceIndex().getMainPath(myProject);
+  }
+
+  /**
+   * An helper method that decodes a {@link CompilerMessage} that was sent as a single binary frame
+   * (see {@link BinaryMessageDecoder}). The file's contents are decoded straight from the frame
+   * into the message's {@code contentBuffer}.
+   *
+   * @param frame The binary frame's payload.
+   * @return The decoded message or {@code null} if an error has been reported.
+   */
+  protected final CompilerMessage fromBinaryFrame(ByteString frame) {
+    // Each actor only handles a single request (unless it is in session mode)
+    if ((myCompileJob != null && !isSession()) || myChunkedMessage != null) {
+      notifyError("A compile job has already been requested!");
+      return null;
+    }
+
+    try {
+      return BinaryMessageDecoder.decode(frame, myServices.getMaxContentSize());
+    } catch (IllegalArgumentException e) {
+      notifyError(e.getMessage());
+      return null;
+    }
   }
 
   /**
-   * An helper method that invoke the {@code RESOLVE} compiler.
+   * An helper method that hands a job that invokes the {@code RESOLVE} compiler (through the
+   * configured {@link compiler.backend.CompilerBackend}) to the {@link
+   * compiler.scheduling.CompileJobScheduler}. Once the job is done, the user is notified and the
+   * connection is closed.
    *
    * @param fileNames Names of files we are invoking our compiler on.
    */
   protected final void invokeResolveCompiler(List<String> fileNames) {
-    myStatusHandler = new WebSocketStatusHandler(self(), myWebSocketOut);
-    myOutputListener = new WebOutputListener(myStatusHandler);
+    DiagnosticDiff diagnosticDiff =
+        fileNames.size() == 1 ? myDiagnosticDiffs.get(fileNames.get(0)) : null;
+    WebSocketStatusHandler statusHandler =
+        new WebSocketStatusHandler(
+            self(),
+            myWebSocketOut,
+            myServices.getMaxErrorsPerJob(),
+            myServices.getMaxMessagesPerJob(),
+            diagnosticDiff);
+    OutputListener outputListener =
+        new WebOutputListener(statusHandler, myServices.getOutputSpillStore());
+    String[] compilerArgs = myCompilerArgs.toArray(new String[0]);
+    boolean sessionFlag = isSession();
+    myStatusHandler = statusHandler;
+    myOutputListener = outputListener;
+
+    // In session mode, the user is told which version of the file was analyzed
+    CompilerMessage document = fileNames.size() == 1 ? myDocuments.get(fileNames.get(0)) : null;
+    Integer version = document != null ? document.document.getVersion() : null;
+
+    // The input size lets the scheduler estimate how much heap this job needs
+    long inputSize = 0;
+    for (ResolveFile file : myFilesMap.values()) {
+      inputSize += file.getInputStream().size();
+    }
 
-    // Invoke the compiler
-    ResolveCompiler compiler = new ResolveCompiler(myCompilerArgs.toArray(new String[0]));
-    compiler.invokeCompiler(myFilesMap, myStatusHandler, myOutputListener);
+    // Invoke the compiler using one of the scheduler's threads
+    myCompileJob =
+        new CompileJob(
+            myJob,
+            myProject,
+            myClientId,
+            inputSize,
+            () ->
+                myServices
+                    .getCompilerBackend()
+                    .invokeCompiler(compilerArgs, myFilesMap, statusHandler, outputListener));
+    myServices
+        .getCompileJobScheduler()
+        .submit(myCompileJob)
+        .whenComplete(
+            (result, throwable) ->
+                onCompileJobDone(statusHandler, fileNames, sessionFlag, version, throwable));
+  }
 
-    // Create a JSON Object that indicates we are done analyzing
-    // the specified file if there are no error messages.
-    if (!myStatusHandler.hasError()) {
-      ObjectNode result = Json.newObject();
-      result.put("status", "complete");
-      result.put("job", myJob);
-      result.put("result", "Done analyzing files: " + fileNames.toString());
+  /**
+   * Checks to see if a compile job has been handed to the scheduler and isn't done yet.
+   *
+   * @return {@code true} if there is a compile job, {@code false} otherwise.
+   */
+  protected final boolean isCompileJobRunning() {
+    return myCompileJob != null;
+  }
 
-      // Send the message through the websocket
-      myWebSocketOut.tell(result, self());
-    }
+  /**
+   * Checks to see if this actor is in session mode, which means the connection stays open and the
+   * files that are being edited are analyzed again whenever they change.
+   *
+   * @return {@code true} if at least one file is being edited, {@code false} otherwise.
+   */
+  protected final boolean isSession() {
+    return !myDocuments.isEmpty();
   }
 
   /**
@@ -260,6 +489,24 @@ public abstract class AbstractCompilerActor extends UntypedAbstractActor {
     myWebSocketOut.tell(info, self());
   }
 
+  /**
+   * An helper method that notifies the user about an error and closes the connection.
+   *
+   * @param msg Message to be displayed.
+   */
+  protected final void notifyError(String msg) {
+    // Create the error JSON Object
+    ObjectNode result = Json.newObject();
+    result.put("status", "error");
+    result.put("msg", msg);
+
+    // Send the message through the websocket
+    myWebSocketOut.tell(result, self());
+
+    // Close the connection
+    self().tell(PoisonPill.getInstance(), ActorRef.noSender());
+  }
+
   /**
    * An helper method that notifies the user that there are erroneous or missing input fields.
    *
@@ -289,6 +536,43 @@ public abstract class AbstractCompilerActor extends UntypedAbstractActor {
     self().tell(PoisonPill.getInstance(), ActorRef.noSender());
   }
 
+  /**
+   * An helper method that keeps the contents of an input message (that has a {@code version}) as a
+   * file that is being edited, which puts this actor in session mode. The message's contents are
+   * moved into its {@code document}. If the message sets {@code diffDiagnostics}, the analyses of
+   * this file only send the errors and warnings that changed (see {@link DiagnosticDiff}).
+   *
+   * @param compilerMessage An input message with the whole file.
+   * @return {@code true} if the file is being edited, {@code false} if an error has been reported.
+   */
+  protected final boolean openDocument(CompilerMessage compilerMessage) {
+    CharStream content = contentStream(compilerMessage);
+    try {
+      compilerMessage.document =
+          new DocumentBuffer(
+              content.size() == 0 ? "" : content.getText(Interval.of(0, content.size() - 1)),
+              compilerMessage.version,
+              myServices.getMaxContentSize());
+    } catch (IllegalArgumentException e) {
+      notifyError(e.getMessage());
+      return false;
+    }
+
+    compilerMessage.content = null;
+    compilerMessage.contentBuffer = null;
+    myDocuments.put(compilerMessage.name, compilerMessage);
+
+    // Keep diffing against what the user already has if
+    // the file is sent again (e.g. after a stale edit).
+    if (Boolean.TRUE.equals(compilerMessage.diffDiagnostics)) {
+      myDiagnosticDiffs.putIfAbsent(compilerMessage.name, new DiagnosticDiff());
+    } else {
+      myDiagnosticDiffs.remove(compilerMessage.name);
+    }
+
+    return true;
+  }
+
   /**
    * An helper method that validates an input message from the user and adds any invalid fields to
    * the return list.
@@ -297,4 +581,103 @@ public abstract class AbstractCompilerActor extends UntypedAbstractActor {
    * @return A list of invalid fields
    */
   protected abstract List<String> validateInputMessage(CompilerMessage compilerMessage);
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that notifies the user about an error with a file that is being edited. The
+   * connection stays open.
+   *
+   * @param name Name of the file.
+   * @param msg Message to be displayed.
+   * @param version The file's current version.
+   */
+  private void notifyDocumentError(String name, String msg, int version) {
+    // Create the error JSON Object
+    ObjectNode result = Json.newObject();
+    result.put("status", "error");
+    result.put("msg", msg);
+    result.put("name", name);
+    result.put("version", version);
+
+    // Send the message through the websocket
+    myWebSocketOut.tell(result, self());
+  }
+
+  /**
+   * An helper method that notifies the user about the outcome of a compile job and closes the
+   * connection (in session mode, the actor is told that the job is done instead).
+   *
+   * <p>(Note: This is executed by one of the scheduler's threads, so it must only use thread-safe
+   * objects.)
+   *
+   * @param statusHandler The status handler used by the compile job.
+   * @param fileNames Names of files we invoked our compiler on.
+   * @param sessionFlag Whether the actor was in session mode when it started the job.
+   * @param version The version of the file that was analyzed (session mode only).
+   * @param throwable The reason the job failed or {@code null} if it didn't.
+   */
+  private void onCompileJobDone(
+      WebSocketStatusHandler statusHandler,
+      List<String> fileNames,
+      boolean sessionFlag,
+      Integer version,
+      Throwable throwable) {
+    Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+    if (cause == null || statusHandler.hasAborted()) {
+      // Send the errors and warnings that changed since the last analysis
+      // (if the user only wants the changes).
+      ObjectNode diagnostics = statusHandler.diffDiagnostics();
+      if (diagnostics != null) {
+        diagnostics.put("name", fileNames.get(0));
+        if (version != null) {
+          diagnostics.put("version", version);
+        }
+
+        // Send the message through the websocket
+        myWebSocketOut.tell(diagnostics, self());
+      }
+
+      // Create a JSON Object that indicates we are done analyzing
+      // the specified file if there are no error messages. (If we
+      // aborted the job, the status handler has already sent a summary.)
+      if (!statusHandler.hasError() && !statusHandler.hasAborted()) {
+        ObjectNode result = Json.newObject();
+        result.put("status", "complete");
+        result.put("job", myJob);
+        result.put("result", "Done analyzing files: " + fileNames.toString());
+        if (version != null) {
+          result.put("version", version);
+        }
+
+        // Send the message through the websocket
+        myWebSocketOut.tell(result, self());
+      }
+    } else if (cause instanceof CompileJobRejectedException) {
+      // Create the error JSON Object (with a hint on when to try again)
+      ObjectNode result = Json.newObject();
+      result.put("status", "error");
+      result.put("msg", cause.getMessage());
+      result.put("retryAfter", ((CompileJobRejectedException) cause).getRetryAfterSeconds());
+
+      // Send the message through the websocket
+      myWebSocketOut.tell(result, self());
+    } else if (!(cause instanceof CancellationException)) {
+      // Notify the user that some kind of exception occurred
+      // (this also closes the connection).
+      notifyCompilerException(
+          cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+      return;
+    }
+
+    if (sessionFlag) {
+      // Keep the connection open for the next edits
+      self().tell(COMPILE_JOB_DONE, ActorRef.noSender());
+    } else {
+      // Close the connection
+      self().tell(PoisonPill.getInstance(), ActorRef.noSender());
+    }
+  }
 }
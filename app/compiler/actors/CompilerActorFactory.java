@@ -0,0 +1,101 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.actors;
+
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import compiler.actors.invokers.*;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * This singleton class knows which compiler {@code Actor} handles each of the job requests we
+ * support. Anything that needs to run a compile job the same way a {@code WebSocket} request does
+ * (for example: the warm-up stage) should create its actors using this factory.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class CompilerActorFactory {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** All the application-wide components needed by our compiler actors. */
+  private final CompilerServices myCompilerServices;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a factory for our compiler actors.
+   *
+   * @param compilerServices All the application-wide components needed by our compiler actors.
+   */
+  @Inject
+  public CompilerActorFactory(CompilerServices compilerServices) {
+    myCompilerServices = compilerServices;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * Checks to see if we have a compiler actor for the specified job.
+   *
+   * @param job Name of the job to be executed.
+   * @return {@code true} if the job is supported, {@code false} otherwise.
+   */
+  public final boolean isSupported(String job) {
+    switch (job.toLowerCase()) {
+      case "analyze":
+      case "buildjar":
+      case "ccverify":
+      case "genvcs":
+      case "translatejava":
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * This method creates the {@link Props} for the compiler actor that handles the specified job.
+   *
+   * @param out Outgoing end of the stream.
+   * @param job Name of the job to be executed.
+   * @param project RESOLVE project folder to be used.
+   * @param clientId Identifies the client (IP address or session) that sent the request.
+   * @return The {@link Props} for the appropriate compiler actor.
+   * @throws IllegalArgumentException If the job isn't supported.
+   */
+  public final Props props(ActorRef out, String job, String project, String clientId) {
+    switch (job.toLowerCase()) {
+      case "analyze":
+        return AnalyzeInvokerActor.props(out, job, project, clientId, myCompilerServices);
+      case "buildjar":
+        return JarInvokerActor.props(out, job, project, clientId, myCompilerServices);
+      case "ccverify":
+        return CCVerifyInvokerActor.props(out, job, project, clientId, myCompilerServices);
+      case "genvcs":
+        return VCInvokerActor.props(out, job, project, clientId, myCompilerServices);
+      case "translatejava":
+        return TranslateJavaInvokerActor.props(out, job, project, clientId, myCompilerServices);
+      default:
+        throw new IllegalArgumentException("Unsupported job request: " + job);
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.actors;
+
+import com.typesafe.config.Config;
+import compiler.backend.CompilerBackend;
+import compiler.output.OutputSpillStore;
+import compiler.scheduling.CompileJobScheduler;
+import compiler.workspace.WorkspaceIndex;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * This singleton class bundles all the application-wide components that our compiler actors need,
+ * so that they can be handed to each {@code Actor} as a single object.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class CompilerServices {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Number of frames a job sends besides its messages (results, summaries, etc). */
+  private static final int EXTRA_FRAMES_PER_JOB = 64;
+
+  /** The compiler that executes our compile jobs. */
+  private final CompilerBackend myCompilerBackend;
+
+  /** The scheduler that runs our compile jobs. */
+  private final CompileJobScheduler myCompileJobScheduler;
+
+  /** Number of frames of a job that may wait to be sent when there isn't a message budget. */
+  private final int myFrameBufferSize;
+
+  /** Maximum number of characters in a file that is sent in several pieces. */
+  private final long myMaxContentSize;
+
+  /** Maximum number of error messages per compile job ({@code 0} means no limit). */
+  private final int myMaxErrorsPerJob;
+
+  /** Maximum number of messages per compile job ({@code 0} means no limit). */
+  private final int myMaxMessagesPerJob;
+
+  /** This keeps the compilation results that are too large to be sent through a WebSocket. */
+  private final OutputSpillStore myOutputSpillStore;
+
+  /** The directory where all the {@code RESOLVE} workspaces are located. */
+  private final String myWorkspaceDir;
+
+  /** The cached index of the {@code RESOLVE} workspaces. */
+  private final WorkspaceIndex myWorkspaceIndex;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an object that contains all the components needed by our compiler actors.
+   *
+   * @param config The configuration manager.
+   * @param compilerBackend The compiler that executes our compile jobs.
+   * @param compileJobScheduler The scheduler that runs our compile jobs.
+   * @param outputSpillStore This keeps the compilation results that are too large to be sent
+   *     through a WebSocket.
+   * @param workspaceIndex The cached index of the {@code RESOLVE} workspaces.
+   */
+  @Inject
+  public CompilerServices(
+      Config config,
+      CompilerBackend compilerBackend,
+      CompileJobScheduler compileJobScheduler,
+      OutputSpillStore outputSpillStore,
+      WorkspaceIndex workspaceIndex) {
+    myCompilerBackend = compilerBackend;
+    myCompileJobScheduler = compileJobScheduler;
+    myFrameBufferSize = config.getInt("webapi.compiler.frameBufferSize");
+    myMaxContentSize = config.getBytes("webapi.compiler.maxContentSize");
+    myMaxErrorsPerJob = config.getInt("webapi.compiler.maxErrorsPerJob");
+    myMaxMessagesPerJob = config.getInt("webapi.compiler.maxMessagesPerJob");
+    myOutputSpillStore = outputSpillStore;
+    myWorkspaceDir = config.getString("webapi.workingdir");
+    myWorkspaceIndex = workspaceIndex;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns the compiler that executes our compile jobs.
+   *
+   * @return A {@link CompilerBackend}.
+   */
+  public final CompilerBackend getCompilerBackend() {
+    return myCompilerBackend;
+  }
+
+  /**
+   * This method returns the scheduler that runs our compile jobs.
+   *
+   * @return A {@link CompileJobScheduler}.
+   */
+  public final CompileJobScheduler getCompileJobScheduler() {
+    return myCompileJobScheduler;
+  }
+
+  /**
+   * This method returns the number of frames of a single job that may wait to be sent to a slow
+   * client. When jobs have a message budget, this is enough for every frame a job can send.
+   *
+   * @return The frame buffer size.
+   */
+  public final int getFrameBufferSize() {
+    return myMaxMessagesPerJob > 0 ? myMaxMessagesPerJob + EXTRA_FRAMES_PER_JOB : myFrameBufferSize;
+  }
+
+  /**
+   * This method returns the maximum number of characters in a file that is sent in several pieces.
+   *
+   * @return The maximum content size.
+   */
+  public final long getMaxContentSize() {
+    return myMaxContentSize;
+  }
+
+  /**
+   * This method returns the maximum number of error messages a compile job may report before it
+   * is aborted.
+   *
+   * @return The error budget ({@code 0} means no limit).
+   */
+  public final int getMaxErrorsPerJob() {
+    return myMaxErrorsPerJob;
+  }
+
+  /**
+   * This method returns the maximum number of messages (of any kind) a compile job may report
+   * before it is aborted.
+   *
+   * @return The message budget ({@code 0} means no limit).
+   */
+  public final int getMaxMessagesPerJob() {
+    return myMaxMessagesPerJob;
+  }
+
+  /**
+   * This method returns the store that keeps the compilation results that are too large to be
+   * sent through a WebSocket.
+   *
+   * @return An {@link OutputSpillStore}.
+   */
+  public final OutputSpillStore getOutputSpillStore() {
+    return myOutputSpillStore;
+  }
+
+  /**
+   * This method returns the path to all the {@code RESOLVE} workspaces.
+   *
+   * @return The workspace directory as a string.
+   */
+  public final String getWorkspaceDir() {
+    return myWorkspaceDir;
+  }
+
+  /**
+   * This method returns the cached index of the {@code RESOLVE} workspaces.
+   *
+   * @return A {@link WorkspaceIndex}.
+   */
+  public final WorkspaceIndex getWorkspaceIndex() {
+    return myWorkspaceIndex;
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.actors;
+
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.actor.UntypedAbstractActor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import compiler.workspace.WorkspaceIndex;
+import java.util.HashMap;
+import java.util.Map;
+import play.libs.Json;
+
+/**
+ * This actor serves the multiplexed {@code /compiler/mux} {@code WebSocket}, which runs several
+ * compile jobs at the same time over a single connection. Every input message carries a
+ * client-chosen {@code id} along with the {@code job} and {@code project} (which the regular {@code
+ * /compiler} endpoint takes from its URL):
+ *
+ * <pre>
+ * {"id": "7", "job": "analyze", "project": "...", "name": "...", "type": "...",
+ *  "content": "..."}
+ * {"id": "7", "cancel": true}
+ * </pre>
+ *
+ * <p>Each job is handled by a child actor created by the {@link CompilerActorFactory}, exactly as
+ * it would be on its own connection, except that the child's outgoing end of the stream is this
+ * actor. Messages with the {@code id} of a running job (such as the remaining pieces of a file that
+ * is sent in several pieces) are forwarded to that job's actor. Every frame a child sends is tagged
+ * with the job's {@code id} before it is forwarded to the client, and a final {@code {"id": "7",
+ * "status": "closed"}} frame tells the client that the job's id can be reused. At most {@code
+ * webapi.compiler.mux.maxJobsPerConnection} jobs run on a connection at the same time. Frames a
+ * child sends after its job was closed are dropped, rather than mistaken for client messages.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class MultiplexActor extends UntypedAbstractActor {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Identifies the client (IP address or session) that opened the connection. */
+  private final String myClientId;
+
+  /** A factory for the compiler actors that handle each job request. */
+  private final CompilerActorFactory myCompilerActorFactory;
+
+  /** A map from the job ids to the child actors handling them. */
+  private final Map<String, ActorRef> myJobActors;
+
+  /** A map from the child actors to the ids of the jobs they are handling. */
+  private final Map<ActorRef, String> myJobIds;
+
+  /** Maximum number of jobs running on this connection at the same time. */
+  private final int myMaxJobs;
+
+  /** This is the outgoing end of the stream. */
+  private final ActorRef myWebSocketOut;
+
+  /** The cached index of the {@code RESOLVE} workspaces. */
+  private final WorkspaceIndex myWorkspaceIndex;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an actor for a multiplexed connection.
+   *
+   * @param out Outgoing end of the stream.
+   * @param clientId Identifies the client (IP address or session) that opened the connection.
+   * @param compilerActorFactory A factory for the compiler actors that handle each job request.
+   * @param workspaceIndex The cached index of the {@code RESOLVE} workspaces.
+   * @param maxJobs Maximum number of jobs running on this connection at the same time.
+   */
+  public MultiplexActor(
+      ActorRef out,
+      String clientId,
+      CompilerActorFactory compilerActorFactory,
+      WorkspaceIndex workspaceIndex,
+      int maxJobs) {
+    myClientId = clientId;
+    myCompilerActorFactory = compilerActorFactory;
+    myJobActors = new HashMap<>();
+    myJobIds = new HashMap<>();
+    myMaxJobs = maxJobs;
+    myWebSocketOut = out;
+    myWorkspaceIndex = workspaceIndex;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method overrides the default {@code onReceive} method implementation to handle the
+   * client's messages, the frames sent by our child actors and the end of each job.
+   *
+   * @param message A message sent to this actor.
+   */
+  @Override
+  public final void onReceive(Object message) {
+    String childJobId = myJobIds.get(getSender());
+    if (message instanceof JsonNode && childJobId != null) {
+      // A frame from one of our jobs, tag it and send it to the client
+      if (message instanceof ObjectNode) {
+        ((ObjectNode) message).put("id", childJobId);
+      }
+      myWebSocketOut.tell(message, getSelf());
+    } else if (message instanceof JsonNode && isChild(getSender())) {
+      // A late frame from a job that has been closed (its id may already be reused), drop it
+    } else if (message instanceof JsonNode) {
+      onClientMessage((JsonNode) message);
+    } else if (message instanceof Terminated) {
+      ActorRef child = ((Terminated) message).getActor();
+      String id = myJobIds.remove(child);
+      if (id != null) {
+        myJobActors.remove(id);
+
+        ObjectNode closed = Json.newObject();
+        closed.put("id", id);
+        closed.put("status", "closed");
+        myWebSocketOut.tell(closed, getSelf());
+      }
+    } else {
+      unhandled(message);
+    }
+  }
+
+  /**
+   * Props is a configuration object using in creating an {@code Actor}; It is immutable, so it is
+   * thread-safe and fully shareable.
+   *
+   * @param out Outgoing end of the stream.
+   * @param clientId Identifies the client (IP address or session) that opened the connection.
+   * @param compilerActorFactory A factory for the compiler actors that handle each job request.
+   * @param workspaceIndex The cached index of the {@code RESOLVE} workspaces.
+   * @param maxJobs Maximum number of jobs running on this connection at the same time.
+   * @return A {@link MultiplexActor}.
+   */
+  public static Props props(
+      ActorRef out,
+      String clientId,
+      CompilerActorFactory compilerActorFactory,
+      WorkspaceIndex workspaceIndex,
+      int maxJobs) {
+    return Props.create(
+        MultiplexActor.class,
+        () -> new MultiplexActor(out, clientId, compilerActorFactory, workspaceIndex, maxJobs));
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that checks to see if a message was sent by one of our child actors, even one
+   * that is no longer handling a job.
+   *
+   * @param sender The sender of a message.
+   * @return {@code true} if {@code sender} is one of our children, {@code false} otherwise.
+   */
+  private boolean isChild(ActorRef sender) {
+    return sender.path().parent().equals(getSelf().path());
+  }
+
+  /**
+   * An helper method that sends an error frame (tagged with the job's id, if there is one) to the
+   * client. Unlike the regular endpoint, the connection stays open.
+   *
+   * @param id The job's id ({@code null} if the message didn't have one).
+   * @param msg Message to be displayed.
+   */
+  private void notifyError(String id, String msg) {
+    ObjectNode result = Json.newObject();
+    if (id != null) {
+      result.put("id", id);
+    }
+    result.put("status", "error");
+    result.put("msg", msg);
+
+    myWebSocketOut.tell(result, getSelf());
+  }
+
+  /**
+   * An helper method that starts or cancels a job as requested by the client.
+   *
+   * @param message An input message.
+   */
+  private void onClientMessage(JsonNode message) {
+    String id = message.path("id").asText(null);
+    if (id == null || id.isEmpty()) {
+      notifyError(null, "Missing field(s): id");
+      return;
+    }
+
+    // Cancel a running job (the child cancels its compile job when it stops)
+    if (message.path("cancel").asBoolean(false)) {
+      ActorRef child = myJobActors.get(id);
+      if (child != null) {
+        getContext().stop(child);
+      }
+      return;
+    }
+
+    // The rest of a file that is sent in several pieces
+    ActorRef runningChild = myJobActors.get(id);
+    if (runningChild != null) {
+      ObjectNode compilerMessage = ((ObjectNode) message).deepCopy();
+      compilerMessage.remove("id");
+      runningChild.tell(compilerMessage, getSelf());
+      return;
+    }
+
+    String job = message.path("job").asText("");
+    String project = message.path("project").asText("");
+    if (myJobActors.size() >= myMaxJobs) {
+      notifyError(id, "Too many jobs on this connection. Please wait for one to finish!");
+    } else if (!myCompilerActorFactory.isSupported(job)) {
+      notifyError(id, "Unsupported job request: " + job);
+    } else if (!myWorkspaceIndex.hasProject(project)) {
+      notifyError(id, "Project not found: " + project);
+    } else {
+      // Our child only knows about the regular message fields
+      ObjectNode compilerMessage = ((ObjectNode) message).deepCopy();
+      compilerMessage.remove("id");
+      compilerMessage.remove("job");
+
+      ActorRef child =
+          getContext()
+              .actorOf(myCompilerActorFactory.props(getSelf(), job, project, myClientId));
+      getContext().watch(child);
+      myJobActors.put(id, child);
+      myJobIds.put(child, id);
+      child.tell(compilerMessage, getSelf());
+    }
+  }
+}
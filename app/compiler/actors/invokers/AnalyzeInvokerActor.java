@@ -12,18 +12,21 @@
 package compiler.actors.invokers;
 
 import akka.actor.ActorRef;
-import akka.actor.PoisonPill;
 import akka.actor.Props;
+import akka.util.ByteString;
 import com.fasterxml.jackson.databind.JsonNode;
 import compiler.actors.AbstractCompilerActor;
+import compiler.actors.CompilerServices;
 import compiler.inputmessage.CompilerMessage;
 import edu.clemson.cs.rsrg.init.file.ModuleType;
 import edu.clemson.cs.rsrg.init.file.ResolveFile;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import org.antlr.v4.runtime.CharStreams;
+import java.util.Map;
 import play.libs.Json;
 
 /**
@@ -35,6 +38,16 @@ import play.libs.Json;
  */
 public class AnalyzeInvokerActor extends AbstractCompilerActor {
 
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /**
+   * This contains the files that were edited while a compile job was running (session mode), keyed
+   * by name. They are analyzed once the job is done.
+   */
+  private final Map<String, CompilerMessage> myPendingMessages;
+
   // ===========================================================
   // Constructors
   // ===========================================================
@@ -45,10 +58,13 @@ public class AnalyzeInvokerActor extends AbstractCompilerActor {
    * @param out Outgoing end of the stream.
    * @param job Name of the job to be executed.
    * @param project RESOLVE project folder to be used.
-   * @param workspacePath Path to all the RESOLVE workspaces.
+   * @param clientId Identifies the client (IP address or session) that sent the request.
+   * @param services Application-wide components needed by compiler actors.
    */
-  public AnalyzeInvokerActor(ActorRef out, String job, String project, String workspacePath) {
-    super(out, job, project, workspacePath);
+  public AnalyzeInvokerActor(
+      ActorRef out, String job, String project, String clientId, CompilerServices services) {
+    super(out, job, project, clientId, services);
+    myPendingMessages = new LinkedHashMap<>();
   }
 
   // ===========================================================
@@ -62,13 +78,16 @@ public class AnalyzeInvokerActor extends AbstractCompilerActor {
    * @param out Outgoing end of the stream.
    * @param job Name of the job to be executed.
    * @param project RESOLVE project folder to be used.
-   * @param workspacePath Path to all the RESOLVE workspaces.
+   * @param clientId Identifies the client (IP address or session) that sent the request.
+   * @param services Application-wide components needed by compiler actors.
    * @return An {@link AnalyzeInvokerActor}.
    */
-  public static Props props(ActorRef out, String job, String project, String workspacePath) {
+  public static Props props(
+      ActorRef out, String job, String project, String clientId, CompilerServices services) {
     // https://doc.akka.io/docs/akka/current//actors.html
     return Props.create(
-        AnalyzeInvokerActor.class, () -> new AnalyzeInvokerActor(out, job, project, workspacePath));
+        AnalyzeInvokerActor.class,
+        () -> new AnalyzeInvokerActor(out, job, project, clientId, services));
   }
 
   /**
@@ -79,34 +98,47 @@ public class AnalyzeInvokerActor extends AbstractCompilerActor {
   @Override
   public final void onReceive(Object message) {
     try {
-      // Only deal with JsonNode
-      if (message instanceof JsonNode) {
-        // Validate the input message
-        CompilerMessage compilerMessage = Json.fromJson((JsonNode) message, CompilerMessage.class);
-        List<String> errorMessages = validateInputMessage(compilerMessage);
-
-        // Only proceed if the validation step didn't generate an error message
-        if (errorMessages.isEmpty()) {
-          // Send message to user about launching compiler job
-          notifyLaunchingCompilerJob();
-
-          // Convert the message into a file and
-          // add it to our user files map
-          String completeFileName = compilerMessage.name + ".mt";
-          myFilesMap.put(completeFileName, buildInputResolveFile(compilerMessage));
-
-          // Setup items to be passed to the compiler
-          myCompilerArgs.add(completeFileName);
-
-          // Invoke the RESOLVE compiler
-          invokeResolveCompiler(Collections.singletonList(compilerMessage.name));
-
-          // Close the connection
-          self().tell(PoisonPill.getInstance(), ActorRef.noSender());
+      if (COMPILE_JOB_DONE.equals(message)) {
+        // Analyze the files that were edited in the meantime (session mode only)
+        endCompileJob();
+        Iterator<CompilerMessage> it = myPendingMessages.values().iterator();
+        if (it.hasNext()) {
+          CompilerMessage pendingMessage = it.next();
+          it.remove();
+          analyze(pendingMessage);
+        }
+      } else if (message instanceof JsonNode || message instanceof ByteString) {
+        // Only deal with JsonNode (or a file sent as a binary frame)
+        // Wait until we have every piece of the file
+        CompilerMessage compilerMessage =
+            message instanceof ByteString
+                ? fromBinaryFrame((ByteString) message)
+                : collectChunks(Json.fromJson((JsonNode) message, CompilerMessage.class));
+        if (compilerMessage == null) {
+          return;
+        }
+
+        if (compilerMessage.edits != null) {
+          // Apply the edits to a file that is being edited
+          CompilerMessage document = applyEdits(compilerMessage);
+          if (document != null) {
+            requestAnalysis(document);
+          }
         } else {
-          // Send an error message back to user and close
-          // socket connection for all other types.
-          notifyMissingInputFields(errorMessages);
+          // Validate the input message
+          List<String> errorMessages = validateInputMessage(compilerMessage);
+
+          // Only proceed if the validation step didn't generate an error message
+          if (errorMessages.isEmpty()) {
+            // Keep the file around if the user is going to edit it
+            if (compilerMessage.version == null || openDocument(compilerMessage)) {
+              requestAnalysis(compilerMessage);
+            }
+          } else {
+            // Send an error message back to user and close
+            // socket connection for all other types.
+            notifyMissingInputFields(errorMessages);
+          }
         }
       } else {
         // Send an error message back to user and close
@@ -134,7 +166,7 @@ public class AnalyzeInvokerActor extends AbstractCompilerActor {
     return new ResolveFile(
         compilerMessage.name,
         ModuleType.THEORY,
-        CharStreams.fromString(decode(compilerMessage.content)),
+        contentStream(compilerMessage),
         Paths.get(formProjectWorkspacePath()),
         new ArrayList<>(),
         "");
@@ -165,10 +197,54 @@ public class AnalyzeInvokerActor extends AbstractCompilerActor {
       invalidFields.add("project");
     }
 
-    if (compilerMessage.content == null) {
+    if (compilerMessage.content == null && compilerMessage.contentBuffer == null) {
       invalidFields.add("content");
     }
 
     return invalidFields;
   }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that launches a compile job that analyzes a file.
+   *
+   * @param compilerMessage An input message with the file to be analyzed.
+   */
+  private void analyze(CompilerMessage compilerMessage) {
+    // Send message to user about launching compiler job
+    notifyLaunchingCompilerJob();
+
+    // Convert the message into a file and
+    // add it to our user files map
+    String completeFileName = compilerMessage.name + ".mt";
+    myFilesMap.put(completeFileName, buildInputResolveFile(compilerMessage));
+
+    // Setup items to be passed to the compiler (in session mode,
+    // the other files that are being edited are not analyzed again)
+    myCompilerArgs.removeAll(myFilesMap.keySet());
+    myCompilerArgs.add(completeFileName);
+
+    // Invoke the RESOLVE compiler (the connection is closed once
+    // the compile job is done, unless we are in session mode)
+    invokeResolveCompiler(Collections.singletonList(compilerMessage.name));
+  }
+
+  /**
+   * An helper method that analyzes a file right away or, if a compile job is already running
+   * (session mode), once that job is done.
+   *
+   * @param compilerMessage An input message with the file to be analyzed.
+   */
+  private void requestAnalysis(CompilerMessage compilerMessage) {
+    if (isCompileJobRunning()) {
+      // Only the latest version of each file is analyzed
+      myPendingMessages.remove(compilerMessage.name);
+      myPendingMessages.put(compilerMessage.name, compilerMessage);
+    } else {
+      analyze(compilerMessage);
+    }
+  }
 }
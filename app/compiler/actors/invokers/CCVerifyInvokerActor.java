@@ -15,6 +15,7 @@ import akka.actor.ActorRef;
 import akka.actor.Props;
 import com.fasterxml.jackson.databind.JsonNode;
 import compiler.actors.AbstractCompilerActor;
+import compiler.actors.CompilerServices;
 import compiler.inputmessage.CompilerMessage;
 import edu.clemson.cs.rsrg.init.file.ResolveFile;
 import java.util.ArrayList;
@@ -38,10 +39,12 @@ public class CCVerifyInvokerActor extends AbstractCompilerActor {
    * @param out Outgoing end of the stream.
    * @param job Name of the job to be executed.
    * @param project RESOLVE project folder to be used.
-   * @param workspacePath Path to all the RESOLVE workspaces.
+   * @param clientId Identifies the client (IP address or session) that sent the request.
+   * @param services Application-wide components needed by compiler actors.
    */
-  public CCVerifyInvokerActor(ActorRef out, String job, String project, String workspacePath) {
-    super(out, job, project, workspacePath);
+  public CCVerifyInvokerActor(
+      ActorRef out, String job, String project, String clientId, CompilerServices services) {
+    super(out, job, project, clientId, services);
   }
 
   // ===========================================================
@@ -55,14 +58,16 @@ public class CCVerifyInvokerActor extends AbstractCompilerActor {
    * @param out Outgoing end of the stream.
    * @param job Name of the job to be executed.
    * @param project RESOLVE project folder to be used.
-   * @param workspacePath Path to all the RESOLVE workspaces.
+   * @param clientId Identifies the client (IP address or session) that sent the request.
+   * @param services Application-wide components needed by compiler actors.
    * @return A {@link CCVerifyInvokerActor}.
    */
-  public static Props props(ActorRef out, String job, String project, String workspacePath) {
+  public static Props props(
+      ActorRef out, String job, String project, String clientId, CompilerServices services) {
     // https://doc.akka.io/docs/akka/current//actors.html
     return Props.create(
         CCVerifyInvokerActor.class,
-        () -> new CCVerifyInvokerActor(out, job, project, workspacePath));
+        () -> new CCVerifyInvokerActor(out, job, project, clientId, services));
   }
 
   /**
@@ -15,6 +15,7 @@ import akka.actor.ActorRef;
 import akka.actor.Props;
 import com.fasterxml.jackson.databind.JsonNode;
 import compiler.actors.AbstractCompilerActor;
+import compiler.actors.CompilerServices;
 import compiler.inputmessage.CompilerMessage;
 import edu.clemson.cs.rsrg.init.file.ResolveFile;
 import java.util.ArrayList;
@@ -38,10 +39,12 @@ public class VCInvokerActor extends AbstractCompilerActor {
    * @param out Outgoing end of the stream.
    * @param job Name of the job to be executed.
    * @param project RESOLVE project folder to be used.
-   * @param workspacePath Path to all the RESOLVE workspaces.
+   * @param clientId Identifies the client (IP address or session) that sent the request.
+   * @param services Application-wide components needed by compiler actors.
    */
-  public VCInvokerActor(ActorRef out, String job, String project, String workspacePath) {
-    super(out, job, project, workspacePath);
+  public VCInvokerActor(
+      ActorRef out, String job, String project, String clientId, CompilerServices services) {
+    super(out, job, project, clientId, services);
   }
 
   // ===========================================================
@@ -55,13 +58,15 @@ public class VCInvokerActor extends AbstractCompilerActor {
    * @param out Outgoing end of the stream.
    * @param job Name of the job to be executed.
    * @param project RESOLVE project folder to be used.
-   * @param workspacePath Path to all the RESOLVE workspaces.
+   * @param clientId Identifies the client (IP address or session) that sent the request.
+   * @param services Application-wide components needed by compiler actors.
    * @return A {@link VCInvokerActor}.
    */
-  public static Props props(ActorRef out, String job, String project, String workspacePath) {
+  public static Props props(
+      ActorRef out, String job, String project, String clientId, CompilerServices services) {
     // https://doc.akka.io/docs/akka/current//actors.html
     return Props.create(
-        VCInvokerActor.class, () -> new VCInvokerActor(out, job, project, workspacePath));
+        VCInvokerActor.class, () -> new VCInvokerActor(out, job, project, clientId, services));
   }
 
   /**
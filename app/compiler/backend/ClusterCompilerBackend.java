@@ -0,0 +1,238 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.cluster.Cluster;
+import akka.cluster.MemberStatus;
+import akka.routing.FromConfig;
+import com.typesafe.config.Config;
+import compiler.backend.cluster.ClusterCompileWorker;
+import compiler.backend.cluster.ClusterJobRelay;
+import compiler.backend.worker.CompileEvent;
+import compiler.backend.worker.CompileRequest;
+import compiler.backend.worker.CompilerWorkerException;
+import compiler.backend.worker.StatusRelay;
+import edu.clemson.cs.rsrg.init.file.ResolveFile;
+import edu.clemson.cs.rsrg.init.output.OutputListener;
+import edu.clemson.cs.rsrg.statushandling.StatusHandler;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * This {@link CompilerBackend} shares the compile jobs across all the WebAPI nodes of an {@code
+ * Akka} cluster. Every job is sent through a cluster-aware router ({@code /user/compileRouter},
+ * configured in {@code conf/cluster.conf}) to the {@link ClusterCompileWorker} of the node that
+ * currently has the most spare heap and CPU (according to the cluster metrics). The worker's
+ * events are streamed back to a {@link ClusterJobRelay} on this node and forwarded to the job's
+ * {@code StatusHandler} and {@code OutputListener} using a {@link StatusRelay}, so the client's
+ * {@code WebSocket} sees exactly the same frames.
+ *
+ * <p>Every node runs the jobs it receives using the in-process compiler named by {@code
+ * webapi.compiler.cluster.backend}. The nodes are expected to be identical (same compiler and
+ * workspace layout), since the workspace paths in a job's arguments are resolved on the node that
+ * runs it.
+ *
+ * <p>Requests and events travel as single {@code Artery} frames, and a frame that is larger than
+ * {@code akka.remote.artery.advanced.maximum-frame-size} is dropped without telling anyone. A
+ * request that doesn't fit in a frame therefore runs right here using this node's compiler, and an
+ * event that doesn't fit fails the job instead of leaving it waiting for the request timeout.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class ClusterCompilerBackend implements CompilerBackend {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Number of bytes of a frame we leave for the envelope (actor paths, serializer, etc). */
+  private static final int FRAME_HEADROOM = 16 * 1024;
+
+  /** The actor system this node's cluster member belongs to. */
+  private final ActorSystem myActorSystem;
+
+  /** The in-process compiler that runs the jobs routed to this node. */
+  private final CompilerBackend myDelegate;
+
+  /** The threads that run the jobs routed to this node. */
+  private final ExecutorService myExecutor;
+
+  /** Maximum number of bytes in an encoded request or event that is sent to another node. */
+  private final int myMaxMessageSize;
+
+  /** Maximum amount of time to wait for the next event of a routed job. */
+  private final long myRequestTimeoutMillis;
+
+  /** The cluster-aware router that picks the node for each job. */
+  private final ActorRef myRouter;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates this node's compile worker and the router using the {@code
+   * webapi.compiler.cluster} settings.
+   *
+   * @param config The configuration manager.
+   * @param actorSystem The actor system this node's cluster member belongs to.
+   * @param lifecycle The application's lifecycle, used to stop our threads on shutdown.
+   */
+  @Inject
+  public ClusterCompilerBackend(
+      Config config, ActorSystem actorSystem, ApplicationLifecycle lifecycle) {
+    Config clusterConfig = config.getConfig("webapi.compiler.cluster");
+    String backend = clusterConfig.getString("backend").toLowerCase();
+    int workerThreads = clusterConfig.getInt("workerThreads");
+    int threads = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+
+    myActorSystem = actorSystem;
+    myDelegate =
+        "stub".equals(backend) ? new StubCompilerBackend(config) : new ResolveCompilerBackend();
+    myMaxMessageSize =
+        (int) config.getBytes("akka.remote.artery.advanced.maximum-frame-size").longValue()
+            - FRAME_HEADROOM;
+    myRequestTimeoutMillis = clusterConfig.getDuration("requestTimeout", TimeUnit.MILLISECONDS);
+
+    // Jobs routed to this node wait in a bounded queue, the rest are turned away
+    AtomicInteger threadCount = new AtomicInteger();
+    myExecutor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(clusterConfig.getInt("maxQueuedJobs")),
+            r -> {
+              Thread thread =
+                  new Thread(r, "cluster-compile-worker-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    actorSystem.actorOf(
+        ClusterCompileWorker.props(myDelegate, myExecutor, myMaxMessageSize), "compileWorker");
+    myRouter = actorSystem.actorOf(FromConfig.getInstance().props(), "compileRouter");
+
+    lifecycle.addStopHook(
+        () -> {
+          myExecutor.shutdownNow();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method routes the compile job to the least loaded node and relays its events until the
+   * job is done. A job whose request is too large to be sent to another node runs on this node.
+   *
+   * @param compilerArgs Arguments to be sent to the compiler.
+   * @param filesMap The user supplied {@link ResolveFile ResolveFiles}.
+   * @param statusHandler A {@link StatusHandler} for information, warning and error messages.
+   * @param outputListener An {@link OutputListener} for the compilation results.
+   * @throws CompilerWorkerException If the job couldn't be completed.
+   */
+  @Override
+  public final void invokeCompiler(
+      String[] compilerArgs,
+      Map<String, ResolveFile> filesMap,
+      StatusHandler statusHandler,
+      OutputListener outputListener) {
+    // The request would be dropped by the remote transport
+    byte[] request = new CompileRequest(compilerArgs, filesMap).toBytes();
+    if (request.length > myMaxMessageSize) {
+      myDelegate.invokeCompiler(compilerArgs, filesMap, statusHandler, outputListener);
+      return;
+    }
+
+    BlockingQueue<CompileEvent> events = new LinkedBlockingQueue<>();
+    ActorRef relay = myActorSystem.actorOf(ClusterJobRelay.props(events));
+    try {
+      myRouter.tell(request, relay);
+
+      StatusRelay statusRelay = new StatusRelay(statusHandler, outputListener);
+      CompileEvent event = takeEvent(events);
+      while (event.getKind() != CompileEvent.Kind.DONE) {
+        if (event.getKind() == CompileEvent.Kind.FAILED) {
+          throw new CompilerWorkerException(event.getMessage());
+        }
+
+        statusRelay.relay(event);
+        event = takeEvent(events);
+      }
+    } catch (InterruptedException e) {
+      // The job was cancelled (stopping the relay stops the job).
+      Thread.currentThread().interrupt();
+    } finally {
+      myActorSystem.stop(relay);
+    }
+  }
+
+  /**
+   * This method returns a short name that identifies this backend in logs.
+   *
+   * @return The backend's name.
+   */
+  @Override
+  public final String getName() {
+    return "cluster-" + myDelegate.getName();
+  }
+
+  /**
+   * Checks to see if this node's compiler is present and this node has joined the cluster.
+   *
+   * @return {@code true} if compile jobs can be executed, {@code false} otherwise.
+   */
+  @Override
+  public final boolean isAvailable() {
+    return myDelegate.isAvailable()
+        && Cluster.get(myActorSystem).selfMember().status() == MemberStatus.up();
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that waits for a routed job's next event.
+   *
+   * @param events The job's event queue.
+   * @return The next event.
+   * @throws InterruptedException If the current thread was interrupted while waiting.
+   * @throws CompilerWorkerException If no event arrived within the request timeout.
+   */
+  private CompileEvent takeEvent(BlockingQueue<CompileEvent> events) throws InterruptedException {
+    CompileEvent event = events.poll(myRequestTimeoutMillis, TimeUnit.MILLISECONDS);
+    if (event == null) {
+      throw new CompilerWorkerException("Timed out waiting for the cluster node running this job");
+    }
+
+    return event;
+  }
+}
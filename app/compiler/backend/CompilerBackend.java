@@ -0,0 +1,61 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend;
+
+import edu.clemson.cs.rsrg.init.file.ResolveFile;
+import edu.clemson.cs.rsrg.init.output.OutputListener;
+import edu.clemson.cs.rsrg.statushandling.StatusHandler;
+import java.util.Map;
+
+/**
+ * This interface abstracts the compiler that actually executes a compile job. The compiler actors
+ * only talk to this interface, which allows us to swap in a different implementation (for example,
+ * when load testing the WebAPI without the {@code RESOLVE} compiler jar).
+ *
+ * <p>The implementation to be used is bound by {@code modules.CompilerModule} using the {@code
+ * webapi.compiler.backend} setting.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public interface CompilerBackend {
+
+  /**
+   * This method invokes the compiler with the specified arguments and user supplied files. All
+   * messages and results must be reported through the provided handler and listener.
+   *
+   * @param compilerArgs Arguments to be sent to the compiler.
+   * @param filesMap The user supplied {@link ResolveFile ResolveFiles}.
+   * @param statusHandler A {@link StatusHandler} for information, warning and error messages.
+   * @param outputListener An {@link OutputListener} for the compilation results.
+   */
+  void invokeCompiler(
+      String[] compilerArgs,
+      Map<String, ResolveFile> filesMap,
+      StatusHandler statusHandler,
+      OutputListener outputListener);
+
+  /**
+   * This method returns a short name that identifies this backend in logs.
+   *
+   * @return The backend's name.
+   */
+  String getName();
+
+  /**
+   * Checks to see if this backend is able to run compile jobs (for example, if the compiler it
+   * depends on is present).
+   *
+   * @return {@code true} if compile jobs can be executed, {@code false} otherwise.
+   */
+  boolean isAvailable();
+}
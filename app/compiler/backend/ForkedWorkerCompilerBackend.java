@@ -0,0 +1,325 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend;
+
+import com.typesafe.config.Config;
+import compiler.backend.worker.CompileEvent;
+import compiler.backend.worker.CompileRequest;
+import compiler.backend.worker.CompilerWorkerException;
+import compiler.backend.worker.CompilerWorkerMain;
+import compiler.backend.worker.StatusRelay;
+import compiler.backend.worker.WorkerProcess;
+import edu.clemson.cs.rsrg.init.file.ResolveFile;
+import edu.clemson.cs.rsrg.init.output.OutputListener;
+import edu.clemson.cs.rsrg.statushandling.StatusHandler;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * This {@link CompilerBackend} runs every compile job in a pool of pre-forked worker {@code JVMs}
+ * (see {@link CompilerWorkerMain}), so a runaway prover's garbage and CPU time can't hurt the
+ * WebAPI's {@code JVM}. Requests and events are exchanged over the workers' standard input and
+ * output, and the events are forwarded to the job's {@code StatusHandler} and {@code
+ * OutputListener} using a {@link StatusRelay}, so clients see exactly the same frames.
+ *
+ * <p>The pool is controlled by the {@code webapi.compiler.worker} settings. Each worker has its own
+ * heap limit, is replaced after running {@code maxJobsPerWorker} jobs, and is restarted if it
+ * crashes. A worker whose job was cancelled (or exceeded its message budget) is also replaced,
+ * since we can't tell how far the compiler got.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class ForkedWorkerCompilerBackend implements CompilerBackend {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The command that starts a worker's {@code JVM}. */
+  private final List<String> myCommand;
+
+  /**
+   * An in-process instance of the backend the workers run. It tells us the compiler's version and
+   * if it is available.
+   */
+  private final CompilerBackend myDelegate;
+
+  /** Workers that are waiting for a job. */
+  private final BlockingQueue<WorkerProcess> myIdleWorkers;
+
+  /** Number of workers that have been started and not destroyed. */
+  private final AtomicInteger myLiveWorkers;
+
+  /** Logger for the worker pool related items. */
+  private final Logger myLogger;
+
+  /** Number of jobs a worker runs before it is replaced ({@code 0} means no limit). */
+  private final int myMaxJobsPerWorker;
+
+  /** The identifier of the next worker to be started. */
+  private final AtomicInteger myNextWorkerId;
+
+  /** Maximum number of workers. */
+  private final int myPoolSize;
+
+  /** Flag that indicates the application is shutting down. */
+  private volatile boolean myStoppedFlag;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates the worker pool using the {@code webapi.compiler.worker} settings and starts all
+   * of its workers.
+   *
+   * @param config The configuration manager.
+   * @param lifecycle The application's lifecycle, used to stop our workers on shutdown.
+   */
+  @Inject
+  public ForkedWorkerCompilerBackend(Config config, ApplicationLifecycle lifecycle) {
+    Config workerConfig = config.getConfig("webapi.compiler.worker");
+    String backend = workerConfig.getString("backend").toLowerCase();
+    int poolSize = workerConfig.getInt("poolSize");
+
+    myDelegate =
+        "stub".equals(backend) ? new StubCompilerBackend(config) : new ResolveCompilerBackend();
+    myIdleWorkers = new LinkedBlockingQueue<>();
+    myLiveWorkers = new AtomicInteger();
+    myLogger = LoggerFactory.getLogger(ForkedWorkerCompilerBackend.class);
+    myMaxJobsPerWorker = workerConfig.getInt("maxJobsPerWorker");
+    myNextWorkerId = new AtomicInteger();
+    myPoolSize = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    myStoppedFlag = false;
+
+    // Build the worker's command line (using the same Java and classpath as the WebAPI)
+    String classpath = workerConfig.getString("classpath");
+    myCommand = new ArrayList<>();
+    myCommand.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    myCommand.add("-Xmx" + workerConfig.getBytes("maxHeap"));
+    myCommand.addAll(workerConfig.getStringList("jvmOptions"));
+    if (System.getProperty("config.file") != null) {
+      myCommand.add("-Dconfig.file=" + System.getProperty("config.file"));
+    }
+    myCommand.add("-cp");
+    myCommand.add(classpath.isEmpty() ? System.getProperty("java.class.path") : classpath);
+    myCommand.add(CompilerWorkerMain.class.getName());
+    myCommand.add(backend);
+
+    // Pre-fork the workers, so the first jobs don't wait for a JVM to start
+    for (int i = 0; i < myPoolSize; i++) {
+      WorkerProcess worker = startWorker();
+      if (worker != null) {
+        myIdleWorkers.add(worker);
+      }
+    }
+
+    lifecycle.addStopHook(
+        () -> {
+          myStoppedFlag = true;
+          List<WorkerProcess> workers = new ArrayList<>();
+          myIdleWorkers.drainTo(workers);
+          for (WorkerProcess worker : workers) {
+            worker.destroy();
+          }
+
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method sends the compile job to an idle worker and relays the worker's events until the
+   * job is done.
+   *
+   * @param compilerArgs Arguments to be sent to the compiler.
+   * @param filesMap The user supplied {@link ResolveFile ResolveFiles}.
+   * @param statusHandler A {@link StatusHandler} for information, warning and error messages.
+   * @param outputListener An {@link OutputListener} for the compilation results.
+   * @throws CompilerWorkerException If the worker couldn't complete the job.
+   */
+  @Override
+  public final void invokeCompiler(
+      String[] compilerArgs,
+      Map<String, ResolveFile> filesMap,
+      StatusHandler statusHandler,
+      OutputListener outputListener) {
+    WorkerProcess worker;
+    try {
+      worker = borrowWorker();
+    } catch (InterruptedException e) {
+      // The job was cancelled while waiting for a worker.
+      Thread.currentThread().interrupt();
+      return;
+    }
+
+    boolean healthy = false;
+    try {
+      worker.send(new CompileRequest(compilerArgs, filesMap));
+
+      StatusRelay relay = new StatusRelay(statusHandler, outputListener);
+      CompileEvent event = worker.takeEvent();
+      while (event.getKind() != CompileEvent.Kind.DONE) {
+        if (event.getKind() == CompileEvent.Kind.FAILED) {
+          // A worker that exited on its own is replaced below
+          healthy = worker.isAlive();
+          throw new CompilerWorkerException(event.getMessage());
+        }
+
+        relay.relay(event);
+        event = worker.takeEvent();
+      }
+      healthy = true;
+    } catch (IOException e) {
+      throw new CompilerWorkerException(
+          "Unable to send the job to compiler worker " + worker.getId());
+    } catch (InterruptedException e) {
+      // The job was cancelled, so the worker is replaced below.
+      Thread.currentThread().interrupt();
+    } finally {
+      returnWorker(worker, healthy);
+    }
+  }
+
+  /**
+   * This method returns a short name that identifies this backend in logs.
+   *
+   * @return The backend's name.
+   */
+  @Override
+  public final String getName() {
+    return "forked-" + myDelegate.getName();
+  }
+
+  /**
+   * Checks to see if the workers' compiler is present and at least one worker is running.
+   *
+   * @return {@code true} if compile jobs can be executed, {@code false} otherwise.
+   */
+  @Override
+  public final boolean isAvailable() {
+    return myDelegate.isAvailable() && myLiveWorkers.get() > 0;
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that returns an idle worker. A new worker is started if the pool isn't full
+   * yet (for example: after a worker failed to start), otherwise we wait for a worker to be
+   * returned.
+   *
+   * @return A worker that is ready for a job.
+   * @throws InterruptedException If the current thread was interrupted while waiting.
+   * @throws CompilerWorkerException If there aren't any workers and none can be started.
+   */
+  private WorkerProcess borrowWorker() throws InterruptedException {
+    while (true) {
+      WorkerProcess worker = myIdleWorkers.poll();
+      if (worker == null) {
+        worker = startWorker();
+        if (worker == null && myLiveWorkers.get() == 0) {
+          throw new CompilerWorkerException("Unable to start a compiler worker");
+        }
+      }
+
+      if (worker == null) {
+        worker = myIdleWorkers.take();
+      }
+
+      if (worker.isAlive()) {
+        return worker;
+      }
+
+      // This worker crashed while it was idle
+      myLogger.warn("Compiler worker {} stopped while idle, replacing it.", worker.getId());
+      destroyWorker(worker);
+    }
+  }
+
+  /**
+   * An helper method that stops a worker and removes it from the pool.
+   *
+   * @param worker The worker to be stopped.
+   */
+  private void destroyWorker(WorkerProcess worker) {
+    worker.destroy();
+    myLiveWorkers.decrementAndGet();
+  }
+
+  /**
+   * An helper method that gives a worker back to the pool once its job is done. A worker that
+   * isn't healthy or has run too many jobs is replaced with a new one.
+   *
+   * @param worker The worker that ran the job.
+   * @param healthy {@code true} if the worker completed the job normally, {@code false} otherwise.
+   */
+  private void returnWorker(WorkerProcess worker, boolean healthy) {
+    boolean recycle = myMaxJobsPerWorker > 0 && worker.getJobs() >= myMaxJobsPerWorker;
+    if (healthy && !recycle && !myStoppedFlag) {
+      myIdleWorkers.add(worker);
+      return;
+    }
+
+    destroyWorker(worker);
+    if (!myStoppedFlag) {
+      if (!healthy) {
+        myLogger.warn("Replacing compiler worker {} after a failed job.", worker.getId());
+      }
+
+      WorkerProcess replacement = startWorker();
+      if (replacement != null) {
+        myIdleWorkers.add(replacement);
+      }
+    }
+  }
+
+  /**
+   * An helper method that starts a new worker if the pool isn't full.
+   *
+   * @return The new worker or {@code null} if the pool is full or the worker couldn't be started.
+   */
+  private WorkerProcess startWorker() {
+    // Claim a spot in the pool before starting the worker
+    if (myLiveWorkers.getAndUpdate(n -> n < myPoolSize ? n + 1 : n) >= myPoolSize) {
+      return null;
+    }
+
+    int id = myNextWorkerId.incrementAndGet();
+    try {
+      return WorkerProcess.start(id, myCommand);
+    } catch (IOException e) {
+      myLogger.error("Unable to start compiler worker {}", id, e);
+      myLiveWorkers.decrementAndGet();
+
+      return null;
+    }
+  }
+}
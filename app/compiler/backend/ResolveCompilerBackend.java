@@ -0,0 +1,82 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend;
+
+import edu.clemson.cs.rsrg.init.ResolveCompiler;
+import edu.clemson.cs.rsrg.init.file.ResolveFile;
+import edu.clemson.cs.rsrg.init.output.OutputListener;
+import edu.clemson.cs.rsrg.statushandling.StatusHandler;
+import java.io.File;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.Map;
+import javax.inject.Singleton;
+
+/**
+ * This is the default {@link CompilerBackend} that runs the {@code RESOLVE} compiler found in the
+ * {@code custom_lib} folder inside this JVM.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class ResolveCompilerBackend implements CompilerBackend {
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method invokes the {@code RESOLVE} compiler with the specified arguments and user supplied
+   * files.
+   *
+   * @param compilerArgs Arguments to be sent to the compiler.
+   * @param filesMap The user supplied {@link ResolveFile ResolveFiles}.
+   * @param statusHandler A {@link StatusHandler} for information, warning and error messages.
+   * @param outputListener An {@link OutputListener} for the compilation results.
+   */
+  @Override
+  public final void invokeCompiler(
+      String[] compilerArgs,
+      Map<String, ResolveFile> filesMap,
+      StatusHandler statusHandler,
+      OutputListener outputListener) {
+    ResolveCompiler compiler = new ResolveCompiler(compilerArgs);
+    compiler.invokeCompiler(filesMap, statusHandler, outputListener);
+  }
+
+  /**
+   * This method returns a short name that identifies this backend in logs.
+   *
+   * @return The backend's name.
+   */
+  @Override
+  public final String getName() {
+    return "resolve";
+  }
+
+  /**
+   * Checks to see if the {@code RESOLVE} compiler jar can be found.
+   *
+   * @return {@code true} if the compiler's classes and jar are present, {@code false} otherwise.
+   */
+  @Override
+  public final boolean isAvailable() {
+    try {
+      CodeSource source = ResolveCompiler.class.getProtectionDomain().getCodeSource();
+
+      return source == null || new File(source.getLocation().toURI()).exists();
+    } catch (LinkageError | URISyntaxException | SecurityException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend;
+
+import com.typesafe.config.Config;
+import edu.clemson.cs.rsrg.init.file.ResolveFile;
+import edu.clemson.cs.rsrg.init.output.OutputListener;
+import edu.clemson.cs.rsrg.statushandling.StatusHandler;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * This is a deterministic {@link CompilerBackend} that never touches the {@code RESOLVE} compiler.
+ * Every invocation emits a scripted number of information, warning and error messages, burns a
+ * fixed amount of CPU time and waits for a fixed latency. This allows us to measure the overhead
+ * and capacity of the WebAPI itself.
+ *
+ * <p>The behavior is controlled by the {@code webapi.compiler.stub} settings.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class StubCompilerBackend implements CompilerBackend {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Number of milliseconds of CPU time to burn per invocation. */
+  private final long myCpuBurnMillis;
+
+  /** Number of error messages to emit per invocation. */
+  private final int myErrorMessages;
+
+  /** Number of information messages to emit per invocation. */
+  private final int myInfoMessages;
+
+  /** Number of milliseconds to wait (without using the CPU) per invocation. */
+  private final long myLatencyMillis;
+
+  /** Number of warning messages to emit per invocation. */
+  private final int myWarningMessages;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a stub compiler using the {@code webapi.compiler.stub} settings.
+   *
+   * @param config The configuration manager.
+   */
+  @Inject
+  public StubCompilerBackend(Config config) {
+    Config stubConfig = config.getConfig("webapi.compiler.stub");
+    myCpuBurnMillis = stubConfig.getDuration("cpuBurn", TimeUnit.MILLISECONDS);
+    myErrorMessages = stubConfig.getInt("errorMessages");
+    myInfoMessages = stubConfig.getInt("infoMessages");
+    myLatencyMillis = stubConfig.getDuration("latency", TimeUnit.MILLISECONDS);
+    myWarningMessages = stubConfig.getInt("warningMessages");
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method emits the scripted messages, burns the configured CPU time and waits for the
+   * configured latency.
+   *
+   * @param compilerArgs Arguments to be sent to the compiler.
+   * @param filesMap The user supplied {@link ResolveFile ResolveFiles}.
+   * @param statusHandler A {@link StatusHandler} for information, warning and error messages.
+   * @param outputListener An {@link OutputListener} for the compilation results.
+   */
+  @Override
+  public final void invokeCompiler(
+      String[] compilerArgs,
+      Map<String, ResolveFile> filesMap,
+      StatusHandler statusHandler,
+      OutputListener outputListener) {
+    for (int i = 1; i <= myInfoMessages && !statusHandler.hasStopped(); i++) {
+      statusHandler.info(null, "Stub compiler information message " + i + " of " + myInfoMessages);
+    }
+
+    burnCpu();
+
+    if (myLatencyMillis > 0) {
+      try {
+        Thread.sleep(myLatencyMillis);
+      } catch (InterruptedException e) {
+        // Someone wants us to stop, so don't emit anything else.
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+
+    for (int i = 1; i <= myWarningMessages && !statusHandler.hasStopped(); i++) {
+      statusHandler.warning(
+          null, "Stub compiler warning message " + i + " of " + myWarningMessages);
+    }
+
+    for (int i = 1; i <= myErrorMessages && !statusHandler.hasStopped(); i++) {
+      statusHandler.error(null, "Stub compiler error message " + i + " of " + myErrorMessages);
+    }
+  }
+
+  /**
+   * This method returns a short name that identifies this backend in logs.
+   *
+   * @return The backend's name.
+   */
+  @Override
+  public final String getName() {
+    return "stub";
+  }
+
+  /**
+   * Checks to see if this backend is able to run compile jobs.
+   *
+   * @return {@code true}, since the stub compiler doesn't depend on anything.
+   */
+  @Override
+  public final boolean isAvailable() {
+    return true;
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that keeps the current thread busy for the configured amount of time. The JIT
+   * can't remove this loop, since its only exit depends on the result of {@link System#nanoTime()},
+   * so it keeps the CPU busy until the deadline without computing anything.
+   */
+  private void burnCpu() {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(myCpuBurnMillis);
+    while (System.nanoTime() < deadline) {
+      // Nothing to compute, we only need to keep the CPU busy
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend.cluster;
+
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.actor.UntypedAbstractActor;
+import compiler.backend.CompilerBackend;
+import compiler.backend.worker.CompileEvent;
+import compiler.backend.worker.CompileRequest;
+import compiler.backend.worker.EventOutputListener;
+import compiler.backend.worker.EventStatusHandler;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * This actor runs the compile jobs other cluster nodes (or this node) route to it. There is one of
+ * these on every node, at {@code /user/compileWorker}. A job arrives as an encoded {@link
+ * CompileRequest} and its {@link CompileEvent CompileEvents} are streamed back, encoded, to the
+ * requesting {@link ClusterJobRelay}. If the relay stops (because the job was cancelled or the
+ * requesting node left the cluster), the job's thread is interrupted.
+ *
+ * <p>Jobs run on this node's own executor rather than on the {@link
+ * compiler.scheduling.CompileJobScheduler}, whose slots are busy waiting for the jobs this node has
+ * routed elsewhere. Sharing those slots could leave two nodes waiting for each other.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class ClusterCompileWorker extends UntypedAbstractActor {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The in-process compiler that runs the jobs. */
+  private final CompilerBackend myBackend;
+
+  /** The threads that run the jobs. */
+  private final ExecutorService myExecutor;
+
+  /** A map from the requesting relays to their running (or queued) jobs. */
+  private final Map<ActorRef, Future<?>> myJobs;
+
+  /** Maximum number of bytes in an encoded event that is sent back to a relay. */
+  private final int myMaxEventSize;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a worker that runs its jobs using the specified backend and threads.
+   *
+   * @param backend The in-process compiler that runs the jobs.
+   * @param executor The threads that run the jobs.
+   * @param maxEventSize Maximum number of bytes in an encoded event that is sent back to a relay.
+   */
+  public ClusterCompileWorker(CompilerBackend backend, ExecutorService executor, int maxEventSize) {
+    myBackend = backend;
+    myExecutor = executor;
+    myJobs = new HashMap<>();
+    myMaxEventSize = maxEventSize;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method overrides the default {@code onReceive} method implementation to handle the
+   * compile requests, the end of a job and the termination of a requesting relay.
+   *
+   * @param message A message sent to this actor.
+   */
+  @Override
+  public final void onReceive(Object message) {
+    if (message instanceof byte[]) {
+      startJob((byte[]) message, getSender());
+    } else if (message instanceof JobFinished) {
+      ActorRef relay = ((JobFinished) message).myRelay;
+      myJobs.remove(relay);
+      getContext().unwatch(relay);
+    } else if (message instanceof Terminated) {
+      // Nobody is listening anymore, so stop the job
+      Future<?> job = myJobs.remove(((Terminated) message).getActor());
+      if (job != null) {
+        job.cancel(true);
+      }
+    } else {
+      unhandled(message);
+    }
+  }
+
+  /**
+   * Props is a configuration object using in creating an {@code Actor}; It is immutable, so it is
+   * thread-safe and fully shareable.
+   *
+   * @param backend The in-process compiler that runs the jobs.
+   * @param executor The threads that run the jobs.
+   * @param maxEventSize Maximum number of bytes in an encoded event that is sent back to a relay.
+   * @return A {@link ClusterCompileWorker}.
+   */
+  public static Props props(CompilerBackend backend, ExecutorService executor, int maxEventSize) {
+    return Props.create(
+        ClusterCompileWorker.class,
+        () -> new ClusterCompileWorker(backend, executor, maxEventSize));
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that decodes a compile request and hands it to our executor.
+   *
+   * @param bytes The encoded {@link CompileRequest}.
+   * @param relay The {@link ClusterJobRelay} that receives the job's events.
+   */
+  private void startJob(byte[] bytes, ActorRef relay) {
+    ActorRef self = getSelf();
+    int maxEventSize = myMaxEventSize;
+    Consumer<CompileEvent> sink =
+        event -> {
+          // The remote transport would drop it and leave the relay waiting
+          byte[] eventBytes = event.toBytes();
+          if (eventBytes.length > maxEventSize) {
+            eventBytes =
+                CompileEvent.failed("The compilation result is too large to be sent back")
+                    .toBytes();
+          }
+          relay.tell(eventBytes, self);
+        };
+
+    CompileRequest request;
+    try {
+      request = CompileRequest.fromBytes(bytes);
+    } catch (IOException e) {
+      sink.accept(CompileEvent.failed("Unable to decode the compile request"));
+      return;
+    }
+
+    try {
+      Future<?> job =
+          myExecutor.submit(
+              () -> {
+                CompileEvent result;
+                try {
+                  myBackend.invokeCompiler(
+                      request.getCompilerArgs(),
+                      request.getFilesMap(),
+                      new EventStatusHandler(sink),
+                      new EventOutputListener(sink));
+                  result = CompileEvent.done();
+                } catch (RuntimeException e) {
+                  result = CompileEvent.failed(String.valueOf(e.getMessage()));
+                }
+
+                sink.accept(result);
+                self.tell(new JobFinished(relay), ActorRef.noSender());
+              });
+      myJobs.put(relay, job);
+      getContext().watch(relay);
+    } catch (RejectedExecutionException e) {
+      sink.accept(CompileEvent.failed("The compiler node is currently busy"));
+    }
+  }
+
+  // ===========================================================
+  // Private Classes
+  // ===========================================================
+
+  /** A message (local to this node) that tells the worker a job is done. */
+  private static final class JobFinished {
+
+    /** The relay that received the job's events. */
+    final ActorRef myRelay;
+
+    /**
+     * This creates the message.
+     *
+     * @param relay The relay that received the job's events.
+     */
+    JobFinished(ActorRef relay) {
+      myRelay = relay;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend.cluster;
+
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.actor.UntypedAbstractActor;
+import compiler.backend.worker.CompileEvent;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * This actor receives the encoded {@link CompileEvent CompileEvents} of a single compile job that
+ * was routed to a {@link ClusterCompileWorker} (possibly on another node) and hands them to the
+ * thread waiting for them. If the worker's node leaves the cluster, a {@link
+ * CompileEvent.Kind#FAILED FAILED} event is queued so that thread doesn't wait forever. Stopping
+ * this actor tells the worker to stop the job.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class ClusterJobRelay extends UntypedAbstractActor {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The events that haven't been handled yet. */
+  private final BlockingQueue<CompileEvent> myEvents;
+
+  /** The worker running the job (once it has sent its first event). */
+  private ActorRef myWorker;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a relay for a single job.
+   *
+   * @param events The queue the thread running the job waits on.
+   */
+  public ClusterJobRelay(BlockingQueue<CompileEvent> events) {
+    myEvents = events;
+    myWorker = null;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method overrides the default {@code onReceive} method implementation to handle the job's
+   * events and the termination of the worker.
+   *
+   * @param message A message sent to this actor.
+   */
+  @Override
+  public final void onReceive(Object message) {
+    if (message instanceof byte[]) {
+      if (myWorker == null) {
+        myWorker = getSender();
+        getContext().watch(myWorker);
+      }
+
+      try {
+        myEvents.add(CompileEvent.fromBytes((byte[]) message));
+      } catch (IOException e) {
+        myEvents.add(CompileEvent.failed("Unable to decode the compiler's response"));
+      }
+    } else if (message instanceof Terminated) {
+      myEvents.add(
+          CompileEvent.failed("The cluster node running this job is no longer available"));
+    } else {
+      unhandled(message);
+    }
+  }
+
+  /**
+   * Props is a configuration object using in creating an {@code Actor}; It is immutable, so it is
+   * thread-safe and fully shareable.
+   *
+   * @param events The queue the thread running the job waits on.
+   * @return A {@link ClusterJobRelay}.
+   */
+  public static Props props(BlockingQueue<CompileEvent> events) {
+    return Props.create(ClusterJobRelay.class, () -> new ClusterJobRelay(events));
+  }
+}
@@ -0,0 +1,315 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend.worker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is a message a worker {@code JVM} sends back while running a {@link CompileRequest}.
+ * Status messages are forwarded to the job's {@code StatusHandler}, results to its {@code
+ * OutputListener}, and every request ends with exactly one {@link Kind#DONE} or {@link
+ * Kind#FAILED} event.
+ *
+ * <p>Events are written to the worker's standard output using {@link DataOutputStream}, with every
+ * string prefixed by its length.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class CompileEvent {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /**
+   * The result's arguments (only used by {@link Kind#OUTPUT} and {@link Kind#VC_GENERATOR_OUTPUT}
+   * events).
+   */
+  private final List<String> myArgs;
+
+  /** Column of the message's location ({@code 0} if there isn't one). */
+  private final int myColumn;
+
+  /** File of the message's location ({@code null} if there isn't one). */
+  private final String myFile;
+
+  /** The type of event. */
+  private final Kind myKind;
+
+  /** Line of the message's location ({@code 0} if there isn't one). */
+  private final int myLine;
+
+  /** The message (or the name of the {@code OutputListener} method for results). */
+  private final String myMessage;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a new event.
+   *
+   * @param kind The type of event.
+   * @param message The message (or the name of the {@code OutputListener} method for results).
+   * @param file File of the message's location ({@code null} if there isn't one).
+   * @param line Line of the message's location.
+   * @param column Column of the message's location.
+   * @param args The result's arguments.
+   */
+  private CompileEvent(
+      Kind kind, String message, String file, int line, int column, List<String> args) {
+    myArgs = args;
+    myColumn = column;
+    myFile = file;
+    myKind = kind;
+    myLine = line;
+    myMessage = message;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method creates the event that ends a successful request.
+   *
+   * @return A {@link Kind#DONE} event.
+   */
+  public static CompileEvent done() {
+    return new CompileEvent(Kind.DONE, null, null, 0, 0, Collections.emptyList());
+  }
+
+  /**
+   * This method creates the event that ends a request that couldn't be completed.
+   *
+   * @param message Message to be displayed.
+   * @return A {@link Kind#FAILED} event.
+   */
+  public static CompileEvent failed(String message) {
+    return new CompileEvent(Kind.FAILED, message, null, 0, 0, Collections.emptyList());
+  }
+
+  /**
+   * This method decodes an event encoded by {@link #toBytes()}.
+   *
+   * @param bytes The encoded event.
+   * @return The event.
+   * @throws IOException If the bytes are malformed.
+   */
+  public static CompileEvent fromBytes(byte[] bytes) throws IOException {
+    return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+  }
+
+  /**
+   * This method returns the result's arguments.
+   *
+   * @return The arguments passed to the {@code OutputListener} method.
+   */
+  public final List<String> getArgs() {
+    return myArgs;
+  }
+
+  /**
+   * This method returns the column of the message's location.
+   *
+   * @return The column number.
+   */
+  public final int getColumn() {
+    return myColumn;
+  }
+
+  /**
+   * This method returns the file of the message's location.
+   *
+   * @return The file name or {@code null} if the message doesn't have a location.
+   */
+  public final String getFile() {
+    return myFile;
+  }
+
+  /**
+   * This method returns the type of event.
+   *
+   * @return The event's {@link Kind}.
+   */
+  public final Kind getKind() {
+    return myKind;
+  }
+
+  /**
+   * This method returns the line of the message's location.
+   *
+   * @return The line number.
+   */
+  public final int getLine() {
+    return myLine;
+  }
+
+  /**
+   * This method returns the message (or the name of the {@code OutputListener} method for
+   * results).
+   *
+   * @return The message.
+   */
+  public final String getMessage() {
+    return myMessage;
+  }
+
+  /**
+   * This method creates a status message event.
+   *
+   * @param kind One of {@link Kind#INFO}, {@link Kind#WARNING} or {@link Kind#ERROR}.
+   * @param message Message to be displayed.
+   * @param file File of the message's location ({@code null} if there isn't one).
+   * @param line Line of the message's location.
+   * @param column Column of the message's location.
+   * @return The event.
+   */
+  public static CompileEvent message(
+      Kind kind, String message, String file, int line, int column) {
+    return new CompileEvent(kind, message, file, line, column, Collections.emptyList());
+  }
+
+  /**
+   * This method creates a result event.
+   *
+   * @param method Name of the {@code OutputListener} method that received the result.
+   * @param args The arguments passed to that method.
+   * @return A {@link Kind#OUTPUT} event.
+   */
+  public static CompileEvent output(String method, List<String> args) {
+    return new CompileEvent(Kind.OUTPUT, method, null, 0, 0, args);
+  }
+
+  /**
+   * This method reads an event written by {@link #write(DataOutputStream)}.
+   *
+   * @param in The stream to read from.
+   * @return The event.
+   * @throws IOException If the stream was closed or the frame is malformed.
+   */
+  public static CompileEvent read(DataInputStream in) throws IOException {
+    int ordinal = in.readUnsignedByte();
+    if (ordinal >= Kind.values().length) {
+      throw new IOException("Unknown compile event: " + ordinal);
+    }
+
+    Kind kind = Kind.values()[ordinal];
+    String message = CompileRequest.readString(in);
+    String file = CompileRequest.readString(in);
+    int line = in.readInt();
+    int column = in.readInt();
+    int argCount = in.readInt();
+    List<String> args = new ArrayList<>(argCount);
+    for (int i = 0; i < argCount; i++) {
+      args.add(CompileRequest.readString(in));
+    }
+
+    return new CompileEvent(kind, message, file, line, column, args);
+  }
+
+  /**
+   * This method encodes this event as a byte array (for example: to send it to another cluster
+   * node).
+   *
+   * @return The encoded event.
+   */
+  public final byte[] toBytes() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      write(new DataOutputStream(bytes));
+    } catch (IOException e) {
+      // Writing to memory never fails
+      throw new UncheckedIOException(e);
+    }
+
+    return bytes.toByteArray();
+  }
+
+  /**
+   * This method creates the event for the {@code VCGenerator's} results. Only its verbose output is
+   * sent, since the {@code AssertiveCodeBlocks} can't be rebuilt outside of the compiler's {@code
+   * JVM}.
+   *
+   * @param inputFileName Name of the file we are generating VCs for.
+   * @param outputFileName A name for the output file.
+   * @param verboseOutput The verbose output string generated by the {@code VCGenerator} (if any).
+   * @return A {@link Kind#VC_GENERATOR_OUTPUT} event.
+   */
+  public static CompileEvent vcGeneratorOutput(
+      String inputFileName, String outputFileName, String verboseOutput) {
+    return new CompileEvent(
+        Kind.VC_GENERATOR_OUTPUT,
+        null,
+        null,
+        0,
+        0,
+        Arrays.asList(inputFileName, outputFileName, verboseOutput));
+  }
+
+  /**
+   * This method writes this event as a single frame and flushes the stream.
+   *
+   * @param out The stream to write to.
+   * @throws IOException If the stream is closed.
+   */
+  public final void write(DataOutputStream out) throws IOException {
+    out.writeByte(myKind.ordinal());
+    CompileRequest.writeString(out, myMessage);
+    CompileRequest.writeString(out, myFile);
+    out.writeInt(myLine);
+    out.writeInt(myColumn);
+    out.writeInt(myArgs.size());
+    for (String arg : myArgs) {
+      CompileRequest.writeString(out, arg);
+    }
+    out.flush();
+  }
+
+  // ===========================================================
+  // Public Enums
+  // ===========================================================
+
+  /** The types of events a worker can send. */
+  public enum Kind {
+    /** An information message. */
+    INFO,
+
+    /** A warning message. */
+    WARNING,
+
+    /** An error message. */
+    ERROR,
+
+    /** A compilation result for the job's {@code OutputListener}. */
+    OUTPUT,
+
+    /** The request was completed. */
+    DONE,
+
+    /** The request couldn't be completed (for example: the compiler threw an exception). */
+    FAILED,
+
+    /** The {@code VCGenerator's} verbose output for the job's {@code OutputListener}. */
+    VC_GENERATOR_OUTPUT
+  }
+}
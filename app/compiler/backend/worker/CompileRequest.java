@@ -0,0 +1,229 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend.worker;
+
+import edu.clemson.cs.rsrg.init.file.ModuleType;
+import edu.clemson.cs.rsrg.init.file.ResolveFile;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * This class is the message a {@link compiler.backend.ForkedWorkerCompilerBackend} sends to one of
+ * its worker {@code JVMs} to run a compile job: the compiler arguments and the user supplied {@link
+ * ResolveFile ResolveFiles}. Only the parts of a {@link ResolveFile} our compiler actors set are
+ * sent (name, module type, parent path, package list and contents).
+ *
+ * <p>Requests are written to the worker's standard input using {@link DataOutputStream}, with
+ * every string prefixed by its length.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class CompileRequest {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Arguments to be sent to the compiler. */
+  private final String[] myCompilerArgs;
+
+  /** The user supplied {@link ResolveFile ResolveFiles}. */
+  private final Map<String, ResolveFile> myFilesMap;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a new request.
+   *
+   * @param compilerArgs Arguments to be sent to the compiler.
+   * @param filesMap The user supplied {@link ResolveFile ResolveFiles}.
+   */
+  public CompileRequest(String[] compilerArgs, Map<String, ResolveFile> filesMap) {
+    myCompilerArgs = compilerArgs;
+    myFilesMap = filesMap;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method decodes a request encoded by {@link #toBytes()}.
+   *
+   * @param bytes The encoded request.
+   * @return The request.
+   * @throws IOException If the bytes are malformed.
+   */
+  public static CompileRequest fromBytes(byte[] bytes) throws IOException {
+    return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+  }
+
+  /**
+   * This method returns the arguments to be sent to the compiler.
+   *
+   * @return The compiler arguments.
+   */
+  public final String[] getCompilerArgs() {
+    return myCompilerArgs;
+  }
+
+  /**
+   * This method returns the user supplied files.
+   *
+   * @return A map from file names to {@link ResolveFile ResolveFiles}.
+   */
+  public final Map<String, ResolveFile> getFilesMap() {
+    return myFilesMap;
+  }
+
+  /**
+   * This method reads a request written by {@link #write(DataOutputStream)}.
+   *
+   * @param in The stream to read from.
+   * @return The request.
+   * @throws IOException If the stream was closed or the frame is malformed.
+   */
+  public static CompileRequest read(DataInputStream in) throws IOException {
+    String[] compilerArgs = new String[in.readInt()];
+    for (int i = 0; i < compilerArgs.length; i++) {
+      compilerArgs[i] = readString(in);
+    }
+
+    int fileCount = in.readInt();
+    Map<String, ResolveFile> filesMap = new LinkedHashMap<>();
+    for (int i = 0; i < fileCount; i++) {
+      String key = readString(in);
+      String name = readString(in);
+      ModuleType moduleType = ModuleType.valueOf(readString(in));
+      String parentPath = readString(in);
+      List<String> pkgList = new ArrayList<>();
+      int pkgCount = in.readInt();
+      for (int j = 0; j < pkgCount; j++) {
+        pkgList.add(readString(in));
+      }
+      String content = readString(in);
+
+      CharStream input = CharStreams.fromString(content);
+      filesMap.put(
+          key, new ResolveFile(name, moduleType, input, Paths.get(parentPath), pkgList, ""));
+    }
+
+    return new CompileRequest(compilerArgs, filesMap);
+  }
+
+  /**
+   * This method encodes this request as a byte array (for example: to send it to another cluster
+   * node).
+   *
+   * @return The encoded request.
+   */
+  public final byte[] toBytes() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      write(new DataOutputStream(bytes));
+    } catch (IOException e) {
+      // Writing to memory never fails
+      throw new UncheckedIOException(e);
+    }
+
+    return bytes.toByteArray();
+  }
+
+  /**
+   * This method writes this request as a single frame and flushes the stream.
+   *
+   * @param out The stream to write to.
+   * @throws IOException If the stream is closed.
+   */
+  public final void write(DataOutputStream out) throws IOException {
+    out.writeInt(myCompilerArgs.length);
+    for (String arg : myCompilerArgs) {
+      writeString(out, arg);
+    }
+
+    out.writeInt(myFilesMap.size());
+    for (Map.Entry<String, ResolveFile> entry : myFilesMap.entrySet()) {
+      ResolveFile file = entry.getValue();
+      CharStream input = file.getInputStream();
+
+      writeString(out, entry.getKey());
+      writeString(out, file.getName());
+      writeString(out, file.getModuleType().name());
+      writeString(out, file.getParentPath().toString());
+      out.writeInt(file.getPkgList().size());
+      for (String pkg : file.getPkgList()) {
+        writeString(out, pkg);
+      }
+      writeString(out, input.size() == 0 ? "" : input.getText(Interval.of(0, input.size() - 1)));
+    }
+    out.flush();
+  }
+
+  // ===========================================================
+  // Package Private Methods
+  // ===========================================================
+
+  /**
+   * This method reads a string written by {@link #writeString(DataOutputStream, String)}.
+   *
+   * @param in The stream to read from.
+   * @return The string (possibly {@code null}).
+   * @throws IOException If the stream was closed.
+   */
+  static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * This method writes a length-prefixed {@code UTF-8} string. Unlike {@link
+   * DataOutputStream#writeUTF(String)}, this isn't limited to {@code 64 KB}, which matters for
+   * large source files.
+   *
+   * @param out The stream to write to.
+   * @param value The string to be written (possibly {@code null}).
+   * @throws IOException If the stream is closed.
+   */
+  static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
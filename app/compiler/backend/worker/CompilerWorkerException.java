@@ -0,0 +1,35 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend.worker;
+
+/**
+ * This exception indicates that a compiler worker {@code JVM} couldn't complete a compile job (for
+ * example: the compiler threw an exception or the worker crashed).
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class CompilerWorkerException extends RuntimeException {
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an exception with the specified message.
+   *
+   * @param message Message to be displayed.
+   */
+  public CompilerWorkerException(String message) {
+    super(message);
+  }
+}
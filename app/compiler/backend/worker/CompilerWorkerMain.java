@@ -0,0 +1,138 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend.worker;
+
+import com.typesafe.config.ConfigFactory;
+import compiler.backend.CompilerBackend;
+import compiler.backend.ResolveCompilerBackend;
+import compiler.backend.StubCompilerBackend;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * This is the entry point of a compiler worker {@code JVM} started by {@link
+ * compiler.backend.ForkedWorkerCompilerBackend}. The worker reads {@link CompileRequest
+ * CompileRequests} from its standard input, runs them (one at a time) using an in-process {@link
+ * CompilerBackend} and writes the resulting {@link CompileEvent CompileEvents} to its standard
+ * output. Anything else the compiler prints goes to the standard error, which the WebAPI inherits.
+ *
+ * <p>The worker exits as soon as its standard input is closed, so it never outlives the WebAPI.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class CompilerWorkerMain {
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /** This class only has a {@code main} method. */
+  private CompilerWorkerMain() {}
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method runs the worker's request loop.
+   *
+   * @param args The in-process backend to be used ({@code resolve} or {@code stub}).
+   * @throws IOException If the connection to the WebAPI is broken.
+   */
+  public static void main(String[] args) throws IOException {
+    // Standard output is our channel back to the WebAPI, so nobody else may write to it
+    DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+    System.setOut(System.err);
+
+    // Loading the compiler's classes now means the first request doesn't pay for it
+    CompilerBackend backend = createBackend(args.length > 0 ? args[0] : "resolve");
+    if (!backend.isAvailable()) {
+      System.err.println("Compiler worker: the " + backend.getName() + " backend isn't available");
+    }
+
+    DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+    while (true) {
+      CompileRequest request;
+      try {
+        request = CompileRequest.read(in);
+      } catch (EOFException e) {
+        // The WebAPI closed our standard input
+        return;
+      }
+
+      CompileEvent result;
+      try {
+        backend.invokeCompiler(
+            request.getCompilerArgs(),
+            request.getFilesMap(),
+            new EventStatusHandler(event -> send(out, event)),
+            new EventOutputListener(event -> send(out, event)));
+        result = CompileEvent.done();
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      } catch (RuntimeException e) {
+        result = CompileEvent.failed(String.valueOf(e.getMessage()));
+      }
+
+      synchronized (out) {
+        result.write(out);
+      }
+    }
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that creates the in-process backend used by this worker.
+   *
+   * @param name The backend's name.
+   * @return A {@link CompilerBackend}.
+   */
+  private static CompilerBackend createBackend(String name) {
+    switch (name.toLowerCase()) {
+      case "resolve":
+        return new ResolveCompilerBackend();
+      case "stub":
+        return new StubCompilerBackend(ConfigFactory.load());
+      default:
+        throw new IllegalArgumentException("Unknown compiler backend: " + name);
+    }
+  }
+
+  /**
+   * An helper method that sends an event back to the WebAPI. The compiler may report messages from
+   * more than one thread, so events are written one at a time.
+   *
+   * @param out Our channel back to the WebAPI.
+   * @param event The event to be sent.
+   */
+  private static void send(DataOutputStream out, CompileEvent event) {
+    try {
+      synchronized (out) {
+        event.write(out);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend.worker;
+
+import edu.clemson.cs.r2jt.rewriteprover.Metrics;
+import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel;
+import edu.clemson.cs.rsrg.init.output.OutputListener;
+import edu.clemson.cs.rsrg.vcgeneration.utilities.AssertiveCodeBlock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An {@link OutputListener} that turns the compilation results into {@link CompileEvent
+ * CompileEvents}, so they can be sent to the WebAPI instance that owns the job (for example: from a
+ * worker {@code JVM} or another cluster node). Only results made of strings can be sent.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class EventOutputListener implements OutputListener {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** This sends the events to the job's owner. */
+  private final Consumer<CompileEvent> mySink;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a listener for a single job.
+   *
+   * @param sink This sends the events to the job's owner.
+   */
+  public EventOutputListener(Consumer<CompileEvent> sink) {
+    mySink = sink;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method sends the {@code Graphviz} model to the job's owner.
+   *
+   * @param outputFileName A name for the output file.
+   * @param graphvizModel The inner {@code AST} represented in a {@code GraphViz} file format.
+   */
+  @Override
+  public final void astGraphvizModelResult(String outputFileName, String graphvizModel) {
+    sendResult("astGraphvizModelResult", outputFileName, graphvizModel);
+  }
+
+  /**
+   * This method sends the java translation results to the job's owner.
+   *
+   * @param inputFileName Name of the file we are generating {@code Java} translations.
+   * @param outputFileName A name for the output file.
+   * @param javaTranslation The translated {@code Java} source code.
+   */
+  @Override
+  public final void javaTranslationResult(
+      String inputFileName, String outputFileName, String javaTranslation) {
+    sendResult("javaTranslationResult", inputFileName, outputFileName, javaTranslation);
+  }
+
+  /**
+   * This method sends the {@code CCProver} results to the job's owner.
+   *
+   * @param inputFileName Name of the file we are generating proofs.
+   * @param outputFileName A name for the output file.
+   */
+  @Override
+  public final void proverResult(String inputFileName, String outputFileName) {
+    sendResult("proverResult", inputFileName, outputFileName);
+  }
+
+  /**
+   * This method sends the {@code VCGenerator's} verbose output to the job's owner. The {@link
+   * AssertiveCodeBlock AssertiveCodeBlocks} can't be sent.
+   *
+   * @param inputFileName Name of the file we are generating VCs for.
+   * @param outputFileName A name for the output file.
+   * @param blocks A list of final {@link AssertiveCodeBlock AssertiveCodeBlocks}.
+   * @param verboseOutput The verbose output string generated by the {@code VCGenerator}.
+   */
+  @Override
+  public final void vcGeneratorResult(
+      String inputFileName,
+      String outputFileName,
+      List<AssertiveCodeBlock> blocks,
+      String verboseOutput) {
+    mySink.accept(CompileEvent.vcGeneratorOutput(inputFileName, outputFileName, verboseOutput));
+  }
+
+  /**
+   * The prover models can't be sent to the job's owner.
+   *
+   * @param proved {@code true} if the {@code VC} was proved, {@code false} otherwise.
+   * @param finalModel The prover representation for a {@code VC}.
+   * @param m The prover generated metrics.
+   */
+  @Override
+  public final void vcResult(boolean proved, PerVCProverModel finalModel, Metrics m) {
+    throw new UnsupportedOperationException("Not supported outside of the WebAPI's JVM!");
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that sends a result to the job's owner.
+   *
+   * @param method Name of the {@link OutputListener} method that received the result.
+   * @param args The arguments passed to that method.
+   */
+  private void sendResult(String method, String... args) {
+    mySink.accept(CompileEvent.output(method, Arrays.asList(args)));
+  }
+}
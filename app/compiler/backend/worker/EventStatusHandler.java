@@ -0,0 +1,138 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend.worker;
+
+import edu.clemson.cs.rsrg.parsing.data.Location;
+import edu.clemson.cs.rsrg.statushandling.StatusHandler;
+import edu.clemson.cs.rsrg.statushandling.exception.CompilerException;
+import java.util.function.Consumer;
+
+/**
+ * A {@link StatusHandler} that turns the compiler's messages into {@link CompileEvent
+ * CompileEvents}, so they can be sent to the WebAPI instance that owns the job (for example: from a
+ * worker {@code JVM} or another cluster node).
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class EventStatusHandler implements StatusHandler {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** This sends the events to the job's owner. */
+  private final Consumer<CompileEvent> mySink;
+
+  /** Boolean flag to check to see if we are still logging. */
+  private volatile boolean myStopLoggingFlag;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a handler for a single job.
+   *
+   * @param sink This sends the events to the job's owner.
+   */
+  public EventStatusHandler(Consumer<CompileEvent> sink) {
+    mySink = sink;
+    myStopLoggingFlag = false;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method sends the error message to the job's owner.
+   *
+   * @param l The location where we encountered the error.
+   * @param msg Message to be displayed.
+   */
+  @Override
+  public final void error(Location l, String msg) {
+    sendMessage(CompileEvent.Kind.ERROR, l, msg);
+  }
+
+  /**
+   * Checks to see if we are still logging information.
+   *
+   * @return {@code true} if we are done logging, {@code false} otherwise.
+   */
+  @Override
+  public final boolean hasStopped() {
+    return myStopLoggingFlag;
+  }
+
+  /**
+   * This method sends the information to the job's owner.
+   *
+   * @param l The location where we encountered the error.
+   * @param msg Message to be displayed.
+   */
+  @Override
+  public final void info(Location l, String msg) {
+    sendMessage(CompileEvent.Kind.INFO, l, msg);
+  }
+
+  /**
+   * This method prints the stack trace to the standard error.
+   *
+   * @param e The encountered compiler exception.
+   */
+  @Override
+  public final void printStackTrace(CompilerException e) {
+    e.printStackTrace();
+  }
+
+  /** Stop logging anymore information. */
+  @Override
+  public final void stopLogging() {
+    myStopLoggingFlag = true;
+  }
+
+  /**
+   * This method sends the compiler warning to the job's owner.
+   *
+   * @param l The location where we encountered the error.
+   * @param msg Message to be displayed.
+   */
+  @Override
+  public final void warning(Location l, String msg) {
+    sendMessage(CompileEvent.Kind.WARNING, l, msg);
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that sends a status message to the job's owner.
+   *
+   * @param kind The message's severity.
+   * @param l The message's location (possibly {@code null}).
+   * @param msg Message to be displayed.
+   */
+  private void sendMessage(CompileEvent.Kind kind, Location l, String msg) {
+    if (myStopLoggingFlag) {
+      return;
+    }
+
+    if (l == null) {
+      mySink.accept(CompileEvent.message(kind, msg, null, 0, 0));
+    } else {
+      mySink.accept(CompileEvent.message(kind, msg, l.getFilename(), l.getLine(), l.getColumn()));
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend.worker;
+
+import compiler.impl.WebSocketStatusHandler;
+import edu.clemson.cs.rsrg.init.output.OutputListener;
+import edu.clemson.cs.rsrg.statushandling.StatusHandler;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class forwards the status messages and results sent back by a worker {@code JVM} to the
+ * job's {@link StatusHandler} and {@link OutputListener}, so the client sees exactly the same
+ * frames as when the compiler runs inside the WebAPI's {@code JVM}.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class StatusRelay {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The job's listener for the compilation results. */
+  private final OutputListener myOutputListener;
+
+  /** The job's handler for information, warning and error messages. */
+  private final StatusHandler myStatusHandler;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a relay for a single job.
+   *
+   * @param statusHandler The job's handler for information, warning and error messages.
+   * @param outputListener The job's listener for the compilation results.
+   */
+  public StatusRelay(StatusHandler statusHandler, OutputListener outputListener) {
+    myOutputListener = outputListener;
+    myStatusHandler = statusHandler;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method forwards a status message or a result. Any exception thrown by the handler or the
+   * listener (for example: when the job exceeds its message budget) is passed on to the caller.
+   *
+   * @param event An {@link CompileEvent.Kind#INFO INFO}, {@link CompileEvent.Kind#WARNING WARNING},
+   *     {@link CompileEvent.Kind#ERROR ERROR}, {@link CompileEvent.Kind#OUTPUT OUTPUT} or {@link
+   *     CompileEvent.Kind#VC_GENERATOR_OUTPUT VC_GENERATOR_OUTPUT} event.
+   */
+  public final void relay(CompileEvent event) {
+    switch (event.getKind()) {
+      case INFO:
+        relayMessage("info", event);
+        break;
+      case WARNING:
+        relayMessage("warning", event);
+        break;
+      case ERROR:
+        relayMessage("error", event);
+        break;
+      case OUTPUT:
+        relayOutput(event.getMessage(), event.getArgs());
+        break;
+      case VC_GENERATOR_OUTPUT:
+        // The assertive code blocks stayed behind in the worker
+        List<String> args = event.getArgs();
+        myOutputListener.vcGeneratorResult(
+            args.get(0), args.get(1), Collections.emptyList(), args.get(2));
+        break;
+      default:
+        throw new IllegalArgumentException("Not a status or output event: " + event.getKind());
+    }
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that forwards a status message. Our own {@link WebSocketStatusHandler} can
+   * take the location as is. Any other handler gets the location appended to the message, since
+   * we can't rebuild the compiler's {@code Location} outside of the worker.
+   *
+   * @param status One of {@code "info"}, {@code "warning"} or {@code "error"}.
+   * @param event The status message event.
+   */
+  private void relayMessage(String status, CompileEvent event) {
+    if (myStatusHandler instanceof WebSocketStatusHandler) {
+      ((WebSocketStatusHandler) myStatusHandler)
+          .relay(status, event.getFile(), event.getLine(), event.getColumn(), event.getMessage());
+      return;
+    }
+
+    String msg = event.getMessage();
+    if (event.getFile() != null) {
+      msg += " (" + event.getFile() + ":" + event.getLine() + ":" + event.getColumn() + ")";
+    }
+
+    switch (status) {
+      case "error":
+        myStatusHandler.error(null, msg);
+        break;
+      case "warning":
+        myStatusHandler.warning(null, msg);
+        break;
+      default:
+        myStatusHandler.info(null, msg);
+        break;
+    }
+  }
+
+  /**
+   * An helper method that forwards a compilation result to the matching {@link OutputListener}
+   * method.
+   *
+   * @param method Name of the {@link OutputListener} method that received the result.
+   * @param args The arguments passed to that method.
+   */
+  private void relayOutput(String method, List<String> args) {
+    switch (method) {
+      case "astGraphvizModelResult":
+        myOutputListener.astGraphvizModelResult(args.get(0), args.get(1));
+        break;
+      case "javaTranslationResult":
+        myOutputListener.javaTranslationResult(args.get(0), args.get(1), args.get(2));
+        break;
+      case "proverResult":
+        myOutputListener.proverResult(args.get(0), args.get(1));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown compilation result: " + method);
+    }
+  }
+}
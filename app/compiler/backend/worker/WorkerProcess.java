@@ -0,0 +1,199 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.backend.worker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is the WebAPI's handle on a single compiler worker {@code JVM} running {@link
+ * CompilerWorkerMain}. Requests are written to the worker's standard input, while a dedicated
+ * thread reads the worker's events from its standard output. This lets the thread running a compile
+ * job wait for events in a way that can be interrupted when the job is cancelled.
+ *
+ * <p>If the worker exits on its own (for example: it ran out of memory), a {@link
+ * CompileEvent.Kind#FAILED FAILED} event is queued so the current job doesn't wait forever.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class WorkerProcess {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Flag that indicates the WebAPI asked this worker to stop. */
+  private volatile boolean myDestroyedFlag;
+
+  /** Events sent by the worker that haven't been handled yet. */
+  private final BlockingQueue<CompileEvent> myEvents;
+
+  /** The worker's identifier (used in logs and thread names). */
+  private final int myId;
+
+  /** Number of requests sent to this worker. */
+  private int myJobs;
+
+  /** The worker's standard input. */
+  private final DataOutputStream myOut;
+
+  /** The worker's process. */
+  private final Process myProcess;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a handle for a worker that has just been started.
+   *
+   * @param id The worker's identifier.
+   * @param process The worker's process.
+   */
+  private WorkerProcess(int id, Process process) {
+    myDestroyedFlag = false;
+    myEvents = new LinkedBlockingQueue<>();
+    myId = id;
+    myJobs = 0;
+    myOut = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+    myProcess = process;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /** This method stops the worker. Any job it is running is lost. */
+  public final void destroy() {
+    myDestroyedFlag = true;
+    try {
+      myOut.close();
+    } catch (IOException e) {
+      // The worker is going away anyway.
+    }
+    myProcess.destroyForcibly();
+  }
+
+  /**
+   * This method returns the worker's identifier.
+   *
+   * @return The identifier.
+   */
+  public final int getId() {
+    return myId;
+  }
+
+  /**
+   * This method returns the number of requests sent to this worker.
+   *
+   * @return The number of jobs.
+   */
+  public final int getJobs() {
+    return myJobs;
+  }
+
+  /**
+   * Checks to see if the worker's process is still running.
+   *
+   * @return {@code true} if the worker can accept requests, {@code false} otherwise.
+   */
+  public final boolean isAlive() {
+    return !myDestroyedFlag && myProcess.isAlive();
+  }
+
+  /**
+   * This method sends a request to the worker.
+   *
+   * <p>(Note: A worker runs one request at a time, so this must only be called by the thread that
+   * borrowed the worker.)
+   *
+   * @param request The request to be executed.
+   * @throws IOException If the worker's standard input is closed.
+   */
+  public final void send(CompileRequest request) throws IOException {
+    myJobs++;
+    request.write(myOut);
+  }
+
+  /**
+   * This method starts a new worker.
+   *
+   * @param id The worker's identifier.
+   * @param command The command that starts the worker's {@code JVM}.
+   * @return A handle for the new worker.
+   * @throws IOException If the worker's process couldn't be started.
+   */
+  public static WorkerProcess start(int id, List<String> command) throws IOException {
+    Process process =
+        new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    WorkerProcess worker = new WorkerProcess(id, process);
+
+    Thread reader = new Thread(worker::readEvents, "compile-worker-reader-" + id);
+    reader.setDaemon(true);
+    reader.start();
+
+    return worker;
+  }
+
+  /**
+   * This method waits for the worker's next event.
+   *
+   * @return The event.
+   * @throws InterruptedException If the current thread was interrupted while waiting.
+   */
+  public final CompileEvent takeEvent() throws InterruptedException {
+    return myEvents.take();
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that reads the worker's events until its standard output is closed. If the
+   * WebAPI didn't ask the worker to stop, a {@link CompileEvent.Kind#FAILED FAILED} event is queued
+   * with the worker's exit code.
+   */
+  private void readEvents() {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(myProcess.getInputStream()))) {
+      while (true) {
+        myEvents.add(CompileEvent.read(in));
+      }
+    } catch (IOException e) {
+      // The worker exited (or wrote something we can't read)
+    }
+
+    if (!myDestroyedFlag) {
+      String exitCode = "unknown";
+      try {
+        if (myProcess.waitFor(5, TimeUnit.SECONDS)) {
+          exitCode = String.valueOf(myProcess.exitValue());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      myEvents.add(
+          CompileEvent.failed(
+              "Compiler worker " + myId + " stopped (exit code: " + exitCode + ")"));
+    }
+  }
+}
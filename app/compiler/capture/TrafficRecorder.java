@@ -0,0 +1,335 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.capture;
+
+import akka.stream.javadsl.Flow;
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+import play.libs.Json;
+
+/**
+ * This singleton class records the messages received by the {@code /compiler} {@code WebSocket}
+ * (along with their timing) to an append-only log, so that production traffic can be replayed
+ * using {@code loadtest.TrafficReplay}.
+ *
+ * <p>Recording is opt-in ({@code webapi.capture.enabled}). No client identifying information is
+ * recorded: every connection gets a random session identifier and each message's content is
+ * replaced by its {@code SHA-256} hash and size. The content itself (truncated to {@code
+ * webapi.capture.maxContentSize}) is only stored if {@code webapi.capture.storeContent} is also
+ * set, since it is the students' source code. Messages are reduced to their record on the
+ * receiving thread, so a queued record never holds more than the truncated content. Records are
+ * written by a single background thread and dropped (rather than slowing down the request) if that
+ * thread falls behind.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class TrafficRecorder {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Number of records dropped because the writer fell behind. */
+  private final AtomicLong myDroppedRecords;
+
+  /** Flag that indicates whether or not we are capturing traffic. */
+  private final boolean myEnabledFlag;
+
+  /** Logger for the capture log related items. */
+  private final Logger myLogger;
+
+  /** Maximum number of content characters stored per message. */
+  private final int myMaxContentSize;
+
+  /** Flag that indicates whether or not the (truncated) content of each message is stored. */
+  private final boolean myStoreContentFlag;
+
+  /** The append-only capture log (only accessed by the writer thread). */
+  private BufferedWriter myWriter;
+
+  /** The single thread that appends records to the log. */
+  private final ThreadPoolExecutor myWriterExecutor;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a traffic recorder using the {@code webapi.capture} settings.
+   *
+   * @param config The configuration manager.
+   * @param lifecycle The application's lifecycle, used to close the log on shutdown.
+   */
+  @Inject
+  public TrafficRecorder(Config config, ApplicationLifecycle lifecycle) {
+    Config captureConfig = config.getConfig("webapi.capture");
+    myDroppedRecords = new AtomicLong();
+    myEnabledFlag = captureConfig.getBoolean("enabled");
+    myLogger = LoggerFactory.getLogger(TrafficRecorder.class);
+    myMaxContentSize = (int) Math.min(Integer.MAX_VALUE, captureConfig.getBytes("maxContentSize"));
+    myStoreContentFlag = captureConfig.getBoolean("storeContent");
+    myWriterExecutor =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(captureConfig.getInt("queueSize")),
+            r -> {
+              Thread thread = new Thread(r, "traffic-recorder");
+              thread.setDaemon(true);
+              return thread;
+            },
+            (r, executor) -> myDroppedRecords.incrementAndGet());
+
+    if (myEnabledFlag) {
+      Path logFile = Paths.get(captureConfig.getString("file"));
+      myWriterExecutor.execute(() -> openLog(logFile));
+      myLogger.info("Capturing compiler traffic to: {}", logFile.toAbsolutePath());
+    }
+
+    lifecycle.addStopHook(
+        () -> {
+          myWriterExecutor.execute(this::closeLog);
+          myWriterExecutor.shutdown();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns a flow that records every incoming message before handing it to {@code
+   * flow}. If capturing is disabled, {@code flow} is returned as is. Since binary frames can't be
+   * replayed, only their size is recorded.
+   *
+   * @param job Name of the job to be executed.
+   * @param project RESOLVE project folder to be used.
+   * @param flow The flow that handles the {@code WebSocket} messages.
+   * @return A flow that records and then handles the {@code WebSocket} messages.
+   */
+  public final Flow<Object, JsonNode, ?> capture(
+      String job, String project, Flow<Object, JsonNode, ?> flow) {
+    if (!myEnabledFlag) {
+      return flow;
+    }
+
+    String session = UUID.randomUUID().toString();
+    long sessionStart = System.nanoTime();
+    append(newRecord(session, sessionStart, "open", job, project));
+
+    return Flow.<Object>create()
+        .map(
+            message -> {
+              if (message instanceof JsonNode) {
+                ObjectNode record = newRecord(session, sessionStart, "message", job, project);
+                record.set("message", anonymize((JsonNode) message));
+                append(record);
+              } else if (message instanceof ByteString) {
+                ObjectNode record = newRecord(session, sessionStart, "binary", job, project);
+                record.put("size", ((ByteString) message).size());
+                append(record);
+              }
+
+              return message;
+            })
+        .via(flow);
+  }
+
+  /**
+   * This method returns the number of records that were dropped because the writer fell behind.
+   *
+   * @return The number of dropped records.
+   */
+  public final long getDroppedRecords() {
+    return myDroppedRecords.get();
+  }
+
+  /**
+   * Checks to see if we are capturing traffic.
+   *
+   * @return {@code true} if capturing is enabled, {@code false} otherwise.
+   */
+  public final boolean isEnabled() {
+    return myEnabledFlag;
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that only keeps the message fields we know about and replaces the content
+   * with its hash, size and (if we store content) a possibly truncated copy.
+   *
+   * @param message A message received by the {@code WebSocket}.
+   * @return The anonymized message.
+   */
+  private ObjectNode anonymize(JsonNode message) {
+    ObjectNode captured = Json.newObject();
+    for (String field : new String[] {"name", "type", "project"}) {
+      if (message.hasNonNull(field)) {
+        captured.put(field, message.get(field).asText());
+      }
+    }
+
+    if (message.hasNonNull("content")) {
+      String content = message.get("content").asText();
+      int storedLength = myStoreContentFlag ? Math.min(content.length(), myMaxContentSize) : 0;
+      captured.put("size", content.length());
+      captured.put("sha256", sha256(content));
+      captured.put("truncated", content.length() > storedLength);
+      if (myStoreContentFlag) {
+        captured.put("content", content.substring(0, storedLength));
+      }
+    }
+
+    return captured;
+  }
+
+  /**
+   * An helper method that queues a record to be written by the writer thread.
+   *
+   * @param record The record to be written.
+   */
+  private void append(ObjectNode record) {
+    myWriterExecutor.execute(() -> write(record));
+  }
+
+  /** An helper method that closes the capture log. */
+  private void closeLog() {
+    if (myWriter != null) {
+      try {
+        myWriter.close();
+      } catch (IOException e) {
+        myLogger.error("Unable to close the capture log: ", e);
+      }
+      myWriter = null;
+    }
+
+    if (myDroppedRecords.get() > 0) {
+      myLogger.warn("Dropped {} capture records.", myDroppedRecords.get());
+    }
+  }
+
+  /**
+   * An helper method that creates a new record with the common fields.
+   *
+   * @param session The random session identifier.
+   * @param sessionStart Time (in nanoseconds) when the session started.
+   * @param event The kind of event being recorded.
+   * @param job Name of the job to be executed.
+   * @param project RESOLVE project folder to be used.
+   * @return A new record.
+   */
+  private ObjectNode newRecord(
+      String session, long sessionStart, String event, String job, String project) {
+    ObjectNode record = Json.newObject();
+    record.put("session", session);
+    record.put("event", event);
+    record.put("timestamp", System.currentTimeMillis());
+    record.put("offsetMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sessionStart));
+    record.put("job", job);
+    record.put("project", project);
+
+    return record;
+  }
+
+  /**
+   * An helper method that opens (or creates) the capture log in append mode.
+   *
+   * @param logFile Path to the capture log.
+   */
+  private void openLog(Path logFile) {
+    try {
+      if (logFile.toAbsolutePath().getParent() != null) {
+        Files.createDirectories(logFile.toAbsolutePath().getParent());
+      }
+
+      myWriter =
+          Files.newBufferedWriter(
+              logFile,
+              StandardCharsets.UTF_8,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      myLogger.error("Unable to open the capture log: ", e);
+    }
+  }
+
+  /**
+   * An helper method that computes the {@code SHA-256} hash of a string.
+   *
+   * @param content A string.
+   * @return The hash as a hexadecimal string.
+   */
+  private static String sha256(String content) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      StringBuilder sb = new StringBuilder();
+      for (byte b : digest.digest(content.getBytes(StandardCharsets.UTF_8))) {
+        sb.append(String.format("%02x", b));
+      }
+
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * An helper method that writes a record to the log. This method is only executed by the writer
+   * thread.
+   *
+   * @param record The record to be written.
+   */
+  private void write(ObjectNode record) {
+    if (myWriter == null) {
+      return;
+    }
+
+    try {
+      myWriter.write(record.toString());
+      myWriter.newLine();
+      myWriter.flush();
+    } catch (IOException e) {
+      myLogger.error("Unable to write to the capture log: ", e);
+    }
+  }
+}
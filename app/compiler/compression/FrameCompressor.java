@@ -0,0 +1,223 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.compression;
+
+import akka.stream.javadsl.Flow;
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.typesafe.config.Config;
+import compiler.metrics.MetricsRegistry;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.http.websocket.Message;
+import play.inject.ApplicationLifecycle;
+import play.libs.Json;
+
+/**
+ * This singleton class turns the frames sent by the {@code /compiler} {@code WebSocket} into
+ * {@code WebSocket} messages. Clients that ask for it get every frame whose {@code JSON} is at
+ * least {@code webapi.compiler.compression.threshold} bytes long as a binary message holding the
+ * {@code zlib} (deflate) compressed {@code JSON}. Every other frame (and any frame that doesn't get
+ * any smaller) is sent as a text message, so small status frames don't cost any extra CPU time.
+ *
+ * <p>Each frame is compressed on its own, so a browser can inflate it using a new {@code
+ * DecompressionStream("deflate")}. The number of compressed frames, their size before and after
+ * compression and the CPU time spent compressing them are reported to the {@link MetricsRegistry}.
+ *
+ * <p>A {@link Deflater} holds native memory that is only released by {@link Deflater#end()}, so
+ * idle compressors are kept in a pool with one compressor per processor. A frame that finds the
+ * pool empty uses a compressor of its own, which is released if the pool is full when it is done.
+ * The pooled compressors are released when the application stops.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class FrameCompressor {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The compressed size (in bytes) of the frames that have been compressed. */
+  private final LongAdder myCompressedBytes;
+
+  /** The number of frames that have been compressed. */
+  private final LongAdder myCompressedFrames;
+
+  /** The CPU time (in nanoseconds) spent compressing frames. */
+  private final LongAdder myCpuTime;
+
+  /** The idle compressors (they are reset before they are returned to the pool). */
+  private final BlockingQueue<Deflater> myDeflaters;
+
+  /** Flag that indicates whether or not clients may ask for compressed frames. */
+  private final boolean myEnabledFlag;
+
+  /** The compression level used by our compressors. */
+  private final int myLevel;
+
+  /** This measures the CPU time of the current thread (if it is supported). */
+  private final ThreadMXBean myThreadBean;
+
+  /** Frames shorter than this (in bytes) are never compressed. */
+  private final long myThreshold;
+
+  /** The original size (in bytes) of the frames that have been compressed. */
+  private final LongAdder myUncompressedBytes;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a frame compressor using the {@code webapi.compiler.compression} settings.
+   *
+   * @param config The configuration manager.
+   * @param lifecycle The application's lifecycle, used to release our compressors on shutdown.
+   * @param metricsRegistry The registry our metrics are reported to.
+   */
+  @Inject
+  public FrameCompressor(
+      Config config, ApplicationLifecycle lifecycle, MetricsRegistry metricsRegistry) {
+    Config compressionConfig = config.getConfig("webapi.compiler.compression");
+    myCompressedBytes = metricsRegistry.counter("compression.compressedBytes");
+    myCompressedFrames = metricsRegistry.counter("compression.frames");
+    myCpuTime = metricsRegistry.counter("compression.cpuTimeNanos");
+    myDeflaters = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+    myEnabledFlag = compressionConfig.getBoolean("enabled");
+    myLevel = compressionConfig.getInt("level");
+    myThreshold = Math.max(1, compressionConfig.getBytes("threshold"));
+    myUncompressedBytes = metricsRegistry.counter("compression.uncompressedBytes");
+
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    myThreadBean = threadBean.isCurrentThreadCpuTimeSupported() ? threadBean : null;
+
+    metricsRegistry.gauge("compression.ratio", this::getRatio);
+    lifecycle.addStopHook(
+        () -> {
+          Deflater deflater = myDeflaters.poll();
+          while (deflater != null) {
+            deflater.end();
+            deflater = myDeflaters.poll();
+          }
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method creates a flow that turns each frame sent by the specified flow into a {@code
+   * WebSocket} message.
+   *
+   * @param flow A flow of frames (for example: the frames sent by a compiler actor).
+   * @param compressFlag {@code true} if the client asked for compressed frames, {@code false}
+   *     otherwise.
+   * @param <In> The type of the messages received by the flow.
+   * @return A flow of {@code WebSocket} messages.
+   */
+  public final <In> Flow<In, Message, ?> compress(
+      Flow<In, JsonNode, ?> flow, boolean compressFlag) {
+    boolean compressed = myEnabledFlag && compressFlag;
+
+    return flow.map(frame -> compressed ? encode(frame) : new Message.Text(Json.stringify(frame)));
+  }
+
+  /**
+   * This method returns the average compression ratio of the frames that have been compressed.
+   *
+   * @return Their original size divided by their compressed size ({@code 0} if no frames have been
+   *     compressed).
+   */
+  public final double getRatio() {
+    long compressedBytes = myCompressedBytes.sum();
+    if (compressedBytes == 0) {
+      return 0;
+    }
+
+    return (double) myUncompressedBytes.sum() / compressedBytes;
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that returns the current thread's CPU time.
+   *
+   * @return The CPU time in nanoseconds (or the wall clock time if it isn't supported).
+   */
+  private long cpuTime() {
+    return myThreadBean != null ? myThreadBean.getCurrentThreadCpuTime() : System.nanoTime();
+  }
+
+  /**
+   * An helper method that compresses a frame if it is large enough.
+   *
+   * @param frame A frame to be sent.
+   * @return A binary message holding the compressed frame or a text message holding the frame
+   *     itself.
+   */
+  private Message encode(JsonNode frame) {
+    String json = Json.stringify(frame);
+    if (json.length() < myThreshold / 3) {
+      // It can't be long enough, even if every character needs 3 bytes
+      return new Message.Text(json);
+    }
+
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length < myThreshold) {
+      return new Message.Text(json);
+    }
+
+    // Frames that don't get any smaller are sent as they are
+    long start = cpuTime();
+    Deflater deflater = myDeflaters.poll();
+    if (deflater == null) {
+      deflater = new Deflater(myLevel);
+    }
+    deflater.setInput(bytes);
+    deflater.finish();
+    byte[] compressed = new byte[bytes.length];
+    int length = 0;
+    while (!deflater.finished() && length < compressed.length) {
+      length += deflater.deflate(compressed, length, compressed.length - length);
+    }
+    boolean finished = deflater.finished();
+    deflater.reset();
+    if (!myDeflaters.offer(deflater)) {
+      deflater.end();
+    }
+    myCpuTime.add(cpuTime() - start);
+
+    if (!finished) {
+      return new Message.Text(json);
+    }
+
+    myCompressedBytes.add(length);
+    myCompressedFrames.increment();
+    myUncompressedBytes.add(bytes.length);
+
+    return new Message.Binary(ByteString.fromArrayUnsafe(compressed, 0, length));
+  }
+}
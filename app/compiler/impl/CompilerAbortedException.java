@@ -0,0 +1,35 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.impl;
+
+/**
+ * This exception is thrown by the {@link WebSocketStatusHandler} to stop the compiler once a job
+ * has exceeded its error (or message) budget.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class CompilerAbortedException extends RuntimeException {
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an exception with the specified message.
+   *
+   * @param message Message to be displayed.
+   */
+  public CompilerAbortedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.impl;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import play.libs.Json;
+
+/**
+ * This class remembers the errors and warnings reported the last time a file was analyzed, so that
+ * successive analyses (for example: while the file is being edited) only need to send the
+ * diagnostics that were added or removed. Two diagnostics are the same if they have the same
+ * severity, message and location (file, line and column).
+ *
+ * <p>Every update bumps the generation number, which lets the client check that it didn't miss one
+ * of them.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class DiagnosticDiff {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The diagnostics that were reported the last time, keyed by their JSON representation. */
+  private Map<String, ObjectNode> myDiagnostics;
+
+  /** Number of updates so far. */
+  private int myGeneration;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /** This creates an empty diagnostic set. */
+  public DiagnosticDiff() {
+    myDiagnostics = new LinkedHashMap<>();
+    myGeneration = 0;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method replaces the remembered diagnostics with the ones reported by the latest analysis
+   * and returns the differences as a JSON object.
+   *
+   * @param diagnostics The diagnostics reported by the latest analysis.
+   * @return A JSON object with the new generation number and the {@code added} and {@code removed}
+   *     diagnostics.
+   */
+  public final synchronized ObjectNode update(Collection<ObjectNode> diagnostics) {
+    Map<String, ObjectNode> current = new LinkedHashMap<>();
+    for (ObjectNode diagnostic : diagnostics) {
+      current.put(diagnostic.toString(), diagnostic);
+    }
+
+    ObjectNode result = Json.newObject();
+    result.put("status", "diagnostics");
+    result.put("generation", ++myGeneration);
+
+    ArrayNode added = result.putArray("added");
+    for (Map.Entry<String, ObjectNode> entry : current.entrySet()) {
+      if (!myDiagnostics.containsKey(entry.getKey())) {
+        added.add(entry.getValue());
+      }
+    }
+
+    ArrayNode removed = result.putArray("removed");
+    for (Map.Entry<String, ObjectNode> entry : myDiagnostics.entrySet()) {
+      if (!current.containsKey(entry.getKey())) {
+        removed.add(entry.getValue());
+      }
+    }
+    myDiagnostics = current;
+
+    return result;
+  }
+}
@@ -11,22 +11,32 @@
  */
 package compiler.impl;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import compiler.output.OutputSpillStore;
+import compiler.output.SpilledOutput;
 import edu.clemson.cs.r2jt.rewriteprover.Metrics;
 import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel;
 import edu.clemson.cs.rsrg.astoutput.GenerateGraphvizModel;
 import edu.clemson.cs.rsrg.init.file.ResolveFile;
 import edu.clemson.cs.rsrg.init.output.OutputListener;
-import edu.clemson.cs.rsrg.statushandling.StatusHandler;
 import edu.clemson.cs.rsrg.vcgeneration.VCGenerator;
 import edu.clemson.cs.rsrg.vcgeneration.utilities.AssertiveCodeBlock;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.libs.Json;
 
 /**
  * A listener that contains methods for retrieving compilation results from the compiler and outputs
  * as messages to the client.
  *
+ * <p>Each result is sent as an {@code "output"} frame. Results that are too large to be sent
+ * through the WebSocket are written to a file by the {@link OutputSpillStore} instead and the frame
+ * only holds a link that the client can use to download them before they expire.
+ *
  * @author Yu-Shan Sun
  * @version 1.0
  */
@@ -36,8 +46,17 @@ public class WebOutputListener implements OutputListener {
   // Member Fields
   // ===========================================================
 
+  /** The path that the spilled outputs can be downloaded from (see {@code conf/routes}). */
+  private static final String OUTPUTS_PATH = "/compiler/outputs/";
+
+  /** Logger for the compilation results that couldn't be sent. */
+  private final Logger myLogger;
+
+  /** This keeps the results that are too large to be sent through the WebSocket. */
+  private final OutputSpillStore mySpillStore;
+
   /** This is the status handler for the RESOLVE compiler. */
-  private final StatusHandler myStatusHandler;
+  private final WebSocketStatusHandler myStatusHandler;
 
   // ===========================================================
   // Constructors
@@ -47,8 +66,11 @@ public class WebOutputListener implements OutputListener {
    * This constructs a output listener for the WebAPI.
    *
    * @param handler The status handler for the RESOLVE compiler.
+   * @param spillStore This keeps the results that are too large to be sent through the WebSocket.
    */
-  public WebOutputListener(StatusHandler handler) {
+  public WebOutputListener(WebSocketStatusHandler handler, OutputSpillStore spillStore) {
+    myLogger = LoggerFactory.getLogger(WebOutputListener.class);
+    mySpillStore = spillStore;
     myStatusHandler = handler;
   }
 
@@ -65,7 +87,7 @@ public class WebOutputListener implements OutputListener {
    */
   @Override
   public final void astGraphvizModelResult(String outputFileName, String graphvizModel) {
-    throw new UnsupportedOperationException("Needs to be implemented!");
+    sendOutput("astGraphvizModel", null, outputFileName, graphvizModel);
   }
 
   /**
@@ -79,7 +101,7 @@ public class WebOutputListener implements OutputListener {
   @Override
   public final void javaTranslationResult(
       String inputFileName, String outputFileName, String javaTranslation) {
-    throw new UnsupportedOperationException("Needs to be implemented!");
+    sendOutput("javaTranslation", inputFileName, outputFileName, javaTranslation);
   }
 
   /**
@@ -95,7 +117,7 @@ public class WebOutputListener implements OutputListener {
 
   /**
    * This method outputs the provided {@link AssertiveCodeBlock AssertiveCodeBlocks} and/or raw
-   * output result from the {@link VCGenerator}.
+   * output result from the {@link VCGenerator}. Only the verbose output is sent to the client.
    *
    * @param inputFileName Name of the {@link ResolveFile} we are generating VCs for.
    * @param outputFileName A name for the output file.
@@ -108,7 +130,9 @@ public class WebOutputListener implements OutputListener {
       String outputFileName,
       List<AssertiveCodeBlock> blocks,
       String verboseOutput) {
-    throw new UnsupportedOperationException("Needs to be implemented!");
+    if (verboseOutput != null) {
+      sendOutput("vcGeneratorOutput", inputFileName, outputFileName, verboseOutput);
+    }
   }
 
   /**
@@ -148,4 +172,50 @@ public class WebOutputListener implements OutputListener {
 
     return encoded;
   }
+
+  /**
+   * An helper method that sends a compilation result to the client. The result is spilled to a
+   * file if it is too large to be sent through the WebSocket. If that fails, the client gets an
+   * error instead, since the result is still too large to be sent.
+   *
+   * @param kind The kind of result.
+   * @param inputFileName Name of the {@link ResolveFile} the result belongs to ({@code null} if
+   *     there isn't one).
+   * @param outputFileName A name for the output file.
+   * @param content The result generated by the {@code RESOLVE} compiler.
+   */
+  private void sendOutput(
+      String kind, String inputFileName, String outputFileName, String content) {
+    ObjectNode result = Json.newObject();
+    result.put("status", "output");
+    result.put("kind", kind);
+    if (inputFileName != null) {
+      result.put("inputFile", inputFileName);
+    }
+    result.put("outputFile", outputFileName);
+
+    if (mySpillStore.shouldSpill(content)) {
+      try {
+        SpilledOutput output = mySpillStore.spill(outputFileName, content);
+        result.put("spilled", true);
+        result.put("size", output.getSize());
+        result.put("url", OUTPUTS_PATH + output.getId());
+        result.put("expiresIn", mySpillStore.getTtlSeconds());
+        myStatusHandler.output(result);
+        return;
+      } catch (IOException e) {
+        myLogger.warn("Unable to spill the compilation result: {}", outputFileName, e);
+        myStatusHandler.error(
+            null,
+            "The result for "
+                + outputFileName
+                + " is too large to be sent and couldn't be saved. "
+                + "Please contact the administrators for support!");
+        return;
+      }
+    }
+
+    result.put("content", encode(content));
+    myStatusHandler.output(result);
+  }
 }
@@ -16,6 +16,10 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import edu.clemson.cs.rsrg.parsing.data.Location;
 import edu.clemson.cs.rsrg.statushandling.StatusHandler;
 import edu.clemson.cs.rsrg.statushandling.exception.CompilerException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.json.JSONObject;
 import play.libs.Json;
 
@@ -23,6 +27,15 @@ import play.libs.Json;
  * This class outputs all debugging, errors and/or other information coming from the compiler to a
  * WebSocket.
  *
+ * <p>Each job has an error budget and a total message budget. Once either one is exceeded, a single
+ * summary frame is sent, no further messages are forwarded and a {@link CompilerAbortedException}
+ * is thrown to stop the compiler. All counters are thread-safe, since the compiler doesn't run on
+ * the actor's thread.
+ *
+ * <p>When a {@link DiagnosticDiff} is given, errors and warnings aren't sent as they arrive.
+ * Instead, they are collected and {@link #diffDiagnostics()} returns the ones that changed since
+ * the last analysis of the same file.
+ *
  * @author Yu-Shan Sun
  * @version 1.0
  */
@@ -32,14 +45,35 @@ public class WebSocketStatusHandler implements StatusHandler {
   // Member Fields
   // ===========================================================
 
+  /** Boolean flag to check to see if we have aborted the compilation. */
+  private final AtomicBoolean myAbortedFlag;
+
   /** This is the {@link ActorRef} associated with one of our compiler actors. */
   private final ActorRef myActorRef;
 
-  /** Boolean flag to check to see if we encountered an error. */
-  private boolean myErrorFlag;
+  /** The diagnostics reported by previous analyses ({@code null} if they are sent right away). */
+  private final DiagnosticDiff myDiagnosticDiff;
+
+  /** The errors and warnings collected for {@code myDiagnosticDiff}. */
+  private final Queue<ObjectNode> myDiagnostics;
+
+  /** Number of error messages received from the compiler. */
+  private final AtomicInteger myErrorCount;
+
+  /** Number of information messages received from the compiler. */
+  private final AtomicInteger myInfoCount;
+
+  /** Maximum number of error messages before we abort ({@code 0} means no limit). */
+  private final int myMaxErrors;
+
+  /** Maximum number of messages (of any kind) before we abort ({@code 0} means no limit). */
+  private final int myMaxMessages;
 
   /** Boolean flag to check to see if we are still logging. */
-  private boolean myStopLoggingFlag;
+  private volatile boolean myStopLoggingFlag;
+
+  /** Number of warning messages received from the compiler. */
+  private final AtomicInteger myWarningCount;
 
   /** This is the outgoing end of the stream. */
   private final ActorRef myWebSocketOut;
@@ -54,11 +88,27 @@ public class WebSocketStatusHandler implements StatusHandler {
    *
    * @param actorRef An {@link ActorRef} associated with an actor.
    * @param outRef The outgoing end of the stream.
+   * @param maxErrors Maximum number of error messages before we abort ({@code 0} means no limit).
+   * @param maxMessages Maximum number of messages before we abort ({@code 0} means no limit).
+   * @param diagnosticDiff The diagnostics reported by previous analyses of the same file, or {@code
+   *     null} to send the errors and warnings as they arrive.
    */
-  public WebSocketStatusHandler(ActorRef actorRef, ActorRef outRef) {
+  public WebSocketStatusHandler(
+      ActorRef actorRef,
+      ActorRef outRef,
+      int maxErrors,
+      int maxMessages,
+      DiagnosticDiff diagnosticDiff) {
+    myAbortedFlag = new AtomicBoolean(false);
     myActorRef = actorRef;
-    myErrorFlag = false;
+    myDiagnosticDiff = diagnosticDiff;
+    myDiagnostics = new ConcurrentLinkedQueue<>();
+    myErrorCount = new AtomicInteger();
+    myInfoCount = new AtomicInteger();
+    myMaxErrors = maxErrors;
+    myMaxMessages = maxMessages;
     myStopLoggingFlag = false;
+    myWarningCount = new AtomicInteger();
     myWebSocketOut = outRef;
   }
 
@@ -66,6 +116,23 @@ public class WebSocketStatusHandler implements StatusHandler {
   // Public Methods
   // ===========================================================
 
+  /**
+   * This method returns the errors and warnings that were added or removed since the last analysis
+   * of the same file and remembers this analysis's diagnostics for the next one.
+   *
+   * <p>(Note: Should only be called once the compile process is over.)
+   *
+   * @return A JSON object with the changes (see {@link DiagnosticDiff}) or {@code null} if the
+   *     diagnostics have already been sent as they arrived.
+   */
+  public final ObjectNode diffDiagnostics() {
+    if (myDiagnosticDiff == null) {
+      return null;
+    }
+
+    return myDiagnosticDiff.update(myDiagnostics);
+  }
+
   /**
    * This method displays the error message passed in.
    *
@@ -74,21 +141,7 @@ public class WebSocketStatusHandler implements StatusHandler {
    */
   @Override
   public final void error(Location l, String msg) {
-    myErrorFlag = true;
-
-    // Create a JSON Object that contains the info to
-    // be sent to the user.
-    ObjectNode info = Json.newObject();
-    info.put("status", "error");
-    info.put("msg", msg);
-
-    // Add the location detail if needed.
-    if (l != null) {
-      info.set("msgLocation", locationAsJSON(l));
-    }
-
-    // Send the message through the WebSocket
-    myWebSocketOut.tell(info, myActorRef);
+    send(myErrorCount, "error", l == null ? null : locationAsJSON(l), msg);
   }
 
   /**
@@ -97,7 +150,16 @@ public class WebSocketStatusHandler implements StatusHandler {
    * @return {@code true} if there is an error, {@code false} otherwise.
    */
   public final boolean hasError() {
-    return myErrorFlag;
+    return myErrorCount.get() > 0;
+  }
+
+  /**
+   * Checks to see if we have aborted the compilation because the job exceeded its budget.
+   *
+   * @return {@code true} if we have aborted, {@code false} otherwise.
+   */
+  public final boolean hasAborted() {
+    return myAbortedFlag.get();
   }
 
   /**
@@ -118,19 +180,22 @@ public class WebSocketStatusHandler implements StatusHandler {
    */
   @Override
   public final void info(Location l, String msg) {
-    // Create a JSON Object that contains the info to
-    // be sent to the user.
-    ObjectNode info = Json.newObject();
-    info.put("status", "info");
-    info.put("msg", msg);
+    send(myInfoCount, "info", l == null ? null : locationAsJSON(l), msg);
+  }
 
-    // Add the location detail if needed.
-    if (l != null) {
-      info.set("msgLocation", locationAsJSON(l));
+  /**
+   * This method sends a compilation result (see {@link WebOutputListener}) through the WebSocket.
+   * Results don't count towards this job's budget, but they are dropped once logging has stopped or
+   * the job has been aborted.
+   *
+   * @param result A JSON object that describes the result.
+   */
+  public final void output(ObjectNode result) {
+    if (myStopLoggingFlag || myAbortedFlag.get()) {
+      return;
     }
 
-    // Send the message through the WebSocket
-    myWebSocketOut.tell(info, myActorRef);
+    myWebSocketOut.tell(result, myActorRef);
   }
 
   /**
@@ -141,6 +206,34 @@ public class WebSocketStatusHandler implements StatusHandler {
   @Override
   public final void printStackTrace(CompilerException e) {}
 
+  /**
+   * This method displays a message that was reported somewhere else (for example: by a compiler
+   * running in a worker {@code JVM}), where the location isn't available as a {@link Location}.
+   * The message counts towards this job's budget just like any other message.
+   *
+   * @param status One of {@code "info"}, {@code "warning"} or {@code "error"}.
+   * @param file File of the message's location ({@code null} if there isn't one).
+   * @param line Line of the message's location.
+   * @param column Column of the message's location.
+   * @param msg Message to be displayed.
+   */
+  public final void relay(String status, String file, int line, int column, String msg) {
+    AtomicInteger counter;
+    switch (status) {
+      case "error":
+        counter = myErrorCount;
+        break;
+      case "warning":
+        counter = myWarningCount;
+        break;
+      default:
+        counter = myInfoCount;
+        break;
+    }
+
+    send(counter, status, file == null ? null : locationAsJSON(file, line, column), msg);
+  }
+
   /**
    * Stop logging anymore information.
    *
@@ -160,19 +253,7 @@ public class WebSocketStatusHandler implements StatusHandler {
    */
   @Override
   public final void warning(Location l, String msg) {
-    // Create a JSON Object that contains the info to
-    // be sent to the user.
-    ObjectNode info = Json.newObject();
-    info.put("status", "warning");
-    info.put("msg", msg);
-
-    // Add the location detail if needed.
-    if (l != null) {
-      info.set("msgLocation", locationAsJSON(l));
-    }
-
-    // Send the message through the WebSocket
-    myWebSocketOut.tell(info, myActorRef);
+    send(myWarningCount, "warning", l == null ? null : locationAsJSON(l), msg);
   }
 
   // ===========================================================
@@ -186,11 +267,106 @@ public class WebSocketStatusHandler implements StatusHandler {
    * @return A {@link JSONObject} containing the location details.
    */
   private ObjectNode locationAsJSON(Location l) {
+    return locationAsJSON(l.getFilename(), l.getLine(), l.getColumn());
+  }
+
+  /**
+   * An helper method that transforms a location into a JSON object.
+   *
+   * @param file The location's file.
+   * @param line The location's line.
+   * @param column The location's column.
+   * @return A {@link JSONObject} containing the location details.
+   */
+  private ObjectNode locationAsJSON(String file, int line, int column) {
     ObjectNode location = Json.newObject();
-    location.put("file", l.getFilename());
-    location.put("line", l.getLine());
-    location.put("column", l.getColumn());
+    location.put("file", file);
+    location.put("line", line);
+    location.put("column", column);
 
     return location;
   }
+
+  /**
+   * An helper method that sends a message through the WebSocket if it fits in this job's budget.
+   *
+   * @param counter The counter for the message's severity.
+   * @param status The message's severity.
+   * @param location The message's location ({@code null} if there isn't one).
+   * @param msg Message to be displayed.
+   */
+  private void send(AtomicInteger counter, String status, ObjectNode location, String msg) {
+    if (!withinBudget(counter)) {
+      return;
+    }
+
+    // Create a JSON Object that contains the info to
+    // be sent to the user.
+    ObjectNode info = Json.newObject();
+    info.put("status", status);
+    info.put("msg", msg);
+
+    // Add the location detail if needed.
+    if (location != null) {
+      info.set("msgLocation", location);
+    }
+
+    // Errors and warnings are only sent once we know which of them changed
+    if (myDiagnosticDiff != null && !status.equals("info")) {
+      myDiagnostics.add(info);
+      return;
+    }
+
+    // Send the message through the WebSocket
+    myWebSocketOut.tell(info, myActorRef);
+  }
+
+  /**
+   * An helper method that counts a new message and checks to see if it fits in this job's budget.
+   * The first message that doesn't fit triggers the summary frame and aborts the compiler.
+   *
+   * @param counter The counter for the message's severity.
+   * @return {@code true} if the message should be sent, {@code false} if it should be dropped.
+   * @throws CompilerAbortedException If this message exceeded the budget.
+   */
+  private boolean withinBudget(AtomicInteger counter) {
+    if (myStopLoggingFlag || myAbortedFlag.get()) {
+      return false;
+    }
+
+    counter.incrementAndGet();
+    int errors = myErrorCount.get();
+    int messages = errors + myInfoCount.get() + myWarningCount.get();
+    boolean tooManyErrors = myMaxErrors > 0 && errors > myMaxErrors;
+    boolean tooManyMessages = myMaxMessages > 0 && messages > myMaxMessages;
+    if (!tooManyErrors && !tooManyMessages) {
+      return true;
+    }
+
+    // Only the first thread to exceed the budget sends the summary
+    String reason =
+        tooManyErrors
+            ? "more than " + myMaxErrors + " errors"
+            : "more than " + myMaxMessages + " messages";
+    if (myAbortedFlag.compareAndSet(false, true)) {
+      // Create a JSON Object that summarizes what we have seen so far.
+      ObjectNode counts = Json.newObject();
+      counts.put("error", errors);
+      counts.put("warning", myWarningCount.get());
+      counts.put("info", myInfoCount.get());
+
+      ObjectNode summary = Json.newObject();
+      summary.put("status", "error");
+      summary.put(
+          "msg", "Compilation aborted after " + reason + ". Please fix the reported errors!");
+      summary.put("aborted", true);
+      summary.set("counts", counts);
+
+      // Send the message through the WebSocket
+      myWebSocketOut.tell(summary, myActorRef);
+      stopLogging();
+    }
+
+    throw new CompilerAbortedException("Compilation aborted after " + reason);
+  }
 }
@@ -0,0 +1,103 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.inputmessage;
+
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import play.libs.Json;
+
+/**
+ * This class decodes a {@link CompilerMessage} that was sent as a single binary {@code WebSocket}
+ * frame. Such a frame starts with the length of its header (an unsigned, big-endian 16-bit
+ * integer), followed by the header and the file's {@code UTF-8} encoded contents:
+ *
+ * <pre>
+ * +-----------------+-------------------------------------+-------------------------+
+ * | header length   | header (UTF-8 JSON)                 | contents (UTF-8)        |
+ * | 2 bytes         | {"name": ..., "type": ..., ...}     | rest of the frame       |
+ * +-----------------+-------------------------------------+-------------------------+
+ * </pre>
+ *
+ * <p>The header has the same fields as a text message, except for {@code content} and {@code more}
+ * (a binary frame always carries the whole file). Since the contents are neither JSON-escaped nor
+ * URL-encoded, they are decoded straight from the frame's buffers into a {@link ContentBuffer}
+ * without creating any intermediate {@link String Strings}.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class BinaryMessageDecoder {
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /** This class only contains static methods. */
+  private BinaryMessageDecoder() {}
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method decodes a binary frame into a {@link CompilerMessage} whose contents are stored in
+   * its {@code contentBuffer}.
+   *
+   * @param frame The frame's payload.
+   * @param maxContentSize Maximum number of characters the contents may have.
+   * @return The decoded message.
+   * @throws IllegalArgumentException If the frame is malformed or its contents are too long.
+   */
+  public static CompilerMessage decode(ByteString frame, long maxContentSize) {
+    if (frame.size() < 2) {
+      throw new IllegalArgumentException("A binary frame must start with its header's length!");
+    }
+
+    int headerLength = ((frame.apply(0) & 0xff) << 8) | (frame.apply(1) & 0xff);
+    if (frame.size() < 2 + headerLength) {
+      throw new IllegalArgumentException("The binary frame is shorter than its header!");
+    }
+
+    // The header is tiny, so it is fine to copy it
+    JsonNode header;
+    try {
+      header = Json.mapper().readTree(frame.slice(2, 2 + headerLength).toArray());
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to parse the binary frame's header!");
+    }
+
+    // A binary frame always carries the whole file
+    if (header == null || !header.isObject() || header.has("content") || header.has("more")) {
+      throw new IllegalArgumentException(
+          "A binary frame's header must be a JSON object without any content or pieces!");
+    }
+
+    CompilerMessage compilerMessage;
+    try {
+      compilerMessage = Json.fromJson(header, CompilerMessage.class);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Unable to parse the binary frame's header!");
+    }
+
+    // The number of bytes is an upper bound on the number of characters
+    ByteString content = frame.drop(2 + headerLength);
+    compilerMessage.contentBuffer =
+        new ContentBuffer(Math.min(content.size(), maxContentSize), maxContentSize);
+    for (ByteBuffer buffer : content.getByteBuffers()) {
+      compilerMessage.contentBuffer.appendUtf8(buffer);
+    }
+
+    return compilerMessage;
+  }
+}
@@ -11,12 +11,26 @@
  */
 package compiler.inputmessage;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import edu.clemson.cs.rsrg.init.file.ResolveFile;
+import java.util.List;
 
 /**
  * This class contains all the general fields that an input message may receive from the user. These
  * fields are then used to create an {@link ResolveFile}.
  *
+ * <p>Large files may be sent in several pieces: the first message has all the usual fields, the
+ * file's decoded length in {@code contentLength} and {@code more} set to {@code true}. Each of the
+ * following messages only carries the next piece of the {@code content}, and the last one doesn't
+ * set {@code more}. Every piece is URL-encoded on its own.
+ *
+ * <p>A file that is being edited (session mode) is first sent as usual along with its {@code
+ * version}. The connection then stays open and each of the following messages only carries the
+ * file's {@code name}, the {@code version} its {@code edits} were made for and the {@link TextEdit
+ * TextEdits} themselves. Every batch of edits bumps the file's version and the file is analyzed
+ * again. If the first message also sets {@code diffDiagnostics}, each analysis only sends the
+ * errors and warnings that were added or removed since the previous one.
+ *
  * @author Yu-Shan Sun
  * @version 1.0
  */
@@ -31,9 +45,30 @@ public class CompilerMessage {
   /** This contains the project name that the file belongs to. */
   public String project;
 
-  /** This contains the contents of the file. */
+  /** This contains the contents of the file (or the current piece of it). */
   public String content;
 
+  /** This contains the length of the whole (decoded) file when it is sent in several pieces. */
+  public Long contentLength;
+
+  /** This indicates that more pieces of the file's contents will follow. */
+  public Boolean more;
+
+  /** This contains the version of the file (or the version the edits were made for). */
+  public Integer version;
+
+  /** This contains the changes made to the file since the specified version. */
+  public List<TextEdit> edits;
+
+  /** This indicates that only the changes to the errors and warnings should be sent. */
+  public Boolean diffDiagnostics;
+
+  /** This contains the contents of a file that was sent in several pieces (once we have them). */
+  @JsonIgnore public ContentBuffer contentBuffer;
+
+  /** This contains the contents of a file that is being edited (session mode). */
+  @JsonIgnore public DocumentBuffer document;
+
   /**
    * This method returns the object in string format.
    *
@@ -54,6 +89,16 @@ public class CompilerMessage {
         + ", content='"
         + content
         + '\''
+        + ", contentLength="
+        + contentLength
+        + ", more="
+        + more
+        + ", version="
+        + version
+        + ", edits="
+        + edits
+        + ", diffDiagnostics="
+        + diffDiagnostics
         + '}';
   }
 }
@@ -0,0 +1,254 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.inputmessage;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CodePointBuffer;
+import org.antlr.v4.runtime.CodePointCharStream;
+
+/**
+ * This class collects the content of a file that arrives in several pieces (for example: a large
+ * file sent over several {@code WebSocket} frames) in a single growing buffer, which then becomes
+ * the compiler's {@link CharStream}. Each piece is URL-decoded (the same way {@code
+ * AbstractCompilerActor.decode} does) straight into the buffer, so the content is never held as a
+ * full-size decoded {@link String}. Content that is already {@code UTF-8} (such as the payload of a
+ * binary frame) is decoded straight from the frame's buffers.
+ *
+ * <p>The buffer's initial capacity is the length the client declared, which must not exceed the
+ * specified maximum. The maximum is also enforced while decoding, so a client that sends more than
+ * it declared can't make us allocate more than the maximum.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class ContentBuffer {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Size of our byte and character staging buffers. */
+  private static final int STAGING_SIZE = 8192;
+
+  /** The buffer containing the decoded content. */
+  private final CodePointBuffer.Builder myBuilder;
+
+  /** Decoded bytes waiting for the {@code UTF-8} decoder. */
+  private final ByteBuffer myBytes;
+
+  /** Decoded characters waiting to be added to the buffer. */
+  private final CharBuffer myChars;
+
+  /** The {@code UTF-8} decoder (it keeps the state of sequences split across pieces). */
+  private final CharsetDecoder myDecoder;
+
+  /** Number of characters ({@code UTF-16} code units) added to the buffer. */
+  private long myLength;
+
+  /** Maximum number of characters the content may have. */
+  private final long myMaxLength;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an empty buffer for content of the specified length.
+   *
+   * @param expectedLength The content's length (in characters) as declared by the client.
+   * @param maxLength Maximum number of characters the content may have.
+   * @throws IllegalArgumentException If the declared length is negative or exceeds the maximum.
+   */
+  public ContentBuffer(long expectedLength, long maxLength) {
+    if (expectedLength < 0 || expectedLength > maxLength) {
+      throw new IllegalArgumentException(
+          "The content's length must be between 0 and " + maxLength + " characters!");
+    }
+
+    myBuilder = CodePointBuffer.builder((int) expectedLength);
+    myBytes = ByteBuffer.allocate(STAGING_SIZE);
+    myChars = CharBuffer.allocate(STAGING_SIZE);
+    myDecoder =
+        StandardCharsets.UTF_8
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    myLength = 0;
+    myMaxLength = maxLength;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method URL-decodes a piece of the content and adds it to the buffer. A piece must not end
+   * in the middle of a {@code %XX} escape sequence, but it may end in the middle of a multi-byte
+   * character.
+   *
+   * @param encoded A URL-encoded piece of the content.
+   * @throws IllegalArgumentException If the piece has an invalid escape sequence or the content
+   *     exceeds the maximum length.
+   */
+  public final void appendEncoded(CharSequence encoded) {
+    int length = encoded.length();
+    for (int i = 0; i < length; i++) {
+      char c = encoded.charAt(i);
+      if (c == '%') {
+        if (i + 2 >= length) {
+          throw new IllegalArgumentException("Incomplete escape sequence at the end of a piece!");
+        }
+
+        int high = Character.digit(encoded.charAt(i + 1), 16);
+        int low = Character.digit(encoded.charAt(i + 2), 16);
+        if (high < 0 || low < 0) {
+          throw new IllegalArgumentException("Invalid escape sequence at: " + i);
+        }
+        putByte((byte) ((high << 4) | low));
+        i += 2;
+      } else if (c == '+') {
+        putByte((byte) ' ');
+      } else if (c < 0x80) {
+        putByte((byte) c);
+      } else {
+        // Characters that weren't encoded by the client are added as they are
+        decodeBytes(false);
+        if (!myChars.hasRemaining()) {
+          drainChars(false);
+        }
+        myChars.put(c);
+      }
+    }
+
+    decodeBytes(false);
+    drainChars(false);
+  }
+
+  /**
+   * This method decodes a piece of {@code UTF-8} content (for example: one of the buffers backing a
+   * binary {@code WebSocket} frame) straight into the buffer. The piece may end in the middle of a
+   * multi-byte character.
+   *
+   * @param utf8 A {@code UTF-8} encoded piece of the content. It is consumed by this method.
+   * @throws IllegalArgumentException If the content exceeds the maximum length.
+   */
+  public final void appendUtf8(ByteBuffer utf8) {
+    // Complete the character that was split across the previous piece (if any)
+    while (myBytes.position() > 0 && utf8.hasRemaining()) {
+      myBytes.put(utf8.get());
+      decodeBytes(false);
+    }
+
+    CoderResult result = myDecoder.decode(utf8, myChars, false);
+    while (result.isOverflow()) {
+      drainChars(false);
+      result = myDecoder.decode(utf8, myChars, false);
+    }
+
+    // Keep the bytes of an incomplete character until the next piece
+    myBytes.put(utf8);
+    drainChars(false);
+  }
+
+  /**
+   * This method returns the number of characters added to the buffer so far.
+   *
+   * @return The content's current length.
+   */
+  public final long length() {
+    return myLength;
+  }
+
+  /**
+   * This method finishes decoding the content and creates the compiler's {@link CharStream}. The
+   * buffer shouldn't be used afterwards.
+   *
+   * @param sourceName The name reported by the stream (usually the file's name).
+   * @return A {@link CharStream} containing the content.
+   */
+  public final CharStream toCharStream(String sourceName) {
+    decodeBytes(true);
+    while (myDecoder.flush(myChars).isOverflow()) {
+      drainChars(false);
+    }
+    drainChars(true);
+
+    return CodePointCharStream.fromBuffer(myBuilder.build(), sourceName);
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that decodes the staged bytes. Bytes that are part of an incomplete character
+   * are kept until the rest of the character arrives (or the input ends).
+   *
+   * @param endOfInput {@code true} if no more bytes will be added, {@code false} otherwise.
+   */
+  private void decodeBytes(boolean endOfInput) {
+    myBytes.flip();
+    CoderResult result = myDecoder.decode(myBytes, myChars, endOfInput);
+    while (result.isOverflow()) {
+      drainChars(false);
+      result = myDecoder.decode(myBytes, myChars, endOfInput);
+    }
+    myBytes.compact();
+  }
+
+  /**
+   * An helper method that adds the staged characters to the buffer. Unless the input has ended, a
+   * trailing high surrogate is kept until its low surrogate arrives.
+   *
+   * @param endOfInput {@code true} if no more characters will be added, {@code false} otherwise.
+   * @throws IllegalArgumentException If the content exceeds the maximum length.
+   */
+  private void drainChars(boolean endOfInput) {
+    myChars.flip();
+    int limit = myChars.limit();
+    char last = limit > 0 ? myChars.get(limit - 1) : 0;
+    boolean keepLast = !endOfInput && Character.isHighSurrogate(last);
+    if (keepLast) {
+      myChars.limit(limit - 1);
+    }
+
+    if (myLength + myChars.remaining() > myMaxLength) {
+      throw new IllegalArgumentException(
+          "The content is longer than " + myMaxLength + " characters!");
+    }
+    myLength += myChars.remaining();
+    myBuilder.append(myChars);
+
+    myChars.clear();
+    if (keepLast) {
+      myChars.put(last);
+    }
+  }
+
+  /**
+   * An helper method that stages a decoded byte.
+   *
+   * @param b A decoded byte.
+   */
+  private void putByte(byte b) {
+    if (!myBytes.hasRemaining()) {
+      decodeBytes(false);
+    }
+    myBytes.put(b);
+  }
+}
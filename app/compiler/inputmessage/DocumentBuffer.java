@@ -0,0 +1,350 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.inputmessage;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CodePointBuffer;
+import org.antlr.v4.runtime.CodePointCharStream;
+
+/**
+ * This class holds a document that is being edited by the client (session mode) as a piece table:
+ * the document's original content and an append-only buffer with every piece of text the edits
+ * added, along with the list of pieces (ranges of either buffer) that make up the current content.
+ * Applying a {@link TextEdit} only appends its text and splits a couple of pieces, so a keystroke
+ * costs the same no matter how large the document is.
+ *
+ * <p>Every batch of edits bumps the document's version, which lets the client's edits be checked
+ * against the version they were made for. The pieces are merged back into a new original content
+ * whenever the compiler needs the whole document and once there are too many of them (or the added
+ * text is mostly gone).
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class DocumentBuffer {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Maximum number of pieces before they are merged back into a single piece. */
+  private static final int MAX_PIECES = 1024;
+
+  /** The characters added by the edits (append-only). */
+  private char[] myAdded;
+
+  /** Number of characters used in {@code myAdded}. */
+  private int myAddedLength;
+
+  /** Number of characters ({@code UTF-16} code units) in the document. */
+  private int myLength;
+
+  /** Maximum number of characters the document may have. */
+  private final long myMaxLength;
+
+  /** The document's original content (or the content when it was last compacted). */
+  private char[] myOriginal;
+
+  /** The pieces that make up the document's content (in order). */
+  private final List<Piece> myPieces;
+
+  /** The document's current version. */
+  private int myVersion;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a document with the specified content.
+   *
+   * @param content The document's content.
+   * @param version The content's version (as chosen by the client).
+   * @param maxLength Maximum number of characters the document may have.
+   * @throws IllegalArgumentException If the content exceeds the maximum length.
+   */
+  public DocumentBuffer(CharSequence content, int version, long maxLength) {
+    if (content.length() > maxLength) {
+      throw new IllegalArgumentException(
+          "The content is longer than " + maxLength + " characters!");
+    }
+
+    myAdded = new char[0];
+    myAddedLength = 0;
+    myLength = content.length();
+    myMaxLength = maxLength;
+    myOriginal = content.toString().toCharArray();
+    myPieces = new ArrayList<>();
+    if (myLength > 0) {
+      myPieces.add(new Piece(false, 0, myLength));
+    }
+    myVersion = version;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method applies a batch of edits (in order, each one to the result of the previous one) and
+   * bumps the document's version. If any of the edits is invalid, none of them are applied.
+   *
+   * @param version The version the edits were made for.
+   * @param edits The edits to be applied.
+   * @return The document's new version.
+   * @throws IllegalArgumentException If the edits were made for another version, an edit's range is
+   *     invalid or the document would exceed the maximum length.
+   */
+  public final int applyEdits(Integer version, List<TextEdit> edits) {
+    if (version == null || version != myVersion) {
+      throw new IllegalArgumentException(
+          "The edits were made for version " + version + " instead of version " + myVersion + "!");
+    }
+
+    List<Piece> pieces = new ArrayList<>(myPieces);
+    int addedLength = myAddedLength;
+    int length = myLength;
+    try {
+      for (TextEdit edit : edits) {
+        replace(edit);
+      }
+    } catch (IllegalArgumentException e) {
+      // Roll back (the added characters are simply overwritten later)
+      myPieces.clear();
+      myPieces.addAll(pieces);
+      myAddedLength = addedLength;
+      myLength = length;
+      throw e;
+    }
+
+    // Merge the pieces once there are too many of them or most
+    // of the added text has been deleted again.
+    if (myPieces.size() > MAX_PIECES || myAddedLength > Math.max(2 * myLength, MAX_PIECES)) {
+      compact();
+    }
+
+    return ++myVersion;
+  }
+
+  /**
+   * This method returns the document's current version.
+   *
+   * @return The version.
+   */
+  public final int getVersion() {
+    return myVersion;
+  }
+
+  /**
+   * This method returns the number of characters in the document.
+   *
+   * @return The document's length.
+   */
+  public final int length() {
+    return myLength;
+  }
+
+  /**
+   * This method creates a {@link CharStream} with the document's current content. Since the
+   * compiler reads the whole content anyway, the pieces are merged first. The document may still be
+   * edited afterwards (the stream isn't affected).
+   *
+   * @param sourceName The name reported by the stream (usually the file's name).
+   * @return A {@link CharStream} containing the content.
+   */
+  public final CharStream toCharStream(String sourceName) {
+    if (!isCompact()) {
+      compact();
+    }
+
+    CodePointBuffer.Builder builder = CodePointBuffer.builder(myLength);
+    builder.append(CharBuffer.wrap(myOriginal));
+
+    return CodePointCharStream.fromBuffer(builder.build(), sourceName);
+  }
+
+  // ===========================================================
+  // Package Private Methods
+  // ===========================================================
+
+  /**
+   * This method returns the number of pieces that make up the document's content.
+   *
+   * @return The number of pieces.
+   */
+  final int getPieceCount() {
+    return myPieces.size();
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that returns the buffer a piece refers to.
+   *
+   * @param piece A piece of the document.
+   * @return Either {@code myAdded} or {@code myOriginal}.
+   */
+  private char[] buffer(Piece piece) {
+    return piece.myAddedFlag ? myAdded : myOriginal;
+  }
+
+  /** An helper method that merges all the pieces into a new original content. */
+  private void compact() {
+    char[] content = new char[myLength];
+    int offset = 0;
+    for (Piece piece : myPieces) {
+      System.arraycopy(buffer(piece), piece.myStart, content, offset, piece.myLength);
+      offset += piece.myLength;
+    }
+
+    myAdded = new char[0];
+    myAddedLength = 0;
+    myOriginal = content;
+    myPieces.clear();
+    if (myLength > 0) {
+      myPieces.add(new Piece(false, 0, myLength));
+    }
+  }
+
+  /**
+   * Checks to see if the document's content is exactly its original content.
+   *
+   * @return {@code true} if there is nothing to merge, {@code false} otherwise.
+   */
+  private boolean isCompact() {
+    if (myPieces.isEmpty()) {
+      return myOriginal.length == 0;
+    }
+
+    Piece piece = myPieces.get(0);
+    return myPieces.size() == 1
+        && !piece.myAddedFlag
+        && piece.myStart == 0
+        && piece.myLength == myOriginal.length;
+  }
+
+  /**
+   * An helper method that replaces a range of the document.
+   *
+   * @param edit The edit to be applied.
+   * @throws IllegalArgumentException If the edit's range is invalid or the document would exceed
+   *     the maximum length.
+   */
+  private void replace(TextEdit edit) {
+    if (edit.start == null
+        || edit.end == null
+        || edit.start < 0
+        || edit.start > edit.end
+        || edit.end > myLength) {
+      throw new IllegalArgumentException("Invalid edit range: " + edit.start + "-" + edit.end);
+    }
+
+    String text = edit.text == null ? "" : edit.text;
+    if (myLength - (edit.end - edit.start) + (long) text.length() > myMaxLength) {
+      throw new IllegalArgumentException(
+          "The content is longer than " + myMaxLength + " characters!");
+    }
+
+    int first = split(edit.start);
+    int last = split(edit.end);
+    myPieces.subList(first, last).clear();
+
+    if (!text.isEmpty()) {
+      int addedStart = myAddedLength;
+      if (myAdded.length - myAddedLength < text.length()) {
+        myAdded =
+            Arrays.copyOf(myAdded, Math.max(myAdded.length * 2, myAddedLength + text.length()));
+      }
+      text.getChars(0, text.length(), myAdded, myAddedLength);
+      myAddedLength += text.length();
+
+      // Typing usually continues right after the previous edit,
+      // so we extend that edit's piece if we can.
+      Piece previous = first > 0 ? myPieces.get(first - 1) : null;
+      if (previous != null
+          && previous.myAddedFlag
+          && previous.myStart + previous.myLength == addedStart) {
+        myPieces.set(
+            first - 1, new Piece(true, previous.myStart, previous.myLength + text.length()));
+      } else {
+        myPieces.add(first, new Piece(true, addedStart, text.length()));
+      }
+    }
+
+    myLength += text.length() - (edit.end - edit.start);
+  }
+
+  /**
+   * An helper method that makes sure a piece starts at the specified position (splitting the piece
+   * that contains it if needed).
+   *
+   * @param position A position in the document.
+   * @return The index of the piece that starts at {@code position} (or the number of pieces if it
+   *     is the end of the document).
+   */
+  private int split(int position) {
+    int offset = 0;
+    for (int i = 0; i < myPieces.size(); i++) {
+      Piece piece = myPieces.get(i);
+      if (position == offset) {
+        return i;
+      }
+
+      if (position < offset + piece.myLength) {
+        int head = position - offset;
+        myPieces.set(i, new Piece(piece.myAddedFlag, piece.myStart, head));
+        myPieces.add(
+            i + 1, new Piece(piece.myAddedFlag, piece.myStart + head, piece.myLength - head));
+        return i + 1;
+      }
+      offset += piece.myLength;
+    }
+
+    return myPieces.size();
+  }
+
+  // ===========================================================
+  // Private Classes
+  // ===========================================================
+
+  /** This class represents a range of either the original or the added characters. */
+  private static class Piece {
+
+    /** Flag that indicates the range belongs to the added characters. */
+    private final boolean myAddedFlag;
+
+    /** Number of characters in the range. */
+    private final int myLength;
+
+    /** Position of the range's first character. */
+    private final int myStart;
+
+    /**
+     * This creates a new piece.
+     *
+     * @param addedFlag Whether the range belongs to the added characters.
+     * @param start Position of the range's first character.
+     * @param length Number of characters in the range.
+     */
+    Piece(boolean addedFlag, int start, int length) {
+      myAddedFlag = addedFlag;
+      myLength = length;
+      myStart = start;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.inputmessage;
+
+/**
+ * This class contains a single change to a document that is being edited: the characters between
+ * {@code start} (inclusive) and {@code end} (exclusive) are replaced by {@code text}. Positions are
+ * counted in {@code UTF-16} code units (the same way JavaScript strings are indexed) and the text
+ * is sent as it is (it isn't URL-encoded).
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class TextEdit {
+
+  /** This contains the position of the first character to be replaced. */
+  public Integer start;
+
+  /** This contains the position right after the last character to be replaced. */
+  public Integer end;
+
+  /** This contains the replacement text (which may be empty). */
+  public String text;
+
+  /**
+   * This method returns the object in string format.
+   *
+   * @return Object as a string.
+   */
+  @Override
+  public String toString() {
+    return "TextEdit{" + "start=" + start + ", end=" + end + ", text='" + text + '\'' + '}';
+  }
+}
@@ -0,0 +1,641 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.jobs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.typesafe.config.Config;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+import play.libs.Json;
+
+/**
+ * This singleton class keeps a durable copy of the {@link JobRegistry JobRegistry's} records in a
+ * local append-only log, so that the output of a detached job (finished or not) survives a restart
+ * and its client can still resume from the last frame it received. Unless {@code
+ * webapi.compiler.jobs.log.enabled} is set, the log is disabled and detached jobs are only kept in
+ * memory.
+ *
+ * <p>The log is split into segment files inside {@code webapi.compiler.jobs.log.dir}. Entries are
+ * appended to a memory-mapped segment of {@code segmentSize} bytes, which is trimmed and sealed
+ * once it is full. Every entry records its job's id and has its own checksum, so a segment that
+ * was being written when the {@code JVM} died is read up to its last complete entry. Sealed
+ * segments are removed once they are older than {@code maxAge} (or the log is larger than {@code
+ * maxSize}) and are compacted (their live entries are copied to the current segment) once less
+ * than {@code compactionThreshold} of their bytes belong to jobs that are still in the registry.
+ *
+ * <p>(Note: Entries are written to the operating system's page cache, not synced to the disk. This
+ * survives the application crashing or being restarted, but not the machine losing power.)
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class JobLog {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The entry that marks a job as done. */
+  private static final byte DONE = 3;
+
+  /** The segment file format's version. */
+  private static final int FORMAT_VERSION = 1;
+
+  /** The entry that holds a frame and its offset. */
+  private static final byte FRAME = 2;
+
+  /** Number of bytes before each entry's body (its length and checksum). */
+  private static final int ENTRY_HEADER_SIZE = 8;
+
+  /** Number of bytes at the start of every segment (its magic number and version). */
+  private static final int SEGMENT_HEADER_SIZE = 8;
+
+  /** The first four bytes of every segment file. */
+  private static final int MAGIC = 0x524a4c31;
+
+  /** The entry that holds a job's name and project. */
+  private static final byte START = 1;
+
+  /**
+   * The segment entries are currently appended to ({@code null} if the log is disabled or can't be
+   * written). It is only written while holding our lock, but read without it, so that nothing gets
+   * serialized when there is nowhere to write it to.
+   */
+  private volatile MappedByteBuffer myActiveBuffer;
+
+  /** The file channel of the segment entries are currently appended to. */
+  private FileChannel myActiveChannel;
+
+  /** The segment entries are currently appended to. */
+  private Segment myActiveSegment;
+
+  /** Segments that are only compacted or removed once they are less live than this fraction. */
+  private final double myCompactionThreshold;
+
+  /** Flag that indicates if we should write and recover the log. */
+  private final boolean myEnabledFlag;
+
+  /** The directory containing all the segment files. */
+  private final Path myLogDir;
+
+  /** Logger for the job log related items. */
+  private final Logger myLogger;
+
+  /** Sealed segments older than this (in milliseconds) are removed. */
+  private final long myMaxAgeMillis;
+
+  /** The oldest sealed segments are removed while the log is larger than this (in bytes). */
+  private final long myMaxSize;
+
+  /** The sealed segments, from the oldest to the newest. */
+  private final List<Segment> mySealedSegments;
+
+  /** The size of a new segment (in bytes). */
+  private final long mySegmentSize;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a job log using the {@code webapi.compiler.jobs.log} settings. Nothing is read or
+   * written until the log is {@link #recover() recovered}.
+   *
+   * @param config The configuration manager.
+   * @param lifecycle The application's lifecycle, used to seal the current segment on shutdown.
+   */
+  @Inject
+  public JobLog(Config config, ApplicationLifecycle lifecycle) {
+    Config logConfig = config.getConfig("webapi.compiler.jobs.log");
+    myActiveBuffer = null;
+    myActiveChannel = null;
+    myActiveSegment = null;
+    myCompactionThreshold = logConfig.getDouble("compactionThreshold");
+    myEnabledFlag = logConfig.getBoolean("enabled");
+    myLogDir = Paths.get(logConfig.getString("dir")).toAbsolutePath();
+    myLogger = LoggerFactory.getLogger(JobLog.class);
+    myMaxAgeMillis = logConfig.getDuration("maxAge", TimeUnit.MILLISECONDS);
+    myMaxSize = logConfig.getBytes("maxSize");
+    mySealedSegments = new ArrayList<>();
+    mySegmentSize = Math.max(SEGMENT_HEADER_SIZE + 1024, logConfig.getBytes("segmentSize"));
+
+    lifecycle.addStopHook(
+        () -> {
+          synchronized (this) {
+            sealActiveSegment();
+          }
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method removes the expired segments and compacts the ones that are mostly made of jobs
+   * that are no longer in the registry.
+   *
+   * @param liveJobIds The ids of the jobs that are still in the registry.
+   */
+  public final synchronized void compact(Set<String> liveJobIds) {
+    if (myActiveBuffer == null) {
+      return;
+    }
+
+    // Retention by age and then by size (oldest first)
+    long now = System.currentTimeMillis();
+    long totalSize = myActiveSegment.mySize;
+    for (Segment segment : mySealedSegments) {
+      totalSize += segment.mySize;
+    }
+    while (!mySealedSegments.isEmpty()
+        && (now - mySealedSegments.get(0).myModifiedTime > myMaxAgeMillis
+            || totalSize > myMaxSize)) {
+      Segment segment = mySealedSegments.remove(0);
+      totalSize -= segment.mySize;
+      deleteSegment(segment);
+    }
+
+    // Copy the live entries of the mostly dead segments to the current one
+    for (Segment segment : new ArrayList<>(mySealedSegments)) {
+      if (myActiveBuffer == null) {
+        // A new segment couldn't be started while copying
+        return;
+      }
+
+      long liveBytes = 0;
+      for (Map.Entry<String, Long> entry : segment.myJobBytes.entrySet()) {
+        if (liveJobIds.contains(entry.getKey())) {
+          liveBytes += entry.getValue();
+        }
+      }
+
+      if (liveBytes < myCompactionThreshold * segment.mySize) {
+        try {
+          for (ByteBuffer body : readEntries(segment.myPath)) {
+            ByteBuffer entry = body.duplicate();
+            entry.get();
+            String id = readString(entry);
+            if (liveJobIds.contains(id)) {
+              appendEntry(id, body);
+            }
+          }
+        } catch (IOException e) {
+          myLogger.warn("Unable to compact the job log segment: {}", segment.myPath, e);
+          continue;
+        }
+
+        mySealedSegments.remove(segment);
+        deleteSegment(segment);
+      }
+    }
+  }
+
+  /**
+   * This method records that a job is done.
+   *
+   * @param id The job's id.
+   */
+  public final void done(String id) {
+    if (myActiveBuffer == null) {
+      return;
+    }
+
+    ByteBuffer body = newBody(id, DONE, 0);
+    body.flip();
+    synchronized (this) {
+      append(id, body);
+    }
+  }
+
+  /**
+   * This method records a frame sent back by a job.
+   *
+   * @param id The job's id.
+   * @param offset The frame's offset.
+   * @param frame A frame sent back by the job.
+   */
+  public final void frame(String id, int offset, JsonNode frame) {
+    if (myActiveBuffer == null) {
+      return;
+    }
+
+    byte[] json = Json.stringify(frame).getBytes(StandardCharsets.UTF_8);
+    ByteBuffer body = newBody(id, FRAME, 4 + json.length);
+    body.putInt(offset);
+    body.put(json);
+    body.flip();
+    synchronized (this) {
+      append(id, body);
+    }
+  }
+
+  /**
+   * This method reads every segment and rebuilds the records of the jobs they contain, then starts
+   * a new segment for the entries that follow. Jobs that weren't done when the log was last
+   * written get an error frame (since their compile jobs are gone) and are marked as done.
+   *
+   * @return The recovered records (empty if the log is disabled or couldn't be read).
+   */
+  public final synchronized List<JobRecord> recover() {
+    if (!myEnabledFlag) {
+      return new ArrayList<>();
+    }
+
+    Map<String, RecoveredJob> jobs = new LinkedHashMap<>();
+    long nextSequence = 0;
+    try {
+      Files.createDirectories(myLogDir);
+      List<Path> files;
+      try (Stream<Path> stream = Files.list(myLogDir)) {
+        files =
+            stream
+                .filter(file -> file.getFileName().toString().endsWith(".seg"))
+                .sorted()
+                .collect(Collectors.toList());
+      }
+
+      for (Path file : files) {
+        Segment segment = new Segment(file, Files.getLastModifiedTime(file).toMillis());
+        for (ByteBuffer body : readEntries(file)) {
+          segment.mySize += ENTRY_HEADER_SIZE + body.remaining();
+          recoverEntry(jobs, segment, body);
+        }
+        nextSequence = Math.max(nextSequence, segment.sequence() + 1);
+        if (segment.myJobBytes.isEmpty()) {
+          deleteSegment(segment);
+        } else {
+          segment.mySize += SEGMENT_HEADER_SIZE;
+          mySealedSegments.add(segment);
+        }
+      }
+
+      openSegment(nextSequence, mySegmentSize);
+    } catch (IOException | RuntimeException e) {
+      myLogger.warn("Unable to recover the job log, it is disabled until restarted", e);
+      myActiveBuffer = null;
+      return new ArrayList<>();
+    }
+
+    List<JobRecord> records = new ArrayList<>();
+    for (Map.Entry<String, RecoveredJob> entry : jobs.entrySet()) {
+      RecoveredJob job = entry.getValue();
+      if (job.myName == null) {
+        // Its start entry was in a segment that has been removed
+        continue;
+      }
+
+      JobRecord record = new JobRecord(entry.getKey(), job.myName, job.myProject);
+      job.myFrames.values().forEach(record::append);
+      if (!job.myDoneFlag) {
+        JsonNode frame = interruptedFrame();
+        frame(record.getId(), record.append(frame), frame);
+        done(record.getId());
+      }
+      record.complete();
+      records.add(record);
+    }
+    myLogger.info("Recovered {} jobs from: {}", records.size(), myLogDir);
+
+    return records;
+  }
+
+  /**
+   * This method records that a job has been submitted.
+   *
+   * @param record The job's new record.
+   */
+  public final void start(JobRecord record) {
+    if (myActiveBuffer == null) {
+      return;
+    }
+
+    byte[] job = record.getJob().getBytes(StandardCharsets.UTF_8);
+    byte[] project = record.getProject().getBytes(StandardCharsets.UTF_8);
+    ByteBuffer body = newBody(record.getId(), START, 8 + job.length + project.length);
+    body.putInt(job.length);
+    body.put(job);
+    body.putInt(project.length);
+    body.put(project);
+    body.flip();
+    synchronized (this) {
+      append(record.getId(), body);
+    }
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that appends an entry to the current segment and disables the log if it can't
+   * be written. The log may have been disabled after the caller checked it, so we check again.
+   *
+   * @param id The entry's job id.
+   * @param body The entry's body.
+   */
+  private void append(String id, ByteBuffer body) {
+    if (myActiveBuffer == null) {
+      return;
+    }
+
+    try {
+      appendEntry(id, body);
+    } catch (IOException e) {
+      myLogger.warn("Unable to write to the job log, it is disabled until restarted", e);
+      myActiveBuffer = null;
+    }
+  }
+
+  /**
+   * An helper method that appends an entry to the current segment, starting a new segment if it
+   * doesn't fit.
+   *
+   * @param id The entry's job id.
+   * @param body The entry's body (from its position to its limit).
+   * @throws IOException If a new segment couldn't be started.
+   */
+  private void appendEntry(String id, ByteBuffer body) throws IOException {
+    int entrySize = ENTRY_HEADER_SIZE + body.remaining();
+    if (myActiveBuffer.remaining() < entrySize) {
+      long sequence = myActiveSegment.sequence() + 1;
+      sealActiveSegment();
+      openSegment(sequence, Math.max(mySegmentSize, (long) SEGMENT_HEADER_SIZE + entrySize));
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(body.duplicate());
+    myActiveBuffer.putInt(body.remaining());
+    myActiveBuffer.putInt((int) crc.getValue());
+    myActiveBuffer.put(body.duplicate());
+    myActiveSegment.mySize += entrySize;
+    myActiveSegment.myJobBytes.merge(id, (long) entrySize, Long::sum);
+  }
+
+  /**
+   * An helper method that removes a segment file.
+   *
+   * @param segment The segment to be removed.
+   */
+  private void deleteSegment(Segment segment) {
+    try {
+      Files.deleteIfExists(segment.myPath);
+    } catch (IOException e) {
+      myLogger.warn("Unable to delete the job log segment: {}", segment.myPath, e);
+    }
+  }
+
+  /**
+   * An helper method that creates the frame added to the jobs that weren't done when the
+   * application stopped.
+   *
+   * @return An error frame.
+   */
+  private static JsonNode interruptedFrame() {
+    return Json.newObject()
+        .put("status", "error")
+        .put("msg", "The server restarted before this job was done. Please submit it again!");
+  }
+
+  /**
+   * An helper method that creates an entry's body and writes its type and job id.
+   *
+   * @param id The entry's job id.
+   * @param type The entry's type.
+   * @param extraSize Number of bytes the caller will write after the job id.
+   * @return A buffer positioned right after the job id.
+   */
+  private static ByteBuffer newBody(String id, byte type, int extraSize) {
+    byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer body = ByteBuffer.allocate(1 + 4 + idBytes.length + extraSize);
+    body.put(type);
+    body.putInt(idBytes.length);
+    body.put(idBytes);
+
+    return body;
+  }
+
+  /**
+   * An helper method that creates and maps a new segment file.
+   *
+   * @param sequence The segment's sequence number.
+   * @param size The segment's size (in bytes).
+   * @throws IOException If the segment couldn't be created.
+   */
+  private void openSegment(long sequence, long size) throws IOException {
+    Path file = myLogDir.resolve(String.format("%020d.seg", sequence));
+    myActiveChannel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    myActiveBuffer = myActiveChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    myActiveBuffer.putInt(MAGIC);
+    myActiveBuffer.putInt(FORMAT_VERSION);
+    myActiveSegment = new Segment(file, System.currentTimeMillis());
+    myActiveSegment.mySize = SEGMENT_HEADER_SIZE;
+  }
+
+  /**
+   * An helper method that reads the bodies of a segment's complete entries.
+   *
+   * @param file The segment file.
+   * @return The entries' bodies.
+   * @throws IOException If the segment couldn't be read.
+   */
+  private List<ByteBuffer> readEntries(Path file) throws IOException {
+    List<ByteBuffer> bodies = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < SEGMENT_HEADER_SIZE
+          || buffer.getInt() != MAGIC
+          || buffer.getInt() != FORMAT_VERSION) {
+        myLogger.info("Ignoring the unknown job log segment: {}", file);
+        return bodies;
+      }
+
+      // A zero length marks the unused end of a segment, a bad checksum a partially written entry
+      while (buffer.remaining() >= ENTRY_HEADER_SIZE) {
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining()) {
+          break;
+        }
+
+        ByteBuffer body = buffer.slice();
+        body.limit(length);
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != checksum) {
+          myLogger.warn("Ignoring the partially written end of the job log segment: {}", file);
+          break;
+        }
+
+        bodies.add(body);
+        buffer.position(buffer.position() + length);
+      }
+    }
+
+    return bodies;
+  }
+
+  /**
+   * An helper method that reads a length-prefixed {@code UTF-8} string.
+   *
+   * @param buffer The buffer to read from.
+   * @return The string.
+   */
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * An helper method that applies a recovered entry to its job.
+   *
+   * @param jobs A map from job ids to what we have recovered so far.
+   * @param segment The segment the entry belongs to.
+   * @param body The entry's body.
+   */
+  private static void recoverEntry(
+      Map<String, RecoveredJob> jobs, Segment segment, ByteBuffer body) {
+    ByteBuffer entry = body.duplicate();
+    byte type = entry.get();
+    String id = readString(entry);
+    RecoveredJob job = jobs.computeIfAbsent(id, k -> new RecoveredJob());
+    segment.myJobBytes.merge(id, (long) ENTRY_HEADER_SIZE + body.remaining(), Long::sum);
+
+    switch (type) {
+      case START:
+        job.myName = readString(entry);
+        job.myProject = readString(entry);
+        break;
+      case FRAME:
+        int offset = entry.getInt();
+        byte[] json = new byte[entry.remaining()];
+        entry.get(json);
+        job.myFrames.put(offset, Json.parse(new String(json, StandardCharsets.UTF_8)));
+        break;
+      case DONE:
+        job.myDoneFlag = true;
+        break;
+      default:
+        break;
+    }
+  }
+
+  /** An helper method that trims the unused end of the current segment and closes it. */
+  private void sealActiveSegment() {
+    if (myActiveChannel == null) {
+      return;
+    }
+
+    try {
+      myActiveBuffer.force();
+      myActiveChannel.truncate(myActiveSegment.mySize);
+      myActiveChannel.close();
+    } catch (IOException e) {
+      myLogger.warn("Unable to seal the job log segment: {}", myActiveSegment.myPath, e);
+    }
+
+    myActiveSegment.myModifiedTime = System.currentTimeMillis();
+    mySealedSegments.add(myActiveSegment);
+    myActiveBuffer = null;
+    myActiveChannel = null;
+  }
+
+  // ===========================================================
+  // Private Classes
+  // ===========================================================
+
+  /** This class holds what we have recovered about a job so far. */
+  private static class RecoveredJob {
+
+    /** Flag that indicates we found the job's done entry. */
+    private boolean myDoneFlag;
+
+    /** A map from the frame offsets to the frames. */
+    private final SortedMap<Integer, JsonNode> myFrames = new TreeMap<>();
+
+    /** Name of the job being executed ({@code null} until we find its start entry). */
+    private String myName;
+
+    /** RESOLVE project folder being used. */
+    private String myProject;
+  }
+
+  /** This class holds what we know about a segment file. */
+  private static class Segment {
+
+    /** The time (in milliseconds) the segment was last written to. */
+    private long myModifiedTime;
+
+    /** A map from the job ids to the number of bytes their entries use in this segment. */
+    private final Map<String, Long> myJobBytes;
+
+    /** The segment file. */
+    private final Path myPath;
+
+    /** Number of bytes used by the segment. */
+    private long mySize;
+
+    /**
+     * This creates an object for a segment file.
+     *
+     * @param path The segment file.
+     * @param modifiedTime The time (in milliseconds) the segment was last written to.
+     */
+    Segment(Path path, long modifiedTime) {
+      myJobBytes = new HashMap<>();
+      myModifiedTime = modifiedTime;
+      myPath = path;
+      mySize = 0;
+    }
+
+    /**
+     * This method returns the segment's sequence number (its file name).
+     *
+     * @return The sequence number.
+     */
+    final long sequence() {
+      String fileName = myPath.getFileName().toString();
+      return Long.parseLong(fileName.substring(0, fileName.length() - ".seg".length()));
+    }
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.jobs;
+
+import akka.NotUsed;
+import akka.japi.Pair;
+import akka.stream.javadsl.Source;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * This class holds everything a job submitted to the {@link JobRegistry} has sent back so far, so
+ * that a client can fetch its results later (or a few at a time) instead of keeping a connection
+ * open for the job's whole duration.
+ *
+ * <p>(Note: This class is thread-safe. Frames are appended by the job's stream while clients read
+ * or stream them from any thread.)
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class JobRecord {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Flag that indicates the job is done (and no more frames will be added). */
+  private boolean myDoneFlag;
+
+  /** The time (in nanoseconds) the job was done. */
+  private long myFinishTime;
+
+  /** Every frame the job has sent back so far. */
+  private final List<JsonNode> myFrames;
+
+  /** The job's unique id. */
+  private final String myId;
+
+  /** Name of the job being executed. */
+  private final String myJob;
+
+  /** RESOLVE project folder being used. */
+  private final String myProject;
+
+  /** Streams waiting for the next frame (or the end of the job). */
+  private List<CompletableFuture<Void>> myWaiters;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a record for a job that has just been submitted.
+   *
+   * @param id The job's unique id.
+   * @param job Name of the job being executed.
+   * @param project RESOLVE project folder being used.
+   */
+  JobRecord(String id, String job, String project) {
+    myDoneFlag = false;
+    myFinishTime = 0;
+    myFrames = new ArrayList<>();
+    myId = id;
+    myJob = job;
+    myProject = project;
+    myWaiters = new ArrayList<>();
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns the frames the job has sent back so far, starting from the specified
+   * offset.
+   *
+   * @param from Offset of the first frame to be returned.
+   * @return A copy of the frames starting at {@code from} (empty if there aren't any).
+   */
+  public final synchronized List<JsonNode> getFrames(int from) {
+    if (from >= myFrames.size()) {
+      return new ArrayList<>();
+    }
+
+    return new ArrayList<>(myFrames.subList(Math.max(0, from), myFrames.size()));
+  }
+
+  /**
+   * This method returns the job's unique id.
+   *
+   * @return The id.
+   */
+  public final String getId() {
+    return myId;
+  }
+
+  /**
+   * This method returns the name of the job being executed.
+   *
+   * @return The job's name.
+   */
+  public final String getJob() {
+    return myJob;
+  }
+
+  /**
+   * This method returns the RESOLVE project folder being used.
+   *
+   * @return The project's name.
+   */
+  public final String getProject() {
+    return myProject;
+  }
+
+  /**
+   * Checks to see if the job is done.
+   *
+   * @return {@code true} if no more frames will be added, {@code false} otherwise.
+   */
+  public final synchronized boolean isDone() {
+    return myDoneFlag;
+  }
+
+  /**
+   * This method creates a stream of the job's frames, starting from the specified offset. The
+   * stream follows the job as it runs (without polling) and completes once the job is done and
+   * every frame has been emitted.
+   *
+   * @param from Offset of the first frame to be emitted.
+   * @return A stream of the frames along with their offsets.
+   */
+  public final Source<Pair<Integer, JsonNode>, NotUsed> stream(int from) {
+    return Source.<Integer, List<Pair<Integer, JsonNode>>>unfoldAsync(
+            Math.max(0, from),
+            offset ->
+                awaitFrames(offset)
+                    .thenApply(
+                        frames -> {
+                          if (frames.isEmpty()) {
+                            return Optional.empty();
+                          }
+
+                          List<Pair<Integer, JsonNode>> indexedFrames = new ArrayList<>();
+                          for (int i = 0; i < frames.size(); i++) {
+                            indexedFrames.add(Pair.create(offset + i, frames.get(i)));
+                          }
+                          return Optional.of(Pair.create(offset + frames.size(), indexedFrames));
+                        }))
+        .mapConcat(indexedFrames -> indexedFrames);
+  }
+
+  // ===========================================================
+  // Package Private Methods
+  // ===========================================================
+
+  /**
+   * This method adds a frame sent back by the job.
+   *
+   * @param frame A frame sent back by the job.
+   * @return The frame's offset.
+   */
+  final int append(JsonNode frame) {
+    int offset;
+    List<CompletableFuture<Void>> waiters;
+    synchronized (this) {
+      offset = myFrames.size();
+      myFrames.add(frame);
+      waiters = takeWaiters();
+    }
+
+    // Let the streams catch up without holding our lock
+    waiters.forEach(waiter -> waiter.complete(null));
+
+    return offset;
+  }
+
+  /** This method marks the job as done. */
+  final void complete() {
+    List<CompletableFuture<Void>> waiters;
+    synchronized (this) {
+      myDoneFlag = true;
+      myFinishTime = System.nanoTime();
+      waiters = takeWaiters();
+    }
+
+    waiters.forEach(waiter -> waiter.complete(null));
+  }
+
+  /**
+   * This method returns the time the job was done.
+   *
+   * @return The time in nanoseconds ({@code 0} if the job is still running).
+   */
+  final synchronized long getFinishTime() {
+    return myFinishTime;
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that returns the frames starting from the specified offset as soon as there
+   * are any.
+   *
+   * @param from Offset of the first frame to be returned.
+   * @return A future containing the frames starting at {@code from} (empty only if the job is done
+   *     and there are no more frames).
+   */
+  private CompletionStage<List<JsonNode>> awaitFrames(int from) {
+    CompletableFuture<Void> waiter;
+    synchronized (this) {
+      if (from < myFrames.size() || myDoneFlag) {
+        return CompletableFuture.completedFuture(getFrames(from));
+      }
+
+      waiter = new CompletableFuture<>();
+      myWaiters.add(waiter);
+    }
+
+    return waiter.thenCompose(v -> awaitFrames(from));
+  }
+
+  /**
+   * An helper method that removes the streams waiting for the next frame so they can be notified.
+   *
+   * <p>(Note: This must only be called while holding this record's lock.)
+   *
+   * @return The waiting streams.
+   */
+  private List<CompletableFuture<Void>> takeWaiters() {
+    List<CompletableFuture<Void>> waiters = myWaiters;
+    myWaiters = new ArrayList<>();
+
+    return waiters;
+  }
+}
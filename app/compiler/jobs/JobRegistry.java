@@ -0,0 +1,314 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.jobs;
+
+import akka.NotUsed;
+import akka.actor.ActorSystem;
+import akka.japi.pf.PFBuilder;
+import akka.stream.BufferOverflowException;
+import akka.stream.Materializer;
+import akka.stream.OverflowStrategy;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+import compiler.actors.CompilerActorFactory;
+import compiler.actors.CompilerServices;
+import compiler.metrics.MetricsRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.inject.ApplicationLifecycle;
+import play.libs.Json;
+import play.libs.streams.ActorFlow;
+
+/**
+ * This singleton class runs compile jobs that were submitted over plain {@code HTTP} (for example:
+ * by an autograder) rather than a {@code WebSocket}. Each {@code CompilerMessage} goes through the
+ * same path as a {@code WebSocket} request: an actor created by the {@link CompilerActorFactory},
+ * the compile job scheduler and the compiler backend.
+ *
+ * <p>A job's frames can either be streamed back right away (see {@link #run}) or collected in a
+ * {@link JobRecord} that the client fetches later using the job's id (see {@link #submit}). Records
+ * are kept for {@code webapi.compiler.jobs.retention} after their job is done and are copied to
+ * the {@link JobLog}, so they survive a restart.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class JobRegistry {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** An actor system for running our compiler actors. */
+  private final ActorSystem myActorSystem;
+
+  /** A factory for the compiler actors that handle each job request. */
+  private final CompilerActorFactory myCompilerActorFactory;
+
+  /** The single thread that removes the expired records. */
+  private final ScheduledExecutorService myEvictionExecutor;
+
+  /** Number of frames of a single message that may wait to be consumed. */
+  private final int myFrameBufferSize;
+
+  /** The durable copy of our records. */
+  private final JobLog myJobLog;
+
+  /** Maximum number of records (running or done) kept at the same time. */
+  private final int myMaxRecords;
+
+  /** Maximum number of messages from the same job that are compiled at the same time. */
+  private final int myParallelism;
+
+  /** A map from the job ids to their records. */
+  private final Map<String, JobRecord> myRecords;
+
+  /** Amount of time (in nanoseconds) a record is kept after its job is done. */
+  private final long myRetention;
+
+  /** A factory that makes the streams we create run. */
+  private final Materializer myStreamMaterializer;
+
+  /** Maximum amount of time a single message may take. */
+  private final Duration myTimeout;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates the registry using the {@code webapi.compiler.jobs} settings.
+   *
+   * @param config The configuration manager.
+   * @param lifecycle The application's lifecycle, used to stop the eviction thread on shutdown.
+   * @param actorSystem An actor system for running our compiler actors.
+   * @param materializer A factory that makes the streams we create run.
+   * @param compilerActorFactory A factory for the compiler actors that handle each job request.
+   * @param compilerServices All the application-wide components needed by our compiler actors.
+   * @param jobLog The durable copy of our records.
+   * @param metricsRegistry The registry our metrics are reported to.
+   */
+  @Inject
+  public JobRegistry(
+      Config config,
+      ApplicationLifecycle lifecycle,
+      ActorSystem actorSystem,
+      Materializer materializer,
+      CompilerActorFactory compilerActorFactory,
+      CompilerServices compilerServices,
+      JobLog jobLog,
+      MetricsRegistry metricsRegistry) {
+    Config jobsConfig = config.getConfig("webapi.compiler.jobs");
+    myActorSystem = actorSystem;
+    myCompilerActorFactory = compilerActorFactory;
+    myEvictionExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "job-registry");
+              thread.setDaemon(true);
+              return thread;
+            });
+    myFrameBufferSize = compilerServices.getFrameBufferSize();
+    myJobLog = jobLog;
+    myMaxRecords = jobsConfig.getInt("maxRecords");
+    myParallelism = Math.max(1, jobsConfig.getInt("parallelism"));
+    myRecords = new ConcurrentHashMap<>();
+    myRetention = jobsConfig.getDuration("retention", TimeUnit.NANOSECONDS);
+    myStreamMaterializer = materializer;
+    myTimeout = jobsConfig.getDuration("requestTimeout");
+
+    metricsRegistry.gauge("jobs.records", myRecords::size);
+
+    // Bring back the records that were kept before we were restarted
+    for (JobRecord record : myJobLog.recover()) {
+      myRecords.put(record.getId(), record);
+    }
+
+    myEvictionExecutor.scheduleWithFixedDelay(this::evict, 1, 1, TimeUnit.MINUTES);
+    lifecycle.addStopHook(
+        () -> {
+          myEvictionExecutor.shutdownNow();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method looks up a submitted job's record.
+   *
+   * @param id The job's unique id.
+   * @return The job's record if it exists (and hasn't expired).
+   */
+  public final Optional<JobRecord> get(String id) {
+    return Optional.ofNullable(myRecords.get(id));
+  }
+
+  /**
+   * This method creates a stream that compiles each of the specified messages and emits every frame
+   * their compiler actors send back. Each frame is tagged with the {@code index} of the message it
+   * belongs to, since up to {@code webapi.compiler.jobs.parallelism} messages are compiled at the
+   * same time and their frames are interleaved. Nothing is compiled until the stream is run and
+   * cancelling the stream stops the running compiler actors.
+   *
+   * @param job Name of the job to be executed.
+   * @param project RESOLVE project folder to be used.
+   * @param clientId Identifies the client (IP address or session) that sent the request.
+   * @param payloads The JSON encoded {@code CompilerMessages}.
+   * @return A stream of frames.
+   */
+  public final Source<JsonNode, NotUsed> run(
+      String job, String project, String clientId, List<JsonNode> payloads) {
+    List<Source<JsonNode, NotUsed>> requests = new ArrayList<>();
+    for (int i = 0; i < payloads.size(); i++) {
+      requests.add(runRequest(job, project, clientId, i, payloads.get(i)));
+    }
+
+    return Source.from(requests).flatMapMerge(myParallelism, request -> request);
+  }
+
+  /**
+   * This method starts compiling each of the specified messages in the background and collects
+   * every frame (see {@link #run}) in a new record.
+   *
+   * @param job Name of the job to be executed.
+   * @param project RESOLVE project folder to be used.
+   * @param clientId Identifies the client (IP address or session) that sent the request.
+   * @param payloads The JSON encoded {@code CompilerMessages}.
+   * @return The job's new record or an empty {@link Optional} if we already have {@code
+   *     webapi.compiler.jobs.maxRecords} records.
+   */
+  public final Optional<JobRecord> submit(
+      String job, String project, String clientId, List<JsonNode> payloads) {
+    // Reserve the record's slot, so concurrent submissions can't go past the limit
+    JobRecord record = new JobRecord(UUID.randomUUID().toString(), job, project);
+    synchronized (this) {
+      if (myRecords.size() >= myMaxRecords) {
+        removeExpired();
+        if (myRecords.size() >= myMaxRecords) {
+          return Optional.empty();
+        }
+      }
+      myRecords.put(record.getId(), record);
+    }
+
+    myJobLog.start(record);
+    run(job, project, clientId, payloads)
+        .runWith(
+            Sink.foreach(frame -> myJobLog.frame(record.getId(), record.append(frame), frame)),
+            myStreamMaterializer)
+        .whenComplete(
+            (done, throwable) -> {
+              myJobLog.done(record.getId());
+              record.complete();
+            });
+
+    return Optional.of(record);
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that removes the expired records and lets the log drop their entries. This
+   * method is executed by the eviction thread, so compacting the log never delays a request.
+   */
+  private void evict() {
+    removeExpired();
+    myJobLog.compact(myRecords.keySet());
+  }
+
+  /**
+   * An helper method that removes the records whose jobs have been done for longer than {@code
+   * webapi.compiler.jobs.retention}.
+   */
+  private synchronized void removeExpired() {
+    long now = System.nanoTime();
+    myRecords
+        .values()
+        .removeIf(record -> record.isDone() && now - record.getFinishTime() > myRetention);
+  }
+
+  /**
+   * An helper method that sends a single message through a compiler actor. Just like a {@code
+   * WebSocket}, our end of the stream is kept open until the actor closes it. Frames that aren't
+   * consumed fast enough are buffered (see {@link CompilerServices#getFrameBufferSize()}) and the
+   * request ends with an error frame if the buffer overflows, rather than silently losing frames.
+   *
+   * @param job Name of the job to be executed.
+   * @param project RESOLVE project folder to be used.
+   * @param clientId Identifies the client (IP address or session) that sent the request.
+   * @param index The message's position in the request.
+   * @param payload The JSON encoded {@code CompilerMessage}.
+   * @return A stream of frames tagged with {@code index}.
+   */
+  private Source<JsonNode, NotUsed> runRequest(
+      String job, String project, String clientId, int index, JsonNode payload) {
+    return Source.single(payload)
+        .concat(Source.maybe())
+        .via(
+            ActorFlow.<JsonNode, JsonNode>actorRef(
+                out -> myCompilerActorFactory.props(out, job, project, clientId),
+                myFrameBufferSize,
+                OverflowStrategy.fail(),
+                myActorSystem,
+                myStreamMaterializer))
+        .completionTimeout(myTimeout)
+        .recover(
+            new PFBuilder<Throwable, JsonNode>()
+                .match(
+                    TimeoutException.class,
+                    e -> {
+                      ObjectNode result = Json.newObject();
+                      result.put("status", "error");
+                      result.put("msg", "Compile request timed out after " + myTimeout);
+                      return result;
+                    })
+                .match(
+                    BufferOverflowException.class,
+                    e -> {
+                      ObjectNode result = Json.newObject();
+                      result.put("status", "error");
+                      result.put(
+                          "msg", "Compile request fell " + myFrameBufferSize + " frames behind");
+                      return result;
+                    })
+                .build())
+        .map(
+            frame -> {
+              if (frame instanceof ObjectNode) {
+                ((ObjectNode) frame).put("index", index);
+              }
+              return frame;
+            })
+        .mapMaterializedValue(m -> NotUsed.getInstance());
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.inject.Singleton;
+
+/**
+ * This singleton class keeps track of the metrics reported by {@code /metrics}. Components either
+ * register a gauge (a function that is evaluated every time the metrics are read), update a counter
+ * or record a single value.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class MetricsRegistry {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** A map from counter names to their current count. */
+  private final Map<String, LongAdder> myCounters;
+
+  /** A map from gauge names to the function that computes their value. */
+  private final Map<String, Supplier<Number>> myGauges;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /** This creates an empty registry. */
+  public MetricsRegistry() {
+    myCounters = new ConcurrentHashMap<>();
+    myGauges = new ConcurrentHashMap<>();
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns a counter, creating it if necessary.
+   *
+   * @param name The counter's name.
+   * @return A {@link LongAdder} that can be safely updated by any thread.
+   */
+  public final LongAdder counter(String name) {
+    return myCounters.computeIfAbsent(name, key -> new LongAdder());
+  }
+
+  /**
+   * This method registers a gauge. Registering a gauge with an existing name replaces it.
+   *
+   * @param name The gauge's name.
+   * @param supplier The function that computes the gauge's current value.
+   */
+  public final void gauge(String name, Supplier<Number> supplier) {
+    myGauges.put(name, supplier);
+  }
+
+  /**
+   * This method records a single value.
+   *
+   * @param name The metric's name.
+   * @param value The metric's value.
+   */
+  public final void set(String name, Number value) {
+    gauge(name, () -> value);
+  }
+
+  /**
+   * This method returns the current value of every metric.
+   *
+   * @return A map (sorted by name) from metric names to their values.
+   */
+  public final Map<String, Number> snapshot() {
+    Map<String, Number> snapshot = new TreeMap<>();
+    for (Map.Entry<String, LongAdder> entry : myCounters.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().sum());
+    }
+    for (Map.Entry<String, Supplier<Number>> entry : myGauges.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().get());
+    }
+
+    return snapshot;
+  }
+}
@@ -0,0 +1,298 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.output;
+
+import com.typesafe.config.Config;
+import compiler.metrics.MetricsRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * This singleton class keeps the compilation results that are too large to be sent through a
+ * {@code WebSocket} (for example: a long {@code Java} translation or the {@code VC} generator's
+ * verbose output). Each of them is written to its own file in {@code
+ * webapi.compiler.output.spillDir} and can be downloaded using its id for {@code
+ * webapi.compiler.output.linkTtl}. Expired files are removed in the background.
+ *
+ * <p>Outputs are encoded straight from the compiler's string into a small reusable buffer that is
+ * written using a {@link FileChannel}, so spilling an output never makes a second copy of it.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class OutputSpillStore {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The size of the buffer used to encode an output before writing it. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** The file name extension of every spilled output. */
+  private static final String EXTENSION = ".out";
+
+  /** The single thread that removes the expired outputs. */
+  private final ScheduledExecutorService myEvictionExecutor;
+
+  /** Logger for the spilled output related items. */
+  private final Logger myLogger;
+
+  /** A map from the output ids to the outputs that can still be downloaded. */
+  private final Map<String, SpilledOutput> myOutputs;
+
+  /** The directory containing the spilled outputs ({@code null} if spilling is disabled). */
+  private final Path mySpillDir;
+
+  /** The number of bytes that have been spilled. */
+  private final LongAdder mySpilledBytes;
+
+  /** Outputs longer than this (in characters) are spilled ({@code 0} means never). */
+  private final long myThreshold;
+
+  /** Amount of time (in nanoseconds) an output can be downloaded once it is spilled. */
+  private final long myTtl;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates the store using the {@code webapi.compiler.output} settings.
+   *
+   * @param config The configuration manager.
+   * @param lifecycle The application's lifecycle, used to remove our files on shutdown.
+   * @param metricsRegistry The registry our metrics are reported to.
+   */
+  @Inject
+  public OutputSpillStore(
+      Config config, ApplicationLifecycle lifecycle, MetricsRegistry metricsRegistry) {
+    Config outputConfig = config.getConfig("webapi.compiler.output");
+    myEvictionExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "output-spill-store");
+              thread.setDaemon(true);
+              return thread;
+            });
+    myLogger = LoggerFactory.getLogger(OutputSpillStore.class);
+    myOutputs = new ConcurrentHashMap<>();
+    mySpilledBytes = metricsRegistry.counter("outputs.spilledBytes");
+    myTtl = outputConfig.getDuration("linkTtl", TimeUnit.NANOSECONDS);
+
+    // Outputs are sent through the WebSocket if we don't have anywhere to put them
+    long threshold = outputConfig.getBytes("spillThreshold");
+    Path spillDir = null;
+    if (threshold > 0) {
+      try {
+        spillDir = createSpillDir(outputConfig.getString("spillDir"));
+      } catch (IOException e) {
+        myLogger.warn("Unable to create the spill directory, outputs won't be spilled", e);
+        threshold = 0;
+      }
+    }
+    mySpillDir = spillDir;
+    myThreshold = threshold;
+
+    metricsRegistry.gauge("outputs.spilled", myOutputs::size);
+
+    myEvictionExecutor.scheduleWithFixedDelay(this::evict, 30, 30, TimeUnit.SECONDS);
+    lifecycle.addStopHook(
+        () -> {
+          myEvictionExecutor.shutdownNow();
+          for (SpilledOutput output : myOutputs.values()) {
+            delete(output.getPath());
+          }
+          myOutputs.clear();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method looks up a spilled output.
+   *
+   * @param id The output's unique id.
+   * @return The output if it exists (and hasn't expired).
+   */
+  public final Optional<SpilledOutput> get(String id) {
+    SpilledOutput output = myOutputs.get(id);
+    if (output == null || output.isExpired(System.nanoTime())) {
+      return Optional.empty();
+    }
+
+    return Optional.of(output);
+  }
+
+  /**
+   * This method returns the amount of time an output can be downloaded once it is spilled.
+   *
+   * @return The time to live in seconds.
+   */
+  public final long getTtlSeconds() {
+    return TimeUnit.NANOSECONDS.toSeconds(myTtl);
+  }
+
+  /**
+   * Checks to see if an output is too large to be sent through the {@code WebSocket}.
+   *
+   * @param content The output generated by the compiler.
+   * @return {@code true} if it should be spilled, {@code false} otherwise.
+   */
+  public final boolean shouldSpill(String content) {
+    return myThreshold > 0 && content.length() > myThreshold;
+  }
+
+  /**
+   * This method writes an output to a new file in the spill directory.
+   *
+   * @param fileName Name of the output file reported by the compiler.
+   * @param content The output generated by the compiler.
+   * @return The spilled output.
+   * @throws IOException If the output couldn't be written.
+   */
+  public final SpilledOutput spill(String fileName, String content) throws IOException {
+    if (mySpillDir == null) {
+      throw new IOException("Spilling outputs is disabled");
+    }
+
+    String id = UUID.randomUUID().toString();
+    Path path = mySpillDir.resolve(id + EXTENSION);
+    CharsetEncoder encoder =
+        StandardCharsets.UTF_8
+            .newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    CharBuffer chars = CharBuffer.wrap(content);
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    long size = 0;
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      while (encoder.encode(chars, buffer, true).isOverflow()) {
+        size += write(channel, buffer);
+      }
+      while (encoder.flush(buffer).isOverflow()) {
+        size += write(channel, buffer);
+      }
+      size += write(channel, buffer);
+    } catch (IOException | RuntimeException e) {
+      delete(path);
+      throw e;
+    }
+
+    SpilledOutput output = new SpilledOutput(id, fileName, path, size, System.nanoTime() + myTtl);
+    myOutputs.put(id, output);
+    mySpilledBytes.add(size);
+
+    return output;
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that creates the spill directory. A configured directory is reused, so the
+   * outputs left behind by a previous run are removed.
+   *
+   * @param spillDir The configured directory (a new temporary directory is used if it is empty).
+   * @return The spill directory.
+   * @throws IOException If the directory couldn't be created.
+   */
+  private Path createSpillDir(String spillDir) throws IOException {
+    if (spillDir.isEmpty()) {
+      Path dir = Files.createTempDirectory("webapi-outputs");
+      dir.toFile().deleteOnExit();
+      return dir;
+    }
+
+    Path dir = Paths.get(spillDir);
+    Files.createDirectories(dir);
+    try (Stream<Path> stream = Files.list(dir)) {
+      stream
+          .filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+          .forEach(this::delete);
+    }
+
+    return dir;
+  }
+
+  /**
+   * An helper method that removes a spilled output's file.
+   *
+   * @param path The file to be removed.
+   */
+  private void delete(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      myLogger.warn("Unable to remove the spilled output: {}", path, e);
+    }
+  }
+
+  /** An helper method that removes the outputs that can't be downloaded anymore. */
+  private void evict() {
+    long now = System.nanoTime();
+    for (SpilledOutput output : myOutputs.values()) {
+      if (output.isExpired(now) && myOutputs.remove(output.getId(), output)) {
+        delete(output.getPath());
+      }
+    }
+  }
+
+  /**
+   * An helper method that writes everything in the buffer to the file and empties the buffer.
+   *
+   * @param channel The spilled output's file.
+   * @param buffer A buffer that is being filled.
+   * @return The number of bytes written.
+   * @throws IOException If the bytes couldn't be written.
+   */
+  private static long write(FileChannel channel, ByteBuffer buffer) throws IOException {
+    long written = 0;
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      written += channel.write(buffer);
+    }
+    buffer.clear();
+
+    return written;
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.output;
+
+import java.nio.file.Path;
+
+/**
+ * This class describes a compilation result (for example: a {@code Java} translation) that was too
+ * large to be sent through the {@code WebSocket} and was written to a file by the {@link
+ * OutputSpillStore} instead. The client downloads it using its id until it expires.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class SpilledOutput {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The time (in nanoseconds) after which the output can't be downloaded anymore. */
+  private final long myExpiryTime;
+
+  /** Name of the output file reported by the compiler. */
+  private final String myFileName;
+
+  /** The output's unique id. */
+  private final String myId;
+
+  /** The file that holds the {@code UTF-8} encoded output. */
+  private final Path myPath;
+
+  /** The output's size in bytes. */
+  private final long mySize;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a new description of a spilled output.
+   *
+   * @param id The output's unique id.
+   * @param fileName Name of the output file reported by the compiler.
+   * @param path The file that holds the {@code UTF-8} encoded output.
+   * @param size The output's size in bytes.
+   * @param expiryTime The time (in nanoseconds) after which the output can't be downloaded anymore.
+   */
+  SpilledOutput(String id, String fileName, Path path, long size, long expiryTime) {
+    myExpiryTime = expiryTime;
+    myFileName = fileName;
+    myId = id;
+    myPath = path;
+    mySize = size;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns the time after which the output can't be downloaded anymore.
+   *
+   * @return The expiry time in nanoseconds (see {@link System#nanoTime()}).
+   */
+  public final long getExpiryTime() {
+    return myExpiryTime;
+  }
+
+  /**
+   * This method returns the name of the output file reported by the compiler.
+   *
+   * @return The file name.
+   */
+  public final String getFileName() {
+    return myFileName;
+  }
+
+  /**
+   * This method returns the output's unique id.
+   *
+   * @return The id.
+   */
+  public final String getId() {
+    return myId;
+  }
+
+  /**
+   * This method returns the file that holds the output.
+   *
+   * @return The path to the {@code UTF-8} encoded output.
+   */
+  public final Path getPath() {
+    return myPath;
+  }
+
+  /**
+   * This method returns the output's size.
+   *
+   * @return The size in bytes.
+   */
+  public final long getSize() {
+    return mySize;
+  }
+
+  /**
+   * Checks to see if this output has expired.
+   *
+   * @param now The current time in nanoseconds.
+   * @return {@code true} if it can't be downloaded anymore, {@code false} otherwise.
+   */
+  public final boolean isExpired(long now) {
+    return now - myExpiryTime > 0;
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.scheduling;
+
+import com.typesafe.config.Config;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * This class adjusts how many {@link CompileJob CompileJobs} may run at the same time using an
+ * additive increase, multiplicative decrease ({@code AIMD}) rule. Every time a job finishes, the
+ * limit is multiplied by {@code backoffRatio} if the server shows signs of overload: either the
+ * {@code JVM} spent more than {@code gcPressureThreshold} of its time collecting garbage, or every
+ * slot was in use and the recent run time of the job's class is more than {@code
+ * latencyTolerance} times its usual run time. Otherwise, if the job had to compete for a slot, the
+ * limit grows by {@code 1 / limit} (roughly one slot per "round" of jobs). The limit always stays
+ * between {@code minLimit} and the scheduler's capacity.
+ *
+ * <p>The jobs that were already running when the limit backed off were started under the old limit
+ * and will keep reporting the same overload for a while. So after backing off, the limit doesn't
+ * back off again until a full round of jobs (as many as the old limit allowed) has finished.
+ *
+ * <p>(Note: This class isn't thread-safe. It is only accessed while holding the {@link
+ * CompileJobScheduler CompileJobScheduler's} lock.)
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+class AdaptiveConcurrencyLimit {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Number of jobs that still have to finish before the limit may back off again. */
+  private int myBackoffCooldown;
+
+  /** Factor the limit is multiplied by when the server is overloaded. */
+  private final double myBackoffRatio;
+
+  /** Flag that indicates the limit is allowed to change. */
+  private final boolean myEnabledFlag;
+
+  /** The {@code JVM's} garbage collectors. */
+  private final List<GarbageCollectorMXBean> myGarbageCollectors;
+
+  /** Fraction of time above which the garbage collector is considered a sign of overload. */
+  private final double myGcPressureThreshold;
+
+  /** Fraction of time spent collecting garbage during the last sample. */
+  private double myGcPressure;
+
+  /** Total garbage collection time (in milliseconds) at the last sample. */
+  private long myLastGcTime;
+
+  /** Wall clock time (in milliseconds) of the last sample. */
+  private long myLastSampleTime;
+
+  /** Ratio between a class's recent and usual run times that is considered a sign of overload. */
+  private final double myLatencyTolerance;
+
+  /** The current limit. */
+  private double myLimit;
+
+  /** The largest value the limit can take. */
+  private final int myMaxLimit;
+
+  /** The smallest value the limit can take. */
+  private final int myMinLimit;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a limit that starts at the scheduler's capacity.
+   *
+   * @param limitConfig The {@code webapi.compiler.scheduler.adaptiveLimit} settings.
+   * @param maxLimit The scheduler's capacity.
+   */
+  AdaptiveConcurrencyLimit(Config limitConfig, int maxLimit) {
+    myBackoffCooldown = 0;
+    myBackoffRatio = limitConfig.getDouble("backoffRatio");
+    myEnabledFlag = limitConfig.getBoolean("enabled");
+    myGarbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+    myGcPressureThreshold = limitConfig.getDouble("gcPressureThreshold");
+    myGcPressure = 0;
+    myLastGcTime = getTotalGcTime();
+    myLastSampleTime = System.currentTimeMillis();
+    myLatencyTolerance = limitConfig.getDouble("latencyTolerance");
+    myLimit = maxLimit;
+    myMaxLimit = maxLimit;
+    myMinLimit = Math.max(1, Math.min(maxLimit, limitConfig.getInt("minLimit")));
+  }
+
+  // ===========================================================
+  // Package Private Methods
+  // ===========================================================
+
+  /**
+   * This method returns the fraction of time the {@code JVM} spent collecting garbage during the
+   * last sample.
+   *
+   * @return A value between {@code 0} and {@code 1}.
+   */
+  final double getGcPressure() {
+    return myGcPressure;
+  }
+
+  /**
+   * This method returns the number of jobs currently allowed to run at the same time.
+   *
+   * @return The current limit.
+   */
+  final int getLimit() {
+    return (int) myLimit;
+  }
+
+  /**
+   * This method updates the limit after a job has finished running.
+   *
+   * @param jobClass The finished job's class (with its run time already recorded).
+   * @param saturated {@code true} if every allowed slot was in use when the job finished.
+   */
+  final void onComplete(CompileJobClass jobClass, boolean saturated) {
+    if (!myEnabledFlag) {
+      return;
+    }
+
+    sampleGcPressure();
+    if (myBackoffCooldown > 0) {
+      myBackoffCooldown--;
+    }
+
+    // A class that is slow while slots are free is slow on its own, fewer slots won't help
+    boolean slowedDown =
+        saturated
+            && jobClass.getFinishedJobs() >= 10
+            && jobClass.getShortRunTimeMillis()
+                > myLatencyTolerance * jobClass.getLongRunTimeMillis();
+    if (myGcPressure > myGcPressureThreshold || slowedDown) {
+      if (myBackoffCooldown == 0) {
+        myBackoffCooldown = (int) myLimit;
+        myLimit = Math.max(myMinLimit, myLimit * myBackoffRatio);
+      }
+    } else if (saturated) {
+      myLimit = Math.min(myMaxLimit, myLimit + 1.0 / myLimit);
+    }
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that returns the total time all garbage collectors have spent collecting.
+   *
+   * @return The collection time in milliseconds.
+   */
+  private long getTotalGcTime() {
+    long total = 0;
+    for (GarbageCollectorMXBean collector : myGarbageCollectors) {
+      total += Math.max(0, collector.getCollectionTime());
+    }
+
+    return total;
+  }
+
+  /**
+   * An helper method that updates the garbage collection pressure. To avoid being fooled by a
+   * single pause, we sample at most once per second.
+   */
+  private void sampleGcPressure() {
+    long now = System.currentTimeMillis();
+    long elapsed = now - myLastSampleTime;
+    if (elapsed >= 1000) {
+      long gcTime = getTotalGcTime();
+      myGcPressure = Math.min(1.0, (double) (gcTime - myLastGcTime) / elapsed);
+      myLastGcTime = gcTime;
+      myLastSampleTime = now;
+    }
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.scheduling;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class represents a single invocation of the compiler that is waiting for (or running on)
+ * one of the {@link CompileJobScheduler CompileJobScheduler's} threads.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class CompileJob {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Flag that indicates someone no longer wants this job to run. */
+  private volatile boolean myCancelledFlag;
+
+  /** This identifies the client (IP address or session) that requested this job. */
+  private final String myClientId;
+
+  /** This completes once the job has finished running (or will never run). */
+  private final CompletableFuture<Void> myCompletion;
+
+  /** Number of bytes of heap this job is expected to use. */
+  private long myHeapEstimate;
+
+  /** Number of characters in the user supplied files. */
+  private final long myInputSize;
+
+  /** This indicates the name of the job to be executed. */
+  private final String myJob;
+
+  /** The scheduling class this job was assigned to. */
+  private CompileJobClass myJobClass;
+
+  /** This indicates which {@code RESOLVE} project folder to use. */
+  private final String myProject;
+
+  /** Time (in nanoseconds) when this job was handed to the scheduler. */
+  private long mySubmitTime;
+
+  /** The work to be done. */
+  private final Runnable myTask;
+
+  /**
+   * The thread that is currently running this job (if any). Only read or written while holding
+   * this job's lock.
+   */
+  private Thread myWorkerThread;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a new compile job.
+   *
+   * @param job Name of the job to be executed.
+   * @param project RESOLVE project folder to be used.
+   * @param clientId Identifies the client (IP address or session) that requested this job.
+   * @param inputSize Number of characters in the user supplied files.
+   * @param task The work to be done.
+   */
+  public CompileJob(String job, String project, String clientId, long inputSize, Runnable task) {
+    myCancelledFlag = false;
+    myClientId = clientId;
+    myCompletion = new CompletableFuture<>();
+    myHeapEstimate = 0;
+    myInputSize = inputSize;
+    myJob = job;
+    myProject = project;
+    myTask = task;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns the identity of the client that requested this job.
+   *
+   * @return The client's IP address or session.
+   */
+  public final String getClientId() {
+    return myClientId;
+  }
+
+  /**
+   * This method returns the number of characters in the user supplied files.
+   *
+   * @return The input size.
+   */
+  public final long getInputSize() {
+    return myInputSize;
+  }
+
+  /**
+   * This method returns the name of the job to be executed.
+   *
+   * @return The job name.
+   */
+  public final String getJob() {
+    return myJob;
+  }
+
+  /**
+   * This method returns the {@code RESOLVE} project folder to be used.
+   *
+   * @return The project name.
+   */
+  public final String getProject() {
+    return myProject;
+  }
+
+  /**
+   * Checks to see if someone no longer wants this job to run.
+   *
+   * @return {@code true} if the job has been cancelled, {@code false} otherwise.
+   */
+  public final boolean isCancelled() {
+    return myCancelledFlag;
+  }
+
+  // ===========================================================
+  // Package Private Methods
+  // ===========================================================
+
+  /**
+   * This method marks the job as cancelled and interrupts the thread running it (if any).
+   *
+   * <p>The interrupt is sent while holding this job's lock, which {@link #run()} also holds while
+   * it forgets about its thread and clears the interrupt flag. Therefore, the interrupt either
+   * reaches this job or isn't sent at all, but never leaks into the next job run by the same
+   * pooled thread.
+   *
+   * @return {@code true} if the job hadn't completed yet, {@code false} otherwise.
+   */
+  final boolean cancel() {
+    synchronized (this) {
+      boolean wasCancelled = myCancelledFlag;
+      myCancelledFlag = true;
+      if (!wasCancelled && myWorkerThread != null && !myCompletion.isDone()) {
+        myWorkerThread.interrupt();
+      }
+    }
+
+    return myCompletion.completeExceptionally(new CancellationException("Compile job cancelled"));
+  }
+
+  /**
+   * This method returns the stage that completes once the job has finished running.
+   *
+   * @return The job's completion.
+   */
+  final CompletableFuture<Void> getCompletion() {
+    return myCompletion;
+  }
+
+  /**
+   * This method returns the number of bytes of heap this job is expected to use.
+   *
+   * @return The heap estimate.
+   */
+  final long getHeapEstimate() {
+    return myHeapEstimate;
+  }
+
+  /**
+   * This method returns the scheduling class this job was assigned to.
+   *
+   * @return The job's {@link CompileJobClass}.
+   */
+  final CompileJobClass getJobClass() {
+    return myJobClass;
+  }
+
+  /**
+   * This method returns the time when this job was handed to the scheduler.
+   *
+   * @return The submit time in nanoseconds.
+   */
+  final long getSubmitTime() {
+    return mySubmitTime;
+  }
+
+  /**
+   * This method runs the job on the current thread and completes the job's stage.
+   *
+   * @return The amount of time (in nanoseconds) spent running the job.
+   */
+  final long run() {
+    long start = System.nanoTime();
+    synchronized (this) {
+      myWorkerThread = Thread.currentThread();
+    }
+
+    try {
+      if (!myCancelledFlag) {
+        myTask.run();
+      }
+      myCompletion.complete(null);
+    } catch (Throwable t) {
+      myCompletion.completeExceptionally(t);
+    } finally {
+      // Don't let a cancellation leak into the next job run by this thread
+      synchronized (this) {
+        myWorkerThread = null;
+        Thread.interrupted();
+      }
+    }
+
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * This method records the number of bytes of heap this job is expected to use.
+   *
+   * @param heapEstimate The heap estimate.
+   */
+  final void setHeapEstimate(long heapEstimate) {
+    myHeapEstimate = heapEstimate;
+  }
+
+  /**
+   * This method records the scheduling class this job was assigned to.
+   *
+   * @param jobClass The job's {@link CompileJobClass}.
+   */
+  final void setJobClass(CompileJobClass jobClass) {
+    myJobClass = jobClass;
+  }
+
+  /**
+   * This method records the time when this job was handed to the scheduler.
+   *
+   * @param submitTime The submit time in nanoseconds.
+   */
+  final void setSubmitTime(long submitTime) {
+    mySubmitTime = submitTime;
+  }
+}
@@ -0,0 +1,295 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.scheduling;
+
+import java.util.Map;
+
+/**
+ * This class represents a group of jobs that share the same scheduling priority (for example: the
+ * interactive {@code analyze} jobs or the batch-like {@code ccverify} jobs). Each class has its own
+ * queue and a number of reserved slots that it is always allowed to use, no matter how many jobs of
+ * a higher priority are waiting. Within a class, the slots are shared fairly across projects and
+ * clients using a {@link FairShareQueue}.
+ *
+ * <p>(Note: Everything except the name, priority and reserved slots must only be accessed while
+ * holding the {@link CompileJobScheduler CompileJobScheduler's} lock.)
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class CompileJobClass {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Number of jobs of this class currently running. */
+  private int myActiveJobs;
+
+  /** Moving average (in nanoseconds) of the time jobs spent waiting in the queue. */
+  private double myAverageQueueWait;
+
+  /** Number of jobs of this class that have been started. */
+  private long myDispatchedJobs;
+
+  /** Number of run times that have been recorded. */
+  private long myFinishedJobs;
+
+  /** Slow moving average (in nanoseconds) of the time jobs spent running. */
+  private double myLongRunTime;
+
+  /** The longest time (in nanoseconds) a job spent waiting in the queue. */
+  private long myMaxQueueWait;
+
+  /** The class's name. */
+  private final String myName;
+
+  /** The class's priority ({@code 0} is the highest priority). */
+  private final int myPriority;
+
+  /** Jobs of this class waiting for a free slot. */
+  private final FairShareQueue myQueue;
+
+  /** Number of slots this class may always use. */
+  private final int myReservedSlots;
+
+  /** Fast moving average (in nanoseconds) of the time jobs spent running. */
+  private double myShortRunTime;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a new job class.
+   *
+   * @param name The class's name.
+   * @param priority The class's priority ({@code 0} is the highest priority).
+   * @param reservedSlots Number of slots this class may always use.
+   * @param projectWeights A map from project names to their fair share weights.
+   * @param defaultProjectWeight The fair share weight of any project that isn't listed.
+   */
+  CompileJobClass(
+      String name,
+      int priority,
+      int reservedSlots,
+      Map<String, Double> projectWeights,
+      double defaultProjectWeight) {
+    myActiveJobs = 0;
+    myAverageQueueWait = 0;
+    myDispatchedJobs = 0;
+    myFinishedJobs = 0;
+    myLongRunTime = 0;
+    myMaxQueueWait = 0;
+    myName = name;
+    myPriority = priority;
+    myQueue = new FairShareQueue(projectWeights, defaultProjectWeight);
+    myReservedSlots = reservedSlots;
+    myShortRunTime = 0;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns the class's name.
+   *
+   * @return The name.
+   */
+  public final String getName() {
+    return myName;
+  }
+
+  /**
+   * This method returns the class's priority.
+   *
+   * @return The priority ({@code 0} is the highest priority).
+   */
+  public final int getPriority() {
+    return myPriority;
+  }
+
+  /**
+   * This method returns the number of slots this class may always use.
+   *
+   * @return The number of reserved slots.
+   */
+  public final int getReservedSlots() {
+    return myReservedSlots;
+  }
+
+  // ===========================================================
+  // Package Private Methods
+  // ===========================================================
+
+  /**
+   * This method adds a job to this class's queue.
+   *
+   * @param job The job to be queued.
+   */
+  final void add(CompileJob job) {
+    myQueue.add(job);
+  }
+
+  /**
+   * This method returns the number of jobs of this class currently running.
+   *
+   * @return The number of active jobs.
+   */
+  final int getActiveJobs() {
+    return myActiveJobs;
+  }
+
+  /**
+   * This method returns the moving average of the time jobs spent waiting in the queue.
+   *
+   * @return The average queue wait in milliseconds.
+   */
+  final double getAverageQueueWaitMillis() {
+    return myAverageQueueWait / 1_000_000.0;
+  }
+
+  /**
+   * This method returns the number of jobs of this class that have been started.
+   *
+   * @return The number of dispatched jobs.
+   */
+  final long getDispatchedJobs() {
+    return myDispatchedJobs;
+  }
+
+  /**
+   * This method returns the number of run times that have been recorded.
+   *
+   * @return The number of finished jobs.
+   */
+  final long getFinishedJobs() {
+    return myFinishedJobs;
+  }
+
+  /**
+   * This method returns the slow moving average of the time jobs spent running. This is what a job
+   * of this class usually costs.
+   *
+   * @return The average run time in milliseconds.
+   */
+  final double getLongRunTimeMillis() {
+    return myLongRunTime / 1_000_000.0;
+  }
+
+  /**
+   * This method returns the longest time a job spent waiting in the queue.
+   *
+   * @return The maximum queue wait in milliseconds.
+   */
+  final double getMaxQueueWaitMillis() {
+    return myMaxQueueWait / 1_000_000.0;
+  }
+
+  /**
+   * This method returns the number of jobs of this class waiting for a free slot.
+   *
+   * @return The queue depth.
+   */
+  final int getQueueDepth() {
+    return myQueue.size();
+  }
+
+  /**
+   * This method returns the fast moving average of the time jobs spent running. This is what a job
+   * of this class costs right now.
+   *
+   * @return The average run time in milliseconds.
+   */
+  final double getShortRunTimeMillis() {
+    return myShortRunTime / 1_000_000.0;
+  }
+
+  /**
+   * Checks to see if this class has jobs waiting for a free slot.
+   *
+   * @return {@code true} if the queue is empty, {@code false} otherwise.
+   */
+  final boolean isEmpty() {
+    return myQueue.isEmpty();
+  }
+
+  /**
+   * This method returns the job that should be served next from this class's queue without removing
+   * it.
+   *
+   * @return The next job or {@code null} if the queue is empty.
+   */
+  final CompileJob peek() {
+    return myQueue.peek();
+  }
+
+  /**
+   * This method removes the job that should be served next from this class's queue and counts it
+   * as running.
+   *
+   * @param now The current time in nanoseconds.
+   * @return The job to be started.
+   */
+  final CompileJob poll(long now) {
+    CompileJob job = myQueue.poll();
+    long wait = now - job.getSubmitTime();
+    myActiveJobs++;
+    myAverageQueueWait =
+        myDispatchedJobs == 0 ? wait : myAverageQueueWait + 0.2 * (wait - myAverageQueueWait);
+    myDispatchedJobs++;
+    myMaxQueueWait = Math.max(myMaxQueueWait, wait);
+
+    return job;
+  }
+
+  /**
+   * This method records how long a job of this class spent running.
+   *
+   * @param runTime The job's run time in nanoseconds.
+   */
+  final void recordRunTime(long runTime) {
+    if (myFinishedJobs == 0) {
+      myLongRunTime = runTime;
+      myShortRunTime = runTime;
+    } else {
+      myLongRunTime += 0.02 * (runTime - myLongRunTime);
+      myShortRunTime += 0.3 * (runTime - myShortRunTime);
+    }
+    myFinishedJobs++;
+  }
+
+  /** This method marks a running job of this class as finished. */
+  final void release() {
+    myActiveJobs--;
+  }
+
+  /**
+   * This method removes a job from this class's queue (if it is there).
+   *
+   * @param job The job to be removed.
+   * @return {@code true} if the job was queued, {@code false} otherwise.
+   */
+  final boolean remove(CompileJob job) {
+    return myQueue.remove(job);
+  }
+
+  /**
+   * This method returns the number of this class's reserved slots that aren't being used.
+   *
+   * @return The number of unused reserved slots.
+   */
+  final int unusedReservedSlots() {
+    return Math.max(0, myReservedSlots - myActiveJobs);
+  }
+}
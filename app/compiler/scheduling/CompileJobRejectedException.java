@@ -0,0 +1,58 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.scheduling;
+
+/**
+ * This exception indicates that the {@link CompileJobScheduler} didn't accept a {@link
+ * CompileJob} because the server is already at capacity.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class CompileJobRejectedException extends RuntimeException {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Number of seconds the client should wait before trying again. */
+  private final long myRetryAfterSeconds;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an exception with the specified message.
+   *
+   * @param message Message to be displayed.
+   * @param retryAfterSeconds Number of seconds the client should wait before trying again.
+   */
+  public CompileJobRejectedException(String message, long retryAfterSeconds) {
+    super(message);
+    myRetryAfterSeconds = retryAfterSeconds;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns how long the client should wait before trying again. This is our estimate
+   * of how long it takes for the current backlog to drain.
+   *
+   * @return The number of seconds.
+   */
+  public final long getRetryAfterSeconds() {
+    return myRetryAfterSeconds;
+  }
+}
@@ -0,0 +1,438 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.scheduling;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigUtil;
+import compiler.metrics.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * This singleton class runs all the {@link CompileJob CompileJobs} on its own threads. At most
+ * {@code webapi.compiler.scheduler.maxConcurrentJobs} jobs run at the same time; the rest wait in
+ * a queue of at most {@code webapi.compiler.scheduler.maxQueuedJobs} jobs. Jobs that don't fit in
+ * the queue are rejected with a {@link CompileJobRejectedException}.
+ *
+ * <p>Each job belongs to one of the {@link CompileJobClass CompileJobClasses} listed in {@code
+ * webapi.compiler.scheduler.classes} (highest priority first). Whenever a slot frees up, a class
+ * that is using fewer than its reserved slots is served first. Otherwise, the slot goes to the
+ * highest priority class with a waiting job, as long as that doesn't take a slot reserved for
+ * another class. This lets short interactive jobs overtake long batch-like jobs without starving
+ * them. Within a class, jobs are shared fairly across projects (weighted using {@code
+ * webapi.compiler.scheduler.fairShare.projectWeights}) and then across clients, so a single
+ * project or client can't monopolize the slots.
+ *
+ * <p>The number of jobs allowed to run at the same time adapts to the observed compile latency and
+ * garbage collection pressure (see {@link AdaptiveConcurrencyLimit}). Jobs that would wait longer
+ * than {@code webapi.compiler.scheduler.maxQueueWait} are rejected right away, along with an
+ * estimate of when to try again, rather than piling up in the queue.
+ *
+ * <p>Jobs are also held in the queue until their estimated heap cost fits in {@code
+ * webapi.compiler.scheduler.heapBudget} (see {@link HeapBudget}). A few large {@code ccverify}
+ * jobs can't run out of memory together, while small jobs keep using the remaining slots.
+ *
+ * <p>Running the compiler here (rather than on {@code Akka's} dispatcher threads) keeps the
+ * {@code WebSockets} responsive and lets us report how saturated the server is.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class CompileJobScheduler {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Number of jobs currently running. */
+  private int myActiveJobs;
+
+  /** Maximum number of jobs allowed to run at the same time. */
+  private final int myCapacity;
+
+  /** The class used for jobs that aren't listed in any class. */
+  private final CompileJobClass myDefaultJobClass;
+
+  /** The threads that run our jobs. */
+  private final ExecutorService myExecutor;
+
+  /** The heap the running jobs are projected to use. */
+  private final HeapBudget myHeapBudget;
+
+  /** All the job classes (highest priority first). */
+  private final List<CompileJobClass> myJobClasses;
+
+  /** A map from job names to the class they belong to. */
+  private final Map<String, CompileJobClass> myJobClassesByJob;
+
+  /** The number of jobs currently allowed to run at the same time. */
+  private final AdaptiveConcurrencyLimit myLimit;
+
+  /** Maximum number of jobs allowed to wait in the queue. */
+  private final int myMaxQueuedJobs;
+
+  /** Longest estimated queue wait (in nanoseconds) before a job is rejected. */
+  private final long myMaxQueueWait;
+
+  /** Number of jobs waiting for a free slot (across all classes). */
+  private int myQueuedJobs;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a scheduler using the {@code webapi.compiler.scheduler} settings.
+   *
+   * @param config The configuration manager.
+   * @param lifecycle The application's lifecycle, used to stop our threads on shutdown.
+   * @param metricsRegistry The registry our queue and capacity metrics are reported to.
+   */
+  @Inject
+  public CompileJobScheduler(
+      Config config, ApplicationLifecycle lifecycle, MetricsRegistry metricsRegistry) {
+    Config schedulerConfig = config.getConfig("webapi.compiler.scheduler");
+    int maxConcurrentJobs = schedulerConfig.getInt("maxConcurrentJobs");
+
+    myActiveJobs = 0;
+    myCapacity =
+        maxConcurrentJobs > 0 ? maxConcurrentJobs : Runtime.getRuntime().availableProcessors();
+    String backend = config.getString("webapi.compiler.backend").toLowerCase();
+    myHeapBudget =
+        new HeapBudget(
+            schedulerConfig.getConfig("heapBudget"),
+            !backend.equals("cluster") && !backend.equals("forked"));
+    myLimit =
+        new AdaptiveConcurrencyLimit(schedulerConfig.getConfig("adaptiveLimit"), myCapacity);
+    myMaxQueuedJobs = schedulerConfig.getInt("maxQueuedJobs");
+    myMaxQueueWait = schedulerConfig.getDuration("maxQueueWait").toNanos();
+    myQueuedJobs = 0;
+
+    // Fair share weights
+    Config fairShareConfig = schedulerConfig.getConfig("fairShare");
+    Map<String, Double> projectWeights = new HashMap<>();
+    Config projectWeightsConfig = fairShareConfig.getConfig("projectWeights");
+    for (String project : projectWeightsConfig.root().keySet()) {
+      projectWeights.put(project, projectWeightsConfig.getDouble(ConfigUtil.quoteString(project)));
+    }
+    double defaultProjectWeight = fairShareConfig.getDouble("defaultProjectWeight");
+
+    // Job classes (in priority order)
+    List<CompileJobClass> jobClasses = new ArrayList<>();
+    Map<String, CompileJobClass> jobClassesByName = new HashMap<>();
+    myJobClassesByJob = new HashMap<>();
+    for (Config classConfig : schedulerConfig.getConfigList("classes")) {
+      CompileJobClass jobClass =
+          new CompileJobClass(
+              classConfig.getString("name"),
+              jobClasses.size(),
+              classConfig.getInt("reservedSlots"),
+              projectWeights,
+              defaultProjectWeight);
+      jobClasses.add(jobClass);
+      jobClassesByName.put(jobClass.getName(), jobClass);
+      for (String job : classConfig.getStringList("jobs")) {
+        myJobClassesByJob.put(job.toLowerCase(), jobClass);
+      }
+    }
+    myJobClasses = Collections.unmodifiableList(jobClasses);
+
+    String defaultClass = schedulerConfig.getString("defaultClass");
+    myDefaultJobClass = jobClassesByName.get(defaultClass);
+    if (myDefaultJobClass == null) {
+      throw new IllegalArgumentException("Unknown default job class: " + defaultClass);
+    }
+
+    AtomicInteger threadCount = new AtomicInteger();
+    myExecutor =
+        Executors.newCachedThreadPool(
+            r -> {
+              Thread thread = new Thread(r, "compile-worker-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    metricsRegistry.gauge("scheduler.activeJobs", this::getActiveJobs);
+    metricsRegistry.gauge("scheduler.capacity", this::getCapacity);
+    metricsRegistry.gauge("scheduler.gcPressure", locked(myLimit::getGcPressure));
+    metricsRegistry.gauge("scheduler.heapBudgetBytes", myHeapBudget::getBudget);
+    metricsRegistry.gauge("scheduler.heapReservedBytes", locked(myHeapBudget::getReservedBytes));
+    metricsRegistry.gauge("scheduler.limit", this::getLimit);
+    metricsRegistry.gauge("scheduler.queueDepth", this::getQueueDepth);
+    for (CompileJobClass jobClass : myJobClasses) {
+      String prefix = "scheduler." + jobClass.getName() + ".";
+      metricsRegistry.gauge(prefix + "activeJobs", locked(jobClass::getActiveJobs));
+      metricsRegistry.gauge(
+          prefix + "averageQueueWaitMillis", locked(jobClass::getAverageQueueWaitMillis));
+      metricsRegistry.gauge(prefix + "dispatchedJobs", locked(jobClass::getDispatchedJobs));
+      metricsRegistry.gauge(prefix + "longRunTimeMillis", locked(jobClass::getLongRunTimeMillis));
+      metricsRegistry.gauge(prefix + "maxQueueWaitMillis", locked(jobClass::getMaxQueueWaitMillis));
+      metricsRegistry.gauge(prefix + "queueDepth", locked(jobClass::getQueueDepth));
+      metricsRegistry.gauge(
+          prefix + "shortRunTimeMillis", locked(jobClass::getShortRunTimeMillis));
+    }
+
+    lifecycle.addStopHook(
+        () -> {
+          myExecutor.shutdownNow();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method cancels a job. A queued job is removed from the queue and a running job has its
+   * thread interrupted.
+   *
+   * @param job The job to be cancelled.
+   * @return {@code true} if the job hadn't completed yet, {@code false} otherwise.
+   */
+  public final boolean cancel(CompileJob job) {
+    synchronized (this) {
+      if (job.getJobClass() != null && job.getJobClass().remove(job)) {
+        myQueuedJobs--;
+      }
+    }
+
+    return job.cancel();
+  }
+
+  /**
+   * This method returns the number of jobs currently running.
+   *
+   * @return The number of active jobs.
+   */
+  public final synchronized int getActiveJobs() {
+    return myActiveJobs;
+  }
+
+  /**
+   * This method returns the maximum number of jobs allowed to run at the same time.
+   *
+   * @return The scheduler's capacity.
+   */
+  public final int getCapacity() {
+    return myCapacity;
+  }
+
+  /**
+   * This method returns the class a job with the specified name belongs to.
+   *
+   * @param job Name of the job to be executed.
+   * @return The job's {@link CompileJobClass}.
+   */
+  public final CompileJobClass getJobClass(String job) {
+    return myJobClassesByJob.getOrDefault(job.toLowerCase(), myDefaultJobClass);
+  }
+
+  /**
+   * This method returns the number of jobs currently allowed to run at the same time. This never
+   * exceeds the scheduler's capacity.
+   *
+   * @return The current concurrency limit.
+   */
+  public final synchronized int getLimit() {
+    return myLimit.getLimit();
+  }
+
+  /**
+   * This method returns the number of jobs waiting for a free slot.
+   *
+   * @return The queue depth.
+   */
+  public final synchronized int getQueueDepth() {
+    return myQueuedJobs;
+  }
+
+  /**
+   * This method hands a job to the scheduler. The job runs as soon as a slot is available.
+   *
+   * @param job The job to be executed.
+   * @return A stage that completes once the job has finished running. The stage completes
+   *     exceptionally with a {@link CompileJobRejectedException} if the queue is full or if the job
+   *     would wait too long for a free slot.
+   */
+  public final CompletionStage<Void> submit(CompileJob job) {
+    synchronized (this) {
+      CompileJobClass jobClass = getJobClass(job.getJob());
+      long queueWait = estimateQueueWait(jobClass);
+      if (myQueuedJobs >= myMaxQueuedJobs || (myMaxQueueWait > 0 && queueWait > myMaxQueueWait)) {
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(queueWait + 999_999_999L));
+        job.getCompletion()
+            .completeExceptionally(
+                new CompileJobRejectedException(
+                    "The server is currently busy. Please try again later!", retryAfter));
+      } else {
+        job.setHeapEstimate(myHeapBudget.estimate(job));
+        job.setJobClass(jobClass);
+        job.setSubmitTime(System.nanoTime());
+        job.getJobClass().add(job);
+        myQueuedJobs++;
+        dispatch();
+      }
+    }
+
+    return job.getCompletion();
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that starts queued jobs while there are free slots.
+   *
+   * <p>(Note: Must be called while holding this object's lock.)
+   */
+  private void dispatch() {
+    long now = System.nanoTime();
+    while (myActiveJobs < myLimit.getLimit()) {
+      CompileJobClass jobClass = selectJobClass();
+      if (jobClass == null) {
+        break;
+      }
+
+      CompileJob job = jobClass.poll(now);
+      myHeapBudget.reserve(job);
+      myQueuedJobs--;
+      myActiveJobs++;
+      myExecutor.execute(() -> run(job));
+    }
+  }
+
+  /**
+   * An helper method that estimates how long a new job of the specified class would wait for a free
+   * slot. Only the jobs that are served before it (queued jobs of the same or a higher priority)
+   * are counted, and each of them is assumed to take as long as a usual job of its class.
+   *
+   * <p>(Note: Must be called while holding this object's lock.)
+   *
+   * @param jobClass The new job's class.
+   * @return The estimated queue wait in nanoseconds.
+   */
+  private long estimateQueueWait(CompileJobClass jobClass) {
+    double work = 0;
+    for (CompileJobClass other : myJobClasses) {
+      if (other.getPriority() <= jobClass.getPriority()) {
+        work += other.getQueueDepth() * other.getLongRunTimeMillis();
+      }
+    }
+
+    return (long) (work * 1_000_000.0 / myLimit.getLimit());
+  }
+
+  /**
+   * An helper method that wraps a job class statistic so that it is read while holding this
+   * object's lock.
+   *
+   * @param statistic The statistic to be read.
+   * @return A {@link Supplier} for the metrics registry.
+   */
+  private Supplier<Number> locked(Supplier<Number> statistic) {
+    return () -> {
+      synchronized (this) {
+        return statistic.get();
+      }
+    };
+  }
+
+  /**
+   * An helper method that runs a job, frees its slot (and its share of the heap budget) afterwards
+   * and lets the concurrency limit and the heap cost estimates learn from the job.
+   *
+   * @param job The job to be executed.
+   */
+  private void run(CompileJob job) {
+    long allocatedBytes = -1;
+    long runTime = -1;
+    try {
+      long startAllocatedBytes = myHeapBudget.getAllocatedBytes();
+      runTime = job.run();
+      if (startAllocatedBytes >= 0) {
+        allocatedBytes = myHeapBudget.getAllocatedBytes() - startAllocatedBytes;
+      }
+    } finally {
+      synchronized (this) {
+        CompileJobClass jobClass = job.getJobClass();
+        boolean saturated = myActiveJobs >= myLimit.getLimit();
+        myActiveJobs--;
+        jobClass.release();
+        myHeapBudget.release(job, job.isCancelled() ? -1 : allocatedBytes);
+
+        // Cancelled jobs don't tell us anything about the server's load
+        if (runTime >= 0 && !job.isCancelled()) {
+          jobClass.recordRunTime(runTime);
+          myLimit.onComplete(jobClass, saturated);
+        }
+        dispatch();
+      }
+    }
+  }
+
+  /**
+   * An helper method that picks the class whose job should get the next free slot.
+   *
+   * <p>(Note: Must be called while holding this object's lock.)
+   *
+   * @return The selected {@link CompileJobClass} or {@code null} if no job should be started.
+   */
+  private CompileJobClass selectJobClass() {
+    // Classes that aren't using all of their reserved slots go first
+    for (CompileJobClass jobClass : myJobClasses) {
+      if (!jobClass.isEmpty()
+          && jobClass.getActiveJobs() < jobClass.getReservedSlots()
+          && myHeapBudget.fits(jobClass.peek(), myActiveJobs)) {
+        return jobClass;
+      }
+    }
+
+    // Otherwise, pick the highest priority class that won't take a
+    // slot that is reserved for another class with waiting jobs. Idle
+    // classes don't hold on to their reserved slots, so no slot stays
+    // free while a job is waiting. In both cases, the next job must fit
+    // in what is left of the heap budget.
+    int freeSlots = myLimit.getLimit() - myActiveJobs;
+    for (CompileJobClass jobClass : myJobClasses) {
+      if (!jobClass.isEmpty() && myHeapBudget.fits(jobClass.peek(), myActiveJobs)) {
+        int reservedForOthers = 0;
+        for (CompileJobClass other : myJobClasses) {
+          if (other != jobClass && !other.isEmpty()) {
+            reservedForOthers += other.unusedReservedSlots();
+          }
+        }
+
+        if (freeSlots > reservedForOthers) {
+          return jobClass;
+        }
+      }
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,314 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class is a two-level weighted fair queue for {@link CompileJob CompileJobs}. Jobs are first
+ * shared fairly across {@code RESOLVE} projects (in proportion to each project's weight) and then,
+ * within a project, equally across client identities. A project (or client) that submits a large
+ * batch of jobs therefore only gets its share of the slots, no matter how long its backlog is.
+ *
+ * <p>Both levels use start-time fair queueing: every time a flow is served, its finish tag moves
+ * forward by {@code 1 / weight} and the flow with the smallest start tag is served next. A flow
+ * that was idle starts at the current virtual time, so it can't build up credit while idle.
+ *
+ * <p>(Note: This class isn't thread-safe. It is only accessed while holding the {@link
+ * CompileJobScheduler CompileJobScheduler's} lock.)
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+class FairShareQueue {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The weight of any project that isn't listed in the project weights. */
+  private final double myDefaultProjectWeight;
+
+  /** A map from project names to their backlogged flows. */
+  private final Map<String, ProjectFlow> myProjectFlows;
+
+  /** A map from project names to their weights. */
+  private final Map<String, Double> myProjectWeights;
+
+  /** Number of queued jobs. */
+  private int mySize;
+
+  /** The virtual time across all projects. */
+  private double myVirtualTime;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an empty queue.
+   *
+   * @param projectWeights A map from project names to their weights.
+   * @param defaultProjectWeight The weight of any project that isn't listed.
+   */
+  FairShareQueue(Map<String, Double> projectWeights, double defaultProjectWeight) {
+    myDefaultProjectWeight = defaultProjectWeight;
+    myProjectFlows = new LinkedHashMap<>();
+    myProjectWeights = projectWeights;
+    mySize = 0;
+    myVirtualTime = 0;
+  }
+
+  // ===========================================================
+  // Package Private Methods
+  // ===========================================================
+
+  /**
+   * This method adds a job to the end of its client's queue.
+   *
+   * @param job The job to be queued.
+   */
+  final void add(CompileJob job) {
+    ProjectFlow projectFlow =
+        myProjectFlows.computeIfAbsent(
+            job.getProject(), name -> new ProjectFlow(name, myVirtualTime));
+    ClientFlow clientFlow =
+        projectFlow.myClientFlows.computeIfAbsent(
+            job.getClientId(), name -> new ClientFlow(name, projectFlow.myVirtualTime));
+    clientFlow.myJobs.add(job);
+    mySize++;
+  }
+
+  /**
+   * Checks to see if there aren't any queued jobs.
+   *
+   * @return {@code true} if the queue is empty, {@code false} otherwise.
+   */
+  final boolean isEmpty() {
+    return mySize == 0;
+  }
+
+  /**
+   * This method returns the job that should be served next without removing it.
+   *
+   * @return The next job or {@code null} if the queue is empty.
+   */
+  final CompileJob peek() {
+    if (mySize == 0) {
+      return null;
+    }
+
+    ProjectFlow projectFlow = select(myProjectFlows.values(), myVirtualTime);
+    ClientFlow clientFlow = select(projectFlow.myClientFlows.values(), projectFlow.myVirtualTime);
+
+    return clientFlow.myJobs.peek();
+  }
+
+  /**
+   * This method removes the job that should be served next.
+   *
+   * @return The next job or {@code null} if the queue is empty.
+   */
+  final CompileJob poll() {
+    if (mySize == 0) {
+      return null;
+    }
+
+    // Pick a project, then one of its clients
+    ProjectFlow projectFlow = select(myProjectFlows.values(), myVirtualTime);
+    myVirtualTime = projectFlow.serve(myVirtualTime, 1.0 / getProjectWeight(projectFlow.myName));
+
+    ClientFlow clientFlow = select(projectFlow.myClientFlows.values(), projectFlow.myVirtualTime);
+    projectFlow.myVirtualTime = clientFlow.serve(projectFlow.myVirtualTime, 1.0);
+
+    CompileJob job = clientFlow.myJobs.poll();
+    removeIfIdle(projectFlow, clientFlow);
+    mySize--;
+
+    return job;
+  }
+
+  /**
+   * This method removes a job from the queue (if it is there).
+   *
+   * @param job The job to be removed.
+   * @return {@code true} if the job was queued, {@code false} otherwise.
+   */
+  final boolean remove(CompileJob job) {
+    ProjectFlow projectFlow = myProjectFlows.get(job.getProject());
+    ClientFlow clientFlow =
+        projectFlow == null ? null : projectFlow.myClientFlows.get(job.getClientId());
+    if (clientFlow == null || !clientFlow.myJobs.remove(job)) {
+      return false;
+    }
+
+    removeIfIdle(projectFlow, clientFlow);
+    mySize--;
+
+    return true;
+  }
+
+  /**
+   * This method returns the number of queued jobs.
+   *
+   * @return The queue's size.
+   */
+  final int size() {
+    return mySize;
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that returns a project's weight.
+   *
+   * @param project RESOLVE project folder.
+   * @return The project's weight.
+   */
+  private double getProjectWeight(String project) {
+    return myProjectWeights.getOrDefault(project, myDefaultProjectWeight);
+  }
+
+  /**
+   * An helper method that forgets about flows that no longer have any queued jobs.
+   *
+   * @param projectFlow A project's flow.
+   * @param clientFlow One of the project's client flows.
+   */
+  private void removeIfIdle(ProjectFlow projectFlow, ClientFlow clientFlow) {
+    if (clientFlow.myJobs.isEmpty()) {
+      projectFlow.myClientFlows.remove(clientFlow.myName);
+    }
+
+    if (projectFlow.myClientFlows.isEmpty()) {
+      myProjectFlows.remove(projectFlow.myName);
+    }
+  }
+
+  /**
+   * An helper method that returns the flow with the smallest start tag. Ties are broken in favor of
+   * the flow that has been backlogged the longest.
+   *
+   * @param flows The backlogged flows.
+   * @param virtualTime The current virtual time.
+   * @param <F> The type of flow.
+   * @return The flow to be served next.
+   */
+  private static <F extends Flow> F select(Collection<F> flows, double virtualTime) {
+    F selected = null;
+    double selectedStart = Double.MAX_VALUE;
+    for (F flow : flows) {
+      double start = flow.getStartTag(virtualTime);
+      if (start < selectedStart) {
+        selected = flow;
+        selectedStart = start;
+      }
+    }
+
+    return selected;
+  }
+
+  // ===========================================================
+  // Private Classes
+  // ===========================================================
+
+  /** A backlogged flow (a project or a client). */
+  private abstract static class Flow {
+
+    /** The virtual time at which this flow's last served job finishes. */
+    private double myFinishTag;
+
+    /** The flow's name. */
+    final String myName;
+
+    /**
+     * This creates a flow that becomes backlogged at the specified virtual time.
+     *
+     * @param name The flow's name.
+     * @param virtualTime The current virtual time.
+     */
+    Flow(String name, double virtualTime) {
+      myFinishTag = virtualTime;
+      myName = name;
+    }
+
+    /**
+     * This method returns the virtual time at which this flow's next job starts.
+     *
+     * @param virtualTime The current virtual time.
+     * @return The start tag.
+     */
+    final double getStartTag(double virtualTime) {
+      return Math.max(virtualTime, myFinishTag);
+    }
+
+    /**
+     * This method serves one of this flow's jobs.
+     *
+     * @param virtualTime The current virtual time.
+     * @param cost The job's cost divided by this flow's weight.
+     * @return The new virtual time.
+     */
+    final double serve(double virtualTime, double cost) {
+      double start = getStartTag(virtualTime);
+      myFinishTag = start + cost;
+
+      return start;
+    }
+  }
+
+  /** A client's backlogged jobs. */
+  private static final class ClientFlow extends Flow {
+
+    /** The client's queued jobs. */
+    final Deque<CompileJob> myJobs;
+
+    /**
+     * This creates a client flow.
+     *
+     * @param name The client's identity.
+     * @param virtualTime The project's current virtual time.
+     */
+    ClientFlow(String name, double virtualTime) {
+      super(name, virtualTime);
+      myJobs = new ArrayDeque<>();
+    }
+  }
+
+  /** A project's backlogged clients. */
+  private static final class ProjectFlow extends Flow {
+
+    /** A map from client identities to their backlogged flows. */
+    final Map<String, ClientFlow> myClientFlows;
+
+    /** The virtual time across this project's clients. */
+    double myVirtualTime;
+
+    /**
+     * This creates a project flow.
+     *
+     * @param name The project's name.
+     * @param virtualTime The current virtual time.
+     */
+    ProjectFlow(String name, double virtualTime) {
+      super(name, virtualTime);
+      myClientFlows = new LinkedHashMap<>();
+      myVirtualTime = 0;
+    }
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.scheduling;
+
+import com.typesafe.config.Config;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class keeps the projected heap use of the running {@link CompileJob CompileJobs} within a
+ * configured budget. A job's heap cost is estimated from its input size and job name using a
+ * linear model ({@code baseBytes + bytesPerChar * inputSize}) that is calibrated every time a job
+ * of the same name finishes. A job is only started if its estimate fits in what is left of the
+ * budget, unless nothing else is running (so a job that is bigger than the budget still runs,
+ * just on its own).
+ *
+ * <p>The {@code JVM} can only tell us how many bytes a thread has allocated, not how many of them
+ * were live at the same time. The measured cost of a job is therefore its allocated bytes
+ * multiplied by {@code webapi.compiler.scheduler.heapBudget.retainedFraction}. Every estimate is
+ * logged (at the {@code DEBUG} level) next to the allocated bytes so this fraction can be tuned.
+ *
+ * <p>Allocations are measured on the scheduler's threads, so the budget is only used when the
+ * compiler runs on those threads. With the {@code forked} and {@code cluster} backends, these
+ * threads only relay the events of a compiler running somewhere else (with its own heap), so the
+ * budget is always disabled.
+ *
+ * <p>(Note: Except for {@link #getAllocatedBytes()}, this class isn't thread-safe. It is only
+ * accessed while holding the {@link CompileJobScheduler CompileJobScheduler's} lock.)
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+class HeapBudget {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Maximum number of bytes the running jobs are projected to use. */
+  private final long myBudget;
+
+  /** A map from job names to their calibrated cost models. */
+  private final Map<String, CostModel> myCostModels;
+
+  /** The estimate used for jobs that haven't been calibrated or configured yet. */
+  private final long myDefaultInitialEstimate;
+
+  /** Flag that indicates jobs should be held until they fit in the budget. */
+  private final boolean myEnabledFlag;
+
+  /** A map from job names to their configured estimates (used until they are calibrated). */
+  private final Map<String, Long> myInitialEstimates;
+
+  /** Logger for the estimated and measured heap costs. */
+  private final Logger myLogger;
+
+  /** Number of bytes the running jobs are projected to use. */
+  private long myReservedBytes;
+
+  /** Fraction of a job's allocated bytes that is assumed to be live at the same time. */
+  private final double myRetainedFraction;
+
+  /** The {@code JVM's} thread bean (if it can report allocated bytes). */
+  private final com.sun.management.ThreadMXBean myThreadBean;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an empty heap budget.
+   *
+   * @param budgetConfig The {@code webapi.compiler.scheduler.heapBudget} settings.
+   * @param inProcessFlag {@code true} if the compiler runs on the scheduler's threads, {@code
+   *     false} otherwise.
+   */
+  HeapBudget(Config budgetConfig, boolean inProcessFlag) {
+    long budget = budgetConfig.getBytes("budget");
+    myBudget =
+        budget > 0
+            ? budget
+            : (long) (Runtime.getRuntime().maxMemory() * budgetConfig.getDouble("maxHeapFraction"));
+    myCostModels = new HashMap<>();
+    myDefaultInitialEstimate = budgetConfig.getBytes("defaultInitialEstimate");
+    myEnabledFlag = budgetConfig.getBoolean("enabled") && inProcessFlag;
+    myInitialEstimates = new HashMap<>();
+    Config initialEstimatesConfig = budgetConfig.getConfig("initialEstimates");
+    for (String job : initialEstimatesConfig.root().keySet()) {
+      myInitialEstimates.put(job.toLowerCase(), initialEstimatesConfig.getBytes(job));
+    }
+    myLogger = LoggerFactory.getLogger(HeapBudget.class);
+    myReservedBytes = 0;
+    myRetainedFraction = budgetConfig.getDouble("retainedFraction");
+
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (threadBean instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+      myThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+      myThreadBean.setThreadAllocatedMemoryEnabled(true);
+    } else {
+      myLogger.warn("This JVM can't report allocated bytes, heap estimates won't be calibrated.");
+      myThreadBean = null;
+    }
+  }
+
+  // ===========================================================
+  // Package Private Methods
+  // ===========================================================
+
+  /**
+   * This method returns an estimate of how many bytes of heap a job needs. The estimate never
+   * exceeds the budget.
+   *
+   * @param job The job to be executed.
+   * @return The heap estimate.
+   */
+  final long estimate(CompileJob job) {
+    String jobName = job.getJob().toLowerCase();
+    CostModel costModel = myCostModels.get(jobName);
+    long estimate;
+    if (costModel != null && costModel.isCalibrated()) {
+      estimate = costModel.estimate(job.getInputSize());
+    } else {
+      estimate = myInitialEstimates.getOrDefault(jobName, myDefaultInitialEstimate);
+    }
+
+    return Math.min(myBudget, estimate);
+  }
+
+  /**
+   * Checks to see if a job fits in what is left of the budget.
+   *
+   * @param job The job to be started.
+   * @param activeJobs Number of jobs currently running.
+   * @return {@code true} if the job can be started, {@code false} otherwise.
+   */
+  final boolean fits(CompileJob job, int activeJobs) {
+    return !myEnabledFlag
+        || activeJobs == 0
+        || myReservedBytes + job.getHeapEstimate() <= myBudget;
+  }
+
+  /**
+   * This method returns the number of bytes the current thread has allocated so far. This can be
+   * called without holding the scheduler's lock.
+   *
+   * @return The allocated bytes or {@code -1} if the {@code JVM} can't report them.
+   */
+  final long getAllocatedBytes() {
+    return myThreadBean == null ? -1 : myThreadBean.getCurrentThreadAllocatedBytes();
+  }
+
+  /**
+   * This method returns the maximum number of bytes the running jobs are projected to use.
+   *
+   * @return The budget.
+   */
+  final long getBudget() {
+    return myBudget;
+  }
+
+  /**
+   * This method returns the number of bytes the running jobs are projected to use.
+   *
+   * @return The reserved bytes.
+   */
+  final long getReservedBytes() {
+    return myReservedBytes;
+  }
+
+  /**
+   * This method releases a finished job's share of the budget and, if we know how many bytes the
+   * job allocated, calibrates the cost model for jobs with the same name.
+   *
+   * @param job The finished job.
+   * @param allocatedBytes Number of bytes the job allocated or {@code -1} if unknown.
+   */
+  final void release(CompileJob job, long allocatedBytes) {
+    myReservedBytes -= job.getHeapEstimate();
+    if (allocatedBytes < 0) {
+      return;
+    }
+
+    long measured = (long) (allocatedBytes * myRetainedFraction);
+    myCostModels
+        .computeIfAbsent(job.getJob().toLowerCase(), name -> new CostModel())
+        .add(job.getInputSize(), measured);
+    myLogger.debug(
+        "Heap cost of {} (input: {} chars): estimated {} bytes, measured {} bytes "
+            + "({} bytes allocated)",
+        job.getJob(),
+        job.getInputSize(),
+        job.getHeapEstimate(),
+        measured,
+        allocatedBytes);
+  }
+
+  /**
+   * This method reserves a job's share of the budget right before it starts running.
+   *
+   * @param job The job to be started.
+   */
+  final void reserve(CompileJob job) {
+    myReservedBytes += job.getHeapEstimate();
+  }
+
+  // ===========================================================
+  // Private Classes
+  // ===========================================================
+
+  /**
+   * A linear model of a job's heap cost that is fitted using exponentially weighted least squares,
+   * so it follows changes in the compiler (or the workspace) over time.
+   */
+  private static final class CostModel {
+
+    /** Weight given to the newest measurement. */
+    private static final double ALPHA = 0.1;
+
+    /** Number of measurements needed before the model is used. */
+    private static final int MIN_SAMPLES = 3;
+
+    /** Weighted mean of the input sizes. */
+    private double myMeanX;
+
+    /** Weighted mean of the squared input sizes. */
+    private double myMeanXX;
+
+    /** Weighted mean of the input sizes multiplied by the measured costs. */
+    private double myMeanXY;
+
+    /** Weighted mean of the measured costs. */
+    private double myMeanY;
+
+    /** Number of measurements so far. */
+    private int mySamples;
+
+    /**
+     * This method adds a measurement to the model.
+     *
+     * @param inputSize The job's input size.
+     * @param cost The job's measured heap cost.
+     */
+    final void add(long inputSize, long cost) {
+      double alpha = mySamples == 0 ? 1.0 : ALPHA;
+      myMeanX += alpha * (inputSize - myMeanX);
+      myMeanXX += alpha * ((double) inputSize * inputSize - myMeanXX);
+      myMeanXY += alpha * ((double) inputSize * cost - myMeanXY);
+      myMeanY += alpha * (cost - myMeanY);
+      mySamples++;
+    }
+
+    /**
+     * This method returns the estimated heap cost for the specified input size. If the recent
+     * input sizes are too similar to fit a slope, the mean cost is used instead.
+     *
+     * @param inputSize The job's input size.
+     * @return The estimated heap cost.
+     */
+    final long estimate(long inputSize) {
+      double variance = myMeanXX - myMeanX * myMeanX;
+      double slope = variance > 1.0 ? Math.max(0, (myMeanXY - myMeanX * myMeanY) / variance) : 0;
+      double intercept = Math.max(0, myMeanY - slope * myMeanX);
+
+      return (long) (intercept + slope * inputSize);
+    }
+
+    /**
+     * Checks to see if the model has seen enough measurements to be used.
+     *
+     * @return {@code true} if the model is calibrated, {@code false} otherwise.
+     */
+    final boolean isCalibrated() {
+      return mySamples >= MIN_SAMPLES;
+    }
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.warmup;
+
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+import compiler.actors.CompilerActorFactory;
+import compiler.metrics.MetricsRegistry;
+import compiler.workspace.WorkspaceIndex;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.libs.Json;
+import play.libs.streams.ActorFlow;
+
+/**
+ * This eager singleton class warms up the {@code JVM} right after the application starts by running
+ * a sample corpus through the compiler. Each request goes through the same path as a {@code
+ * WebSocket} request: an actor created by the {@link CompilerActorFactory}, the compile job
+ * scheduler and the compiler backend. The readiness check doesn't report this node as ready until
+ * the warm-up stage is complete.
+ *
+ * <p>The sample corpus for each job listed in {@code webapi.warmup.jobs} is read from {@code
+ * webapi.warmup.corpusDir/<job>}. Every file in that directory is sent {@code
+ * webapi.warmup.iterations} times, one request at a time.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class CompilerWarmUp {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** An actor system for running our warm-up requests. */
+  private final ActorSystem myActorSystem;
+
+  /** A factory for the compiler actors that handle each job request. */
+  private final CompilerActorFactory myCompilerActorFactory;
+
+  /** Flag that indicates the warm-up stage is done (or disabled). */
+  private volatile boolean myCompleteFlag;
+
+  /** Logger for the warm-up related items. */
+  private final Logger myLogger;
+
+  /** The registry our warm-up metrics are reported to. */
+  private final MetricsRegistry myMetricsRegistry;
+
+  /** A factory that makes the streams we create run. */
+  private final Materializer myStreamMaterializer;
+
+  /** Maximum amount of time a single warm-up request may take. */
+  private final Duration myTimeout;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates the warm-up stage and, if {@code webapi.warmup.enabled} is set, starts running
+   * it in the background.
+   *
+   * @param config The configuration manager.
+   * @param actorSystem An actor system for running our warm-up requests.
+   * @param materializer A factory that makes the streams we create run.
+   * @param compilerActorFactory A factory for the compiler actors that handle each job request.
+   * @param workspaceIndex The cached index of the {@code RESOLVE} workspaces.
+   * @param metricsRegistry The registry our warm-up metrics are reported to.
+   */
+  @Inject
+  public CompilerWarmUp(
+      Config config,
+      ActorSystem actorSystem,
+      Materializer materializer,
+      CompilerActorFactory compilerActorFactory,
+      WorkspaceIndex workspaceIndex,
+      MetricsRegistry metricsRegistry) {
+    Config warmUpConfig = config.getConfig("webapi.warmup");
+    myActorSystem = actorSystem;
+    myCompilerActorFactory = compilerActorFactory;
+    myCompleteFlag = false;
+    myLogger = LoggerFactory.getLogger(CompilerWarmUp.class);
+    myMetricsRegistry = metricsRegistry;
+    myStreamMaterializer = materializer;
+    myTimeout = warmUpConfig.getDuration("timeout");
+
+    String project = warmUpConfig.getString("project");
+    if (!warmUpConfig.getBoolean("enabled")) {
+      myCompleteFlag = true;
+    } else if (!workspaceIndex.hasProject(project)) {
+      myLogger.warn("Skipping the warm-up stage, project not found: {}", project);
+      myCompleteFlag = true;
+    } else {
+      List<Config> jobs = new ArrayList<>(warmUpConfig.getConfigList("jobs"));
+      runAll(
+          Paths.get(warmUpConfig.getString("corpusDir")),
+          project,
+          jobs,
+          warmUpConfig.getInt("iterations"));
+    }
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * Checks to see if the warm-up stage is done.
+   *
+   * @return {@code true} if the warm-up stage is done or disabled, {@code false} otherwise.
+   */
+  public final boolean isComplete() {
+    return myCompleteFlag;
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that encodes the contents of a file the same way our clients do.
+   *
+   * @param content The file's contents.
+   * @return The encoded string.
+   */
+  private static String encode(String content) {
+    try {
+      return URLEncoder.encode(content, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * An helper method that checks to see if any of the messages sent back by an actor is an error.
+   *
+   * @param frames Messages sent back by an actor.
+   * @return {@code true} if there was an error message, {@code false} otherwise.
+   */
+  private static boolean hasError(List<JsonNode> frames) {
+    for (JsonNode frame : frames) {
+      if ("error".equals(frame.path("status").asText())) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * An helper method that builds the payloads for a job's sample corpus.
+   *
+   * @param corpusDir Directory containing the sample corpus.
+   * @param project RESOLVE project folder to be used.
+   * @param jobConfig The {@code job} name and the file {@code type} sent in each message.
+   * @return A list of JSON encoded {@code CompilerMessages}.
+   * @throws IOException If the corpus can't be read.
+   */
+  private List<JsonNode> loadCorpus(Path corpusDir, String project, Config jobConfig)
+      throws IOException {
+    Path jobDir = corpusDir.resolve(jobConfig.getString("job"));
+    List<Path> files;
+    try (Stream<Path> stream = Files.list(jobDir)) {
+      files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    }
+
+    List<JsonNode> payloads = new ArrayList<>();
+    for (Path file : files) {
+      String fileName = file.getFileName().toString();
+      int dot = fileName.lastIndexOf('.');
+      String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+
+      ObjectNode message = Json.newObject();
+      message.put("name", dot > 0 ? fileName.substring(0, dot) : fileName);
+      message.put("type", jobConfig.getString("type"));
+      message.put("project", project);
+      message.put("content", encode(content));
+      payloads.add(message);
+    }
+
+    return payloads;
+  }
+
+  /**
+   * An helper method that runs every warm-up request, one at a time, and marks the warm-up stage
+   * as complete once they are done.
+   *
+   * @param corpusDir Directory containing the sample corpus.
+   * @param project RESOLVE project folder to be used.
+   * @param jobs The jobs to be warmed up.
+   * @param iterations Number of times each file is sent.
+   */
+  private void runAll(Path corpusDir, String project, List<Config> jobs, int iterations) {
+    long startTime = System.nanoTime();
+    AtomicInteger failures = new AtomicInteger();
+    AtomicInteger requests = new AtomicInteger();
+    CompletionStage<Void> stage = CompletableFuture.completedFuture(null);
+
+    for (Config jobConfig : jobs) {
+      String job = jobConfig.getString("job");
+      if (!myCompilerActorFactory.isSupported(job)) {
+        myLogger.warn("Skipping the unsupported warm-up job: {}", job);
+        continue;
+      }
+
+      List<JsonNode> payloads;
+      try {
+        payloads = loadCorpus(corpusDir, project, jobConfig);
+      } catch (IOException e) {
+        myLogger.warn("Unable to load the warm-up corpus for: {}", job, e);
+        continue;
+      }
+
+      for (int i = 0; i < iterations; i++) {
+        for (JsonNode payload : payloads) {
+          stage =
+              stage.thenCompose(
+                  v ->
+                      runRequest(job, project, payload)
+                          .handle(
+                              (frames, throwable) -> {
+                                requests.incrementAndGet();
+                                if (throwable != null || hasError(frames)) {
+                                  failures.incrementAndGet();
+                                }
+
+                                return null;
+                              }));
+        }
+      }
+    }
+
+    stage.whenComplete(
+        (v, throwable) -> {
+          long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+          myMetricsRegistry.set("warmup.durationMillis", duration);
+          myMetricsRegistry.set("warmup.requests", requests.get());
+          myMetricsRegistry.set("warmup.failures", failures.get());
+          myLogger.info(
+              "Warm-up complete: {} requests ({} failed) in {} ms",
+              requests.get(),
+              failures.get(),
+              duration);
+          myCompleteFlag = true;
+        });
+  }
+
+  /**
+   * An helper method that sends a single request through a compiler actor and collects everything
+   * it sends back. Just like a {@code WebSocket}, our end of the stream is kept open until the
+   * actor closes it.
+   *
+   * @param job Name of the job to be executed.
+   * @param project RESOLVE project folder to be used.
+   * @param payload The JSON encoded {@code CompilerMessage}.
+   * @return A future containing every message sent back by the actor.
+   */
+  private CompletionStage<List<JsonNode>> runRequest(
+      String job, String project, JsonNode payload) {
+    return Source.single(payload)
+        .concat(Source.maybe())
+        .via(
+            ActorFlow.<JsonNode, JsonNode>actorRef(
+                out -> myCompilerActorFactory.props(out, job, project, "warmup"),
+                myActorSystem,
+                myStreamMaterializer))
+        .completionTimeout(myTimeout)
+        .runWith(Sink.seq(), myStreamMaterializer);
+  }
+}
@@ -0,0 +1,440 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.workspace;
+
+import com.typesafe.config.Config;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * This singleton class keeps an in-memory index of the {@code RESOLVE} project folders inside
+ * {@code webapi.workingdir} and the module files inside each project's {@code RESOLVE/Main}
+ * folder, so that validating a project or looking up a module never has to touch the (possibly
+ * network mounted) file system.
+ *
+ * <p>The index is built at startup and kept fresh using a {@link WatchService}. Since file system
+ * events aren't delivered for every kind of mount (for example: changes made by another NFS
+ * client), the whole workspace is also rescanned every {@code webapi.workspace.rescanInterval}.
+ * All rescans are executed by a single thread.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class WorkspaceIndex {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The thread that (re)builds the index. */
+  private final ScheduledExecutorService myIndexExecutor;
+
+  /** Logger for the workspace index related items. */
+  private final Logger myLogger;
+
+  /** Projects (or {@code null} for the whole workspace) waiting to be rescanned. */
+  private final Set<String> myPendingRescans;
+
+  /** A map from project folder names to their details. */
+  private final Map<String, WorkspaceProject> myProjects;
+
+  /** Delay used to coalesce bursts of file system events into a single rescan. */
+  private final long myRescanDelayMillis;
+
+  /** The watch service notifying us of changes ({@code null} if we aren't watching). */
+  private final WatchService myWatchService;
+
+  /** A map from the watch keys we registered to the directory they are watching. */
+  private final Map<WatchKey, Path> myWatchedDirs;
+
+  /** The directory where all the {@code RESOLVE} workspaces are located (as configured). */
+  private final String myWorkspaceDir;
+
+  /** The absolute path to the directory where all the {@code RESOLVE} workspaces are located. */
+  private final Path myWorkspacePath;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates and builds the index using the {@code webapi.workingdir} and {@code
+   * webapi.workspace} settings.
+   *
+   * @param config The configuration manager.
+   * @param lifecycle The application's lifecycle, used to stop watching on shutdown.
+   */
+  @Inject
+  public WorkspaceIndex(Config config, ApplicationLifecycle lifecycle) {
+    Config workspaceConfig = config.getConfig("webapi.workspace");
+    myIndexExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "workspace-index");
+              thread.setDaemon(true);
+              return thread;
+            });
+    myLogger = LoggerFactory.getLogger(WorkspaceIndex.class);
+    myPendingRescans = new HashSet<>();
+    myProjects = new ConcurrentHashMap<>();
+    myRescanDelayMillis = workspaceConfig.getDuration("rescanDelay", TimeUnit.MILLISECONDS);
+    myWatchedDirs = new ConcurrentHashMap<>();
+    myWorkspaceDir = config.getString("webapi.workingdir");
+    myWorkspacePath = Paths.get(myWorkspaceDir).toAbsolutePath().normalize();
+    myWatchService = workspaceConfig.getBoolean("watch") ? newWatchService() : null;
+
+    // Build the index before anyone gets to use it
+    long startTime = System.nanoTime();
+    rescanAll();
+    myLogger.info(
+        "Indexed {} projects in: {} ({} ms)",
+        myProjects.size(),
+        myWorkspacePath,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
+    if (myWatchService != null) {
+      Thread watcher = new Thread(this::watch, "workspace-watcher");
+      watcher.setDaemon(true);
+      watcher.start();
+    }
+
+    long rescanInterval = workspaceConfig.getDuration("rescanInterval", TimeUnit.MILLISECONDS);
+    if (rescanInterval > 0) {
+      myIndexExecutor.scheduleWithFixedDelay(
+          () -> requestRescan(null), rescanInterval, rescanInterval, TimeUnit.MILLISECONDS);
+    }
+
+    lifecycle.addStopHook(
+        () -> {
+          myIndexExecutor.shutdownNow();
+          if (myWatchService != null) {
+            myWatchService.close();
+          }
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns the specified project's {@code RESOLVE/Main} path. Unknown projects get
+   * the path they would have if they existed.
+   *
+   * @param project RESOLVE project folder to be used.
+   * @return The path as a string (with a trailing separator).
+   */
+  public final String getMainPath(String project) {
+    return getProject(project)
+        .map(WorkspaceProject::getMainPath)
+        .orElseGet(() -> formMainPath(project));
+  }
+
+  /**
+   * This method returns the details of a project folder.
+   *
+   * @param project RESOLVE project folder to be used.
+   * @return The project's details if it exists.
+   */
+  public final Optional<WorkspaceProject> getProject(String project) {
+    return project == null ? Optional.empty() : Optional.ofNullable(myProjects.get(project));
+  }
+
+  /**
+   * This method returns the names of all the indexed project folders.
+   *
+   * @return A set of project names.
+   */
+  public final Set<String> getProjects() {
+    return new HashSet<>(myProjects.keySet());
+  }
+
+  /**
+   * Checks to see if a project folder exists.
+   *
+   * @param project RESOLVE project folder to be used.
+   * @return {@code true} if a directory exists with that name, {@code false} otherwise.
+   */
+  public final boolean hasProject(String project) {
+    return project != null && myProjects.containsKey(project);
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method for forming a project's {@code RESOLVE/Main} path.
+   *
+   * @param project RESOLVE project folder to be used.
+   * @return The path as a string (with a trailing separator).
+   */
+  private String formMainPath(String project) {
+    return myWorkspaceDir
+        + File.separator
+        + project
+        + File.separator
+        + "RESOLVE"
+        + File.separator
+        + "Main"
+        + File.separator;
+  }
+
+  /**
+   * An helper method that collects the details of a module file. Only the file's attributes are
+   * read, never its contents.
+   *
+   * @param file The module's location.
+   * @param old The module's details from the previous snapshot (if any).
+   * @return The module's details or {@code null} if it couldn't be read.
+   */
+  private WorkspaceModule indexModule(Path file, WorkspaceModule old) {
+    try {
+      long size = Files.size(file);
+      long lastModified = Files.getLastModifiedTime(file).toMillis();
+      if (old != null && old.isUnchanged(file, size, lastModified)) {
+        return old;
+      }
+
+      return new WorkspaceModule(file, size, lastModified);
+    } catch (IOException e) {
+      myLogger.warn("Unable to index the module: {}", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * An helper method that creates a watch service for the workspace's file system.
+   *
+   * @return A new watch service or {@code null} if the file system doesn't support it.
+   */
+  private WatchService newWatchService() {
+    try {
+      return myWorkspacePath.getFileSystem().newWatchService();
+    } catch (IOException | UnsupportedOperationException e) {
+      myLogger.warn("Unable to watch the workspace, relying on periodic rescans: ", e);
+      return null;
+    }
+  }
+
+  /**
+   * An helper method that registers a directory with our watch service.
+   *
+   * @param dir The directory to be watched.
+   */
+  private void register(Path dir) {
+    if (myWatchService == null) {
+      return;
+    }
+
+    try {
+      WatchKey key =
+          dir.register(
+              myWatchService,
+              StandardWatchEventKinds.ENTRY_CREATE,
+              StandardWatchEventKinds.ENTRY_DELETE,
+              StandardWatchEventKinds.ENTRY_MODIFY);
+      myWatchedDirs.put(key, dir);
+    } catch (IOException e) {
+      myLogger.warn("Unable to watch: {}", dir, e);
+    }
+  }
+
+  /**
+   * An helper method that removes a project that no longer exists from the index.
+   *
+   * @param project RESOLVE project folder that was removed.
+   */
+  private void removeProject(String project) {
+    WorkspaceProject previous = myProjects.remove(project);
+    if (previous != null) {
+      myLogger.info("Removed project: {}", project);
+    }
+  }
+
+  /**
+   * An helper method that schedules a rescan. Requests made while a rescan for the same project is
+   * pending are coalesced.
+   *
+   * @param project The project to be rescanned or {@code null} to rescan the whole workspace.
+   */
+  private void requestRescan(String project) {
+    synchronized (myPendingRescans) {
+      if (!myPendingRescans.add(project)) {
+        return;
+      }
+    }
+
+    myIndexExecutor.schedule(
+        () -> {
+          synchronized (myPendingRescans) {
+            myPendingRescans.remove(project);
+          }
+
+          if (project == null) {
+            rescanAll();
+          } else {
+            rescanProject(project);
+          }
+        },
+        myRescanDelayMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /** An helper method that rebuilds the index for every project in the workspace. */
+  private void rescanAll() {
+    Set<String> found = new HashSet<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(myWorkspacePath)) {
+      for (Path child : stream) {
+        if (Files.isDirectory(child)) {
+          found.add(child.getFileName().toString());
+        }
+      }
+    } catch (IOException e) {
+      myLogger.error("Unable to list the workspace directory: {}", myWorkspacePath, e);
+      return;
+    }
+
+    register(myWorkspacePath);
+    for (String project : getProjects()) {
+      if (!found.contains(project)) {
+        removeProject(project);
+      }
+    }
+    for (String project : found) {
+      rescanProject(project);
+    }
+  }
+
+  /**
+   * An helper method that rebuilds the index for a single project. If any of the project's modules
+   * were added, removed or modified, the changes are logged.
+   *
+   * @param project RESOLVE project folder to be rescanned.
+   */
+  private void rescanProject(String project) {
+    WorkspaceProject previous = myProjects.get(project);
+    Path projectDir = myWorkspacePath.resolve(project);
+    if (!Files.isDirectory(projectDir)) {
+      removeProject(project);
+      return;
+    }
+
+    // Watch the folders leading up to RESOLVE/Main, so we notice when they get created
+    Path resolveDir = projectDir.resolve("RESOLVE");
+    Path mainDir = resolveDir.resolve("Main");
+    register(projectDir);
+    if (Files.isDirectory(resolveDir)) {
+      register(resolveDir);
+    }
+
+    Map<String, WorkspaceModule> known =
+        previous == null ? Collections.emptyMap() : previous.getModules();
+    Map<String, WorkspaceModule> modules = new TreeMap<>();
+    if (Files.isDirectory(mainDir)) {
+      List<Path> files = new ArrayList<>();
+      try (Stream<Path> paths = Files.walk(mainDir)) {
+        paths
+            .sorted()
+            .forEach(
+                path -> {
+                  if (Files.isDirectory(path)) {
+                    register(path);
+                  } else if (Files.isRegularFile(path)) {
+                    files.add(path);
+                  }
+                });
+      } catch (IOException | RuntimeException e) {
+        myLogger.error("Unable to index the project: {}", project, e);
+      }
+
+      for (Path file : files) {
+        String fileName = file.getFileName().toString();
+        if (!modules.containsKey(fileName)) {
+          WorkspaceModule module = indexModule(file, known.get(fileName));
+          if (module != null) {
+            modules.put(fileName, module);
+          }
+        }
+      }
+    }
+
+    WorkspaceProject current = new WorkspaceProject(project, formMainPath(project), modules);
+    Set<String> changedModules = current.getChangedModules(previous);
+    if (previous != null && !changedModules.isEmpty()) {
+      myLogger.info("Reloaded project: {} (changed modules: {})", project, changedModules);
+    }
+    myProjects.put(project, current);
+  }
+
+  /**
+   * An helper method that waits for file system events and schedules a rescan for the affected
+   * project. This method is executed by its own thread until the watch service is closed.
+   */
+  private void watch() {
+    try {
+      while (true) {
+        WatchKey key = myWatchService.take();
+        Path dir = myWatchedDirs.get(key);
+
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+          overflow |= event.kind() == StandardWatchEventKinds.OVERFLOW;
+        }
+
+        if (!key.reset()) {
+          myWatchedDirs.remove(key);
+        }
+
+        // Changes directly inside the workspace (or lost events) require
+        // a full rescan. Everything else only affects a single project.
+        if (overflow || dir == null || dir.equals(myWorkspacePath)) {
+          requestRescan(null);
+        } else {
+          requestRescan(myWorkspacePath.relativize(dir).getName(0).toString());
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // We are shutting down.
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.workspace;
+
+import java.nio.file.Path;
+
+/**
+ * This immutable class contains everything the {@link WorkspaceIndex} knows about a module file
+ * inside a project's {@code RESOLVE/Main} folder.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class WorkspaceModule {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The module's last modified time (in milliseconds). */
+  private final long myLastModified;
+
+  /** The module's location. */
+  private final Path myPath;
+
+  /** The module's size (in bytes). */
+  private final long mySize;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an object containing the details of a module file.
+   *
+   * @param path The module's location.
+   * @param size The module's size (in bytes).
+   * @param lastModified The module's last modified time (in milliseconds).
+   */
+  WorkspaceModule(Path path, long size, long lastModified) {
+    myLastModified = lastModified;
+    myPath = path;
+    mySize = size;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns the module's last modified time.
+   *
+   * @return The time in milliseconds.
+   */
+  public final long getLastModified() {
+    return myLastModified;
+  }
+
+  /**
+   * This method returns the module's location.
+   *
+   * @return A {@link Path}.
+   */
+  public final Path getPath() {
+    return myPath;
+  }
+
+  /**
+   * This method returns the module's size.
+   *
+   * @return The size in bytes.
+   */
+  public final long getSize() {
+    return mySize;
+  }
+
+  // ===========================================================
+  // Package Private Methods
+  // ===========================================================
+
+  /**
+   * This method checks to see if the file we indexed is still at the same location and has the
+   * same size and last modified time, in which case we treat it as unmodified.
+   *
+   * @param path The module's location.
+   * @param size The module's current size (in bytes).
+   * @param lastModified The module's current last modified time (in milliseconds).
+   * @return {@code true} if nothing changed, {@code false} otherwise.
+   */
+  final boolean isUnchanged(Path path, long size, long lastModified) {
+    return myPath.equals(path) && mySize == size && myLastModified == lastModified;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package compiler.workspace;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This immutable class contains everything the {@link WorkspaceIndex} knows about a {@code RESOLVE}
+ * project folder: its {@code RESOLVE/Main} path and the module files found inside it.
+ *
+ * <p>Each object is a snapshot. Whenever the index rescans a project, it replaces the project's
+ * snapshot with a new one.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class WorkspaceProject {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The project's {@code RESOLVE/Main} path (with a trailing separator). */
+  private final String myMainPath;
+
+  /** A map from module file names to their details. */
+  private final Map<String, WorkspaceModule> myModules;
+
+  /** The project folder's name. */
+  private final String myName;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an object containing the details of a project folder.
+   *
+   * @param name The project folder's name.
+   * @param mainPath The project's {@code RESOLVE/Main} path (with a trailing separator).
+   * @param modules A map from module file names to their details.
+   */
+  WorkspaceProject(String name, String mainPath, Map<String, WorkspaceModule> modules) {
+    myMainPath = mainPath;
+    myModules = Collections.unmodifiableMap(modules);
+    myName = name;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns the project's {@code RESOLVE/Main} path.
+   *
+   * @return The path as a string (with a trailing separator).
+   */
+  public final String getMainPath() {
+    return myMainPath;
+  }
+
+  /**
+   * This method compares this snapshot with an older one of the same project.
+   *
+   * @param previous The older snapshot ({@code null} if the project didn't exist).
+   * @return The names of the modules that were added, removed or modified (moved, resized or
+   *     touched).
+   */
+  public final Set<String> getChangedModules(WorkspaceProject previous) {
+    Set<String> changed = new HashSet<>();
+    Map<String, WorkspaceModule> previousModules =
+        previous == null ? Collections.emptyMap() : previous.myModules;
+    for (Map.Entry<String, WorkspaceModule> entry : myModules.entrySet()) {
+      WorkspaceModule old = previousModules.get(entry.getKey());
+      WorkspaceModule module = entry.getValue();
+      if (old == null
+          || !old.isUnchanged(module.getPath(), module.getSize(), module.getLastModified())) {
+        changed.add(entry.getKey());
+      }
+    }
+    for (String name : previousModules.keySet()) {
+      if (!myModules.containsKey(name)) {
+        changed.add(name);
+      }
+    }
+
+    return changed;
+  }
+
+  /**
+   * This method returns all the module files found inside {@code RESOLVE/Main}.
+   *
+   * @return An unmodifiable map from module file names to their details.
+   */
+  public final Map<String, WorkspaceModule> getModules() {
+    return myModules;
+  }
+
+  /**
+   * This method returns the project folder's name.
+   *
+   * @return The project name.
+   */
+  public final String getName() {
+    return myName;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package controllers;
+
+import com.typesafe.config.Config;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.mvc.Http;
+
+/**
+ * This singleton class identifies the client that sent a request, so that the compile job scheduler
+ * can share its capacity fairly across clients no matter which of our endpoints they use.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class ClientIdentifier {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Name of the cookie that identifies a client ({@code ""} to use the client's IP address). */
+  private final String myClientCookie;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an object that identifies clients using the {@code
+   * webapi.compiler.scheduler.fairShare.clientCookie} setting.
+   *
+   * @param config The configuration manager.
+   */
+  @Inject
+  public ClientIdentifier(Config config) {
+    myClientCookie = config.getString("webapi.compiler.scheduler.fairShare.clientCookie");
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method identifies the client that sent a request.
+   *
+   * @param request The request's header.
+   * @return The value of {@code webapi.compiler.scheduler.fairShare.clientCookie} if the request
+   *     has that cookie, the client's IP address otherwise.
+   */
+  public final String clientId(Http.RequestHeader request) {
+    if (!myClientCookie.isEmpty()) {
+      Optional<Http.Cookie> cookie = request.getCookie(myClientCookie);
+      if (cookie.isPresent()) {
+        return "cookie:" + cookie.get().value();
+      }
+    }
+
+    return request.remoteAddress();
+  }
+}
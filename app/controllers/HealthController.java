@@ -0,0 +1,135 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package controllers;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+import compiler.actors.CompilerServices;
+import compiler.backend.CompilerBackend;
+import compiler.scheduling.CompileJobScheduler;
+import compiler.warmup.CompilerWarmUp;
+import java.io.File;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.libs.Json;
+import play.mvc.Controller;
+import play.mvc.Result;
+
+/**
+ * This singleton class serves as the controller for the health checks used by our load balancers.
+ * The liveness check only indicates that the application is running, while the readiness check
+ * indicates whether or not this node should be receiving new {@code WebSocket} connections.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class HealthController extends Controller {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** All the application-wide components needed by our compiler actors. */
+  private final CompilerServices myCompilerServices;
+
+  /** The warm-up stage that runs when the application starts. */
+  private final CompilerWarmUp myCompilerWarmUp;
+
+  /** Maximum number of queued compile jobs before we stop accepting new connections. */
+  private final int myMaxQueueDepth;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an object for handling the health check requests to this application.
+   *
+   * @param config The configuration manager.
+   * @param compilerServices All the application-wide components needed by our compiler actors.
+   * @param compilerWarmUp The warm-up stage that runs when the application starts.
+   */
+  @Inject
+  public HealthController(
+      Config config, CompilerServices compilerServices, CompilerWarmUp compilerWarmUp) {
+    myCompilerServices = compilerServices;
+    myCompilerWarmUp = compilerWarmUp;
+    myMaxQueueDepth = config.getInt("webapi.health.maxQueueDepth");
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method indicates that the application is up and running.
+   *
+   * @return An {@link Result} object containing the liveness status.
+   */
+  public final Result live() {
+    ObjectNode result = Json.newObject();
+    result.put("status", "live");
+
+    return ok(result);
+  }
+
+  /**
+   * This method checks to see if the application is ready to accept new compile jobs. This
+   * requires the workspace directory and the compiler to be available, the warm-up stage to be
+   * complete and the compile job queue to be no deeper than {@code webapi.health.maxQueueDepth}.
+   *
+   * @return An {@link Result} object containing the status of each check. The status code is
+   *     {@code 200} if every check passed and {@code 503} otherwise.
+   */
+  public final Result ready() {
+    ObjectNode checks = Json.newObject();
+
+    // Workspace directory
+    File workspaceDir = new File(myCompilerServices.getWorkspaceDir());
+    boolean workspaceReady = workspaceDir.isDirectory() && workspaceDir.canRead();
+    ObjectNode workspace = checks.putObject("workspace");
+    workspace.put("ready", workspaceReady);
+    workspace.put("path", workspaceDir.getAbsolutePath());
+
+    // Compiler
+    CompilerBackend backend = myCompilerServices.getCompilerBackend();
+    boolean compilerReady = backend.isAvailable();
+    ObjectNode compiler = checks.putObject("compiler");
+    compiler.put("ready", compilerReady);
+    compiler.put("backend", backend.getName());
+
+    // Warm-up stage
+    boolean warmUpReady = myCompilerWarmUp.isComplete();
+    ObjectNode warmUp = checks.putObject("warmup");
+    warmUp.put("ready", warmUpReady);
+
+    // Compile capacity
+    CompileJobScheduler scheduler = myCompilerServices.getCompileJobScheduler();
+    int queueDepth = scheduler.getQueueDepth();
+    boolean capacityReady = queueDepth <= myMaxQueueDepth;
+    ObjectNode capacity = checks.putObject("capacity");
+    capacity.put("ready", capacityReady);
+    capacity.put("activeJobs", scheduler.getActiveJobs());
+    capacity.put("capacity", scheduler.getCapacity());
+    capacity.put("limit", scheduler.getLimit());
+    capacity.put("queueDepth", queueDepth);
+    capacity.put("maxQueueDepth", myMaxQueueDepth);
+
+    boolean ready = workspaceReady && compilerReady && warmUpReady && capacityReady;
+    ObjectNode result = Json.newObject();
+    result.put("status", ready ? "ready" : "unavailable");
+    result.set("checks", checks);
+
+    return ready ? ok(result) : status(SERVICE_UNAVAILABLE, result);
+  }
+}
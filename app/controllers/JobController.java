@@ -0,0 +1,293 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package controllers;
+
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+import compiler.actors.CompilerActorFactory;
+import compiler.actors.CompilerServices;
+import compiler.jobs.JobRecord;
+import compiler.jobs.JobRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.http.HttpErrorHandler;
+import play.libs.EventSource;
+import play.libs.Json;
+import play.mvc.BodyParser;
+import play.mvc.Controller;
+import play.mvc.Http;
+import play.mvc.Result;
+
+/**
+ * This singleton class serves as the controller for the compile jobs submitted over plain {@code
+ * HTTP} by clients that can't (or don't want to) use a {@code WebSocket}, such as autograders and
+ * other batch clients.
+ *
+ * <p>A request's body is a single {@code CompilerMessage} or an array of them. By default, the
+ * frames sent back by the compiler (the same ones a {@code WebSocket} client gets, tagged with the
+ * {@code index} of their message) are streamed back as newline-delimited JSON. Detached requests
+ * return a job id right away and the frames are fetched later from {@code /compiler/jobs/<id>} or
+ * streamed as {@code Server-Sent Events} from {@code /compiler/jobs/<id>/events}.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class JobController extends Controller {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Identifies the client that sent a request. */
+  private final ClientIdentifier myClientIdentifier;
+
+  /** A factory for the compiler actors that handle each job request. */
+  private final CompilerActorFactory myCompilerActorFactory;
+
+  /** All the application-wide components needed by our compiler actors. */
+  private final CompilerServices myCompilerServices;
+
+  /** Amount of time without any frames before a {@code ping} event is sent. */
+  private final Duration myHeartbeatInterval;
+
+  /** Runs our compile jobs and keeps the records of the detached ones. */
+  private final JobRegistry myJobRegistry;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an object for handling the compile jobs submitted over {@code HTTP}.
+   *
+   * @param config The configuration manager.
+   * @param compilerActorFactory A factory for the compiler actors that handle each job request.
+   * @param compilerServices All the application-wide components needed by our compiler actors.
+   * @param jobRegistry Runs our compile jobs and keeps the records of the detached ones.
+   * @param clientIdentifier Identifies the client that sent a request.
+   */
+  @Inject
+  public JobController(
+      Config config,
+      CompilerActorFactory compilerActorFactory,
+      CompilerServices compilerServices,
+      JobRegistry jobRegistry,
+      ClientIdentifier clientIdentifier) {
+    myClientIdentifier = clientIdentifier;
+    myCompilerActorFactory = compilerActorFactory;
+    myCompilerServices = compilerServices;
+    myHeartbeatInterval = config.getDuration("webapi.compiler.jobs.heartbeatInterval");
+    myJobRegistry = jobRegistry;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method streams a detached job's frames as {@code Server-Sent Events}, for browsers whose
+   * proxies don't handle {@code WebSocket} upgrades. Each event's id is the frame's offset, so a
+   * reconnecting {@code EventSource} (which sends the {@code Last-Event-ID} header) resumes right
+   * after the last frame it received instead of restarting the compile job. A final {@code done}
+   * event tells the client the job is done and that it shouldn't reconnect.
+   *
+   * @param request The {@code HTTP} request.
+   * @param id The job's id.
+   * @return An {@link Result} object containing the event stream. The status code is {@code 404}
+   *     if the job doesn't exist or has expired.
+   */
+  public final Result events(Http.Request request, String id) {
+    Optional<JobRecord> record = myJobRegistry.get(id);
+    if (!record.isPresent()) {
+      return notFound(error("Job not found: " + id));
+    }
+
+    // Resume after the last frame the client has received (if any)
+    int from = 0;
+    Optional<String> lastEventId = request.getHeaders().get("Last-Event-ID");
+    if (lastEventId.isPresent()) {
+      try {
+        from = Integer.parseInt(lastEventId.get().trim()) + 1;
+      } catch (NumberFormatException e) {
+        return badRequest(error("Invalid Last-Event-ID: " + lastEventId.get()));
+      }
+    }
+
+    ObjectNode done = Json.newObject();
+    done.put("id", id);
+    done.put("status", "done");
+    Source<EventSource.Event, ?> events =
+        record
+            .get()
+            .stream(from)
+            .map(frame -> EventSource.Event.event(frame.second()).withId(frame.first().toString()))
+            .concat(Source.single(EventSource.Event.event(done).withName("done")))
+            .keepAlive(myHeartbeatInterval, () -> EventSource.Event.event("").withName("ping"));
+
+    return ok().chunked(events.via(EventSource.flow())).as(Http.MimeTypes.EVENT_STREAM);
+  }
+
+  /**
+   * This method returns the frames a detached job has sent back so far.
+   *
+   * @param id The job's id.
+   * @param from Offset of the first frame to be returned (the {@code next} value of the previous
+   *     response when polling).
+   * @return An {@link Result} object containing the job's status and frames. The status code is
+   *     {@code 404} if the job doesn't exist or has expired.
+   */
+  public final Result job(String id, int from) {
+    Optional<JobRecord> record = myJobRegistry.get(id);
+    if (!record.isPresent()) {
+      return notFound(error("Job not found: " + id));
+    }
+
+    // Checking this first ensures a job that is done has all its frames in the response
+    boolean done = record.get().isDone();
+    int offset = Math.max(0, from);
+    List<JsonNode> frames = record.get().getFrames(offset);
+
+    ObjectNode result = Json.newObject();
+    result.put("id", id);
+    result.put("job", record.get().getJob());
+    result.put("project", record.get().getProject());
+    result.put("status", done ? "done" : "running");
+    result.put("next", offset + frames.size());
+    ArrayNode framesArray = result.putArray("frames");
+    framesArray.addAll(frames);
+
+    return ok(result);
+  }
+
+  /**
+   * This method compiles the {@code CompilerMessages} in the request's body.
+   *
+   * @param request The {@code HTTP} request.
+   * @param job Name of the job to be executed.
+   * @param project RESOLVE project folder to be used.
+   * @param detach {@code true} to return a job id right away, {@code false} to stream the frames.
+   * @return An {@link Result} object containing the newline-delimited frames or, if {@code detach}
+   *     is set, the job's id ({@code 202}).
+   */
+  @BodyParser.Of(JobBodyParser.class)
+  public final Result submit(Http.Request request, String job, String project, boolean detach) {
+    if (!myCompilerActorFactory.isSupported(job)) {
+      return badRequest(error("Unsupported job request: " + job));
+    }
+
+    if (!myCompilerServices.getWorkspaceIndex().hasProject(project)) {
+      return notFound(error("Project not found: " + project));
+    }
+
+    List<JsonNode> payloads = payloads(request.body().asJson());
+    if (payloads.isEmpty()) {
+      return badRequest(error("Expecting a CompilerMessage or a non-empty array of them"));
+    }
+
+    String clientId = myClientIdentifier.clientId(request);
+    if (detach) {
+      Optional<JobRecord> record = myJobRegistry.submit(job, project, clientId, payloads);
+      if (!record.isPresent()) {
+        return status(SERVICE_UNAVAILABLE, error("Too many jobs. Please try again later!"));
+      }
+
+      String location = routes.JobController.job(record.get().getId(), 0).url();
+      ObjectNode result = Json.newObject();
+      result.put("id", record.get().getId());
+      result.put("status", "running");
+      result.put("location", location);
+
+      return status(ACCEPTED, result).withHeader(LOCATION, location);
+    } else {
+      // Cancelling the response (e.g. the client disconnects) stops the compiler actors
+      Source<ByteString, ?> frames =
+          myJobRegistry
+              .run(job, project, clientId, payloads)
+              .map(frame -> ByteString.fromString(frame.toString() + "\n"));
+
+      return ok().chunked(frames).as("application/x-ndjson");
+    }
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that creates an error message.
+   *
+   * @param msg Message to be displayed.
+   * @return A JSON object containing the error message.
+   */
+  private static ObjectNode error(String msg) {
+    ObjectNode result = Json.newObject();
+    result.put("status", "error");
+    result.put("msg", msg);
+
+    return result;
+  }
+
+  /**
+   * An helper method that extracts the {@code CompilerMessages} from a request's body.
+   *
+   * @param body The request's body.
+   * @return A list of JSON encoded {@code CompilerMessages} (empty if the body isn't a JSON object
+   *     or an array of JSON objects).
+   */
+  private static List<JsonNode> payloads(JsonNode body) {
+    List<JsonNode> payloads = new ArrayList<>();
+    if (body != null && body.isObject()) {
+      payloads.add(body);
+    } else if (body != null && body.isArray()) {
+      for (JsonNode element : body) {
+        if (!element.isObject()) {
+          return new ArrayList<>();
+        }
+        payloads.add(element);
+      }
+    }
+
+    return payloads;
+  }
+
+  // ===========================================================
+  // Public Classes
+  // ===========================================================
+
+  /**
+   * This class parses the request's body as JSON, allowing bodies up to {@code
+   * webapi.compiler.jobs.maxBodySize} (a batch of source files is usually larger than Play's
+   * default limit).
+   */
+  public static class JobBodyParser extends BodyParser.Json {
+
+    /**
+     * This creates a JSON parser using the {@code webapi.compiler.jobs.maxBodySize} setting.
+     *
+     * @param config The configuration manager.
+     * @param errorHandler The handler for malformed or oversized bodies.
+     */
+    @Inject
+    public JobBodyParser(Config config, HttpErrorHandler errorHandler) {
+      super(config.getBytes("webapi.compiler.jobs.maxBodySize"), errorHandler);
+    }
+  }
+}
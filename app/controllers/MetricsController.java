@@ -0,0 +1,71 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package controllers;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import compiler.metrics.MetricsRegistry;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.libs.Json;
+import play.mvc.Controller;
+import play.mvc.Result;
+
+/**
+ * This singleton class serves as the controller for reporting the metrics collected by the {@link
+ * MetricsRegistry}.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class MetricsController extends Controller {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The registry containing all our metrics. */
+  private final MetricsRegistry myMetricsRegistry;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an object for handling the metrics requests to this application.
+   *
+   * @param metricsRegistry The registry containing all our metrics.
+   */
+  @Inject
+  public MetricsController(MetricsRegistry metricsRegistry) {
+    myMetricsRegistry = metricsRegistry;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method returns the current value of every metric.
+   *
+   * @return An {@link Result} object containing a JSON object with one field per metric.
+   */
+  public final Result metrics() {
+    ObjectNode result = Json.newObject();
+    for (Map.Entry<String, Number> entry : myMetricsRegistry.snapshot().entrySet()) {
+      result.set(entry.getKey(), Json.toJson(entry.getValue()));
+    }
+
+    return ok(result);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package controllers;
+
+import akka.stream.javadsl.FileIO;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import compiler.output.OutputSpillStore;
+import compiler.output.SpilledOutput;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.http.HttpEntity;
+import play.libs.Json;
+import play.mvc.Controller;
+import play.mvc.Result;
+
+/**
+ * This singleton class serves as the controller for downloading the compilation results that were
+ * too large to be sent through a {@code WebSocket} (see {@link OutputSpillStore}).
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@Singleton
+public class OutputController extends Controller {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** This keeps the compilation results that are too large to be sent through a WebSocket. */
+  private final OutputSpillStore myOutputSpillStore;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an object for handling the output download requests to this application.
+   *
+   * @param outputSpillStore This keeps the compilation results that are too large to be sent
+   *     through a WebSocket.
+   */
+  @Inject
+  public OutputController(OutputSpillStore outputSpillStore) {
+    myOutputSpillStore = outputSpillStore;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method streams a spilled compilation result from its file.
+   *
+   * @param id The output's unique id.
+   * @return An {@link Result} object containing the {@code UTF-8} encoded output or an error if it
+   *     doesn't exist (or has expired).
+   */
+  public final Result output(String id) {
+    Optional<SpilledOutput> output = myOutputSpillStore.get(id);
+    if (!output.isPresent()) {
+      ObjectNode result = Json.newObject();
+      result.put("status", "error");
+      result.put("msg", "Output not found: " + id);
+
+      return notFound(result);
+    }
+
+    SpilledOutput spilledOutput = output.get();
+    return ok()
+        .sendEntity(
+            new HttpEntity.Streamed(
+                FileIO.fromPath(spilledOutput.getPath()),
+                Optional.of(spilledOutput.getSize()),
+                Optional.of("text/plain; charset=utf-8")))
+        .withHeader(
+            CONTENT_DISPOSITION, "inline; filename=\"" + spilledOutput.getFileName() + "\"");
+  }
+}
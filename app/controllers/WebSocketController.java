@@ -13,19 +13,25 @@ package controllers;
 
 import akka.actor.ActorSystem;
 import akka.stream.Materializer;
+import akka.stream.OverflowStrategy;
 import akka.stream.javadsl.Flow;
 import akka.stream.javadsl.Sink;
 import akka.stream.javadsl.Source;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.typesafe.config.Config;
-import compiler.actors.invokers.*;
-import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.LinkOption;
+import compiler.actors.CompilerActorFactory;
+import compiler.actors.CompilerServices;
+import compiler.actors.MultiplexActor;
+import compiler.capture.TrafficRecorder;
+import compiler.compression.FrameCompressor;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import play.api.http.websocket.CloseCodes;
+import play.http.websocket.Message;
+import play.libs.F;
 import play.libs.Json;
+import play.libs.Scala;
 import play.libs.streams.ActorFlow;
 import play.mvc.Controller;
 import play.mvc.Http;
@@ -48,14 +54,54 @@ public class WebSocketController extends Controller {
   // Member Fields
   // ===========================================================
 
+  /**
+   * Accepts both text frames (parsed as JSON) and binary frames (handed over as they are, see
+   * {@link compiler.inputmessage.BinaryMessageDecoder}) and sends the messages created by the
+   * {@link FrameCompressor}.
+   */
+  private static final WebSocket.MappedWebSocketAcceptor<Object, Message> JSON_OR_BINARY =
+      new WebSocket.MappedWebSocketAcceptor<>(
+          Scala.partialFunction(
+              message -> {
+                if (message instanceof Message.Text) {
+                  try {
+                    return F.Either.Left(Json.parse(((Message.Text) message).data()));
+                  } catch (RuntimeException e) {
+                    return F.Either.Right(
+                        new Message.Close(
+                            CloseCodes.Unacceptable(), "Unable to parse JSON message"));
+                  }
+                } else if (message instanceof Message.Binary) {
+                  return F.Either.Left(((Message.Binary) message).data());
+                } else {
+                  throw Scala.noMatch();
+                }
+              }),
+          message -> message);
+
   /** An actor system that keeps track of all user requests */
   private final ActorSystem myActorSystem;
 
+  /** Identifies the client that sent a request. */
+  private final ClientIdentifier myClientIdentifier;
+
+  /** A factory for the compiler actors that handle each job request. */
+  private final CompilerActorFactory myCompilerActorFactory;
+
+  /** All the application-wide components needed by our compiler actors. */
+  private final CompilerServices myCompilerServices;
+
+  /** Turns the frames we send into (possibly compressed) {@code WebSocket} messages. */
+  private final FrameCompressor myFrameCompressor;
+
+  /** Maximum number of jobs running on a multiplexed connection at the same time. */
+  private final int myMaxJobsPerConnection;
+
   /** A factory that makes the streams we create run. */
   private final Materializer myStreamMaterializer;
 
-  /** The directory where all the {@code RESOLVE} workspaces are located. */
-  private final String myWorkspaceDir;
+  /** Records the incoming messages when traffic capturing is enabled. */
+  private final TrafficRecorder myTrafficRecorder;
 
   // ===========================================================
   // Constructors
@@ -65,124 +111,155 @@ public class WebSocketController extends Controller {
    * This creates an object for handling the various different {@code WebSocket} requests to this
    * application.
    *
+   * @param config The configuration manager.
    * @param actorSystem An actor system for keeping track of all user requests.
    * @param materializer A factory that makes the streams we create run.
-   * @param config The configuration manager.
+   * @param compilerActorFactory A factory for the compiler actors that handle each job request.
+   * @param compilerServices All the application-wide components needed by our compiler actors.
+   * @param trafficRecorder Records the incoming messages when traffic capturing is enabled.
+   * @param frameCompressor Turns the frames we send into (possibly compressed) {@code WebSocket}
+   *     messages.
+   * @param clientIdentifier Identifies the client that sent a request.
    */
   @Inject
-  public WebSocketController(ActorSystem actorSystem, Materializer materializer, Config config) {
+  public WebSocketController(
+      Config config,
+      ActorSystem actorSystem,
+      Materializer materializer,
+      CompilerActorFactory compilerActorFactory,
+      CompilerServices compilerServices,
+      TrafficRecorder trafficRecorder,
+      FrameCompressor frameCompressor,
+      ClientIdentifier clientIdentifier) {
     myActorSystem = actorSystem;
+    myClientIdentifier = clientIdentifier;
+    myCompilerActorFactory = compilerActorFactory;
+    myCompilerServices = compilerServices;
+    myFrameCompressor = frameCompressor;
+    myMaxJobsPerConnection = config.getInt("webapi.compiler.mux.maxJobsPerConnection");
     myStreamMaterializer = materializer;
-    myWorkspaceDir = config.getString("webapi.workingdir");
+    myTrafficRecorder = trafficRecorder;
   }
 
   // ===========================================================
   // Public Methods
   // ===========================================================
 
+  /**
+   * This method creates a {@code WebSocket} that runs several compiler requests (of any job and
+   * project) at the same time. Each message names its own job and project and carries a
+   * client-chosen id that every response is tagged with. The connection's frame buffer has room
+   * for all of its jobs, and the connection fails if a slow client lets it overflow.
+   *
+   * @return A {@link WebSocket} object.
+   */
+  public final WebSocket mux() {
+    return WebSocket.Json.accept(
+        (Http.RequestHeader request) ->
+            ActorFlow.actorRef(
+                out ->
+                    MultiplexActor.props(
+                        out,
+                        myClientIdentifier.clientId(request),
+                        myCompilerActorFactory,
+                        myCompilerServices.getWorkspaceIndex(),
+                        myMaxJobsPerConnection),
+                myMaxJobsPerConnection * myCompilerServices.getFrameBufferSize(),
+                OverflowStrategy.fail(),
+                myActorSystem,
+                myStreamMaterializer));
+  }
+
   /**
    * This method creates a {@code WebSocket} for handling different compiler requests.
    *
    * @param job Name of the job to be executed.
    * @param project RESOLVE project folder to be used.
+   * @param compress {@code true} if the client accepts compressed (binary) frames, {@code false}
+   *     otherwise.
    * @return A {@link WebSocket} object.
    */
-  public final WebSocket socket(String job, String project) {
+  public final WebSocket socket(String job, String project, boolean compress) {
     // YS: As noted in the documentation, Play's WebSocket is built using Akka streams.
     //     Therefore, we are using the helper method that Play supplies to build
     //     a Flow of Json objects. To make things simpler, we have created Actors for
     //     each of the different compiler actions and add the various different messages
-    //     depending on what we encounter.
-    return WebSocket.Json.accept(
-        (Http.RequestHeader request) -> {
-          // Check to see if that project folder exists
-          if (projectExists(project)) {
-            // Create the invokers to handle the specified job request.
-            String lowercaseJob = job.toLowerCase();
-
-            // Create a WebSocket using the appropriate compiler actor
-            // to construct a flow.
-            Flow<JsonNode, JsonNode, ?> flow;
-            switch (lowercaseJob) {
-              case "analyze":
-                flow =
-                    ActorFlow.actorRef(
-                        out -> AnalyzeInvokerActor.props(out, job, project, myWorkspaceDir),
-                        myActorSystem,
-                        myStreamMaterializer);
-                break;
-              case "buildjar":
-                flow =
-                    ActorFlow.actorRef(
-                        out -> JarInvokerActor.props(out, job, project, myWorkspaceDir),
-                        myActorSystem,
-                        myStreamMaterializer);
-                break;
-              case "ccverify":
-                flow =
-                    ActorFlow.actorRef(
-                        out -> CCVerifyInvokerActor.props(out, job, project, myWorkspaceDir),
-                        myActorSystem,
-                        myStreamMaterializer);
-                break;
-              case "genvcs":
-                flow =
-                    ActorFlow.actorRef(
-                        out -> VCInvokerActor.props(out, job, project, myWorkspaceDir),
-                        myActorSystem,
-                        myStreamMaterializer);
-                break;
-              case "translatejava":
-                flow =
-                    ActorFlow.actorRef(
-                        out -> TranslateJavaInvokerActor.props(out, job, project, myWorkspaceDir),
-                        myActorSystem,
-                        myStreamMaterializer);
-                break;
-              default:
-                flow = null;
-                break;
-            }
-
-            // Check to see if we have constructed the appropriate actor flow for handling
-            // the specified job request.
-            if (flow != null) {
-              return flow;
-            } else {
-              // Ignore all input from the user
-              Sink<JsonNode, ?> in = Sink.ignore();
-
-              // Create an JSON object informing that the specified job is unsupported.
-              ObjectNode result = Json.newObject();
-              result.put("status", "error");
-              result.put("msg", "Unsupported job request: " + job);
-
-              // Send the message and close the socket
-              Source<JsonNode, ?> out = Source.single(result);
-
-              return Flow.fromSinkAndSource(in, out);
-            }
-          } else {
-            // Ignore all input from the user
-            Sink<JsonNode, ?> in = Sink.ignore();
-
-            // Create an JSON object informing that the project was not found.
-            ObjectNode result = Json.newObject();
-            result.put("status", "error");
-            result.put("msg", "Project not found: " + project);
-
-            // Send the message and close the socket
-            Source<JsonNode, ?> out = Source.single(result);
-
-            return Flow.fromSinkAndSource(in, out);
-          }
-        });
+    //     depending on what we encounter. Files may also be sent as binary frames, which
+    //     are handed to the actors as they are. The frames we send are compressed
+    //     if the client asked for it.
+    return JSON_OR_BINARY.accept(
+        (Http.RequestHeader request) ->
+            myFrameCompressor.compress(compilerFlow(request, job, project), compress));
   }
 
   // ===========================================================
   // Private Methods
   // ===========================================================
 
+  /**
+   * An helper method that creates the flow of frames for a compiler request.
+   *
+   * @param request The {@code WebSocket}'s request.
+   * @param job Name of the job to be executed.
+   * @param project RESOLVE project folder to be used.
+   * @return A flow that handles the user's messages or an error if the request isn't valid.
+   */
+  private Flow<Object, JsonNode, ?> compilerFlow(
+      Http.RequestHeader request, String job, String project) {
+    // Check to see if that project folder exists
+    if (projectExists(project)) {
+      // Create a WebSocket using the appropriate compiler actor
+      // to construct a flow.
+      Flow<Object, JsonNode, ?> flow;
+      if (myCompilerActorFactory.isSupported(job)) {
+        flow =
+            ActorFlow.actorRef(
+                out ->
+                    myCompilerActorFactory.props(
+                        out, job, project, myClientIdentifier.clientId(request)),
+                myCompilerServices.getFrameBufferSize(),
+                OverflowStrategy.fail(),
+                myActorSystem,
+                myStreamMaterializer);
+      } else {
+        flow = null;
+      }
+
+      // Check to see if we have constructed the appropriate actor flow for handling
+      // the specified job request.
+      if (flow != null) {
+        // Record the incoming messages if traffic capturing is enabled
+        return myTrafficRecorder.capture(job, project, flow);
+      } else {
+        // Ignore all input from the user
+        Sink<Object, ?> in = Sink.ignore();
+
+        // Create an JSON object informing that the specified job is unsupported.
+        ObjectNode result = Json.newObject();
+        result.put("status", "error");
+        result.put("msg", "Unsupported job request: " + job);
+
+        // Send the message and close the socket
+        Source<JsonNode, ?> out = Source.single(result);
+
+        return Flow.fromSinkAndSource(in, out);
+      }
+    } else {
+      // Ignore all input from the user
+      Sink<Object, ?> in = Sink.ignore();
+
+      // Create an JSON object informing that the project was not found.
+      ObjectNode result = Json.newObject();
+      result.put("status", "error");
+      result.put("msg", "Project not found: " + project);
+
+      // Send the message and close the socket
+      Source<JsonNode, ?> out = Source.single(result);
+
+      return Flow.fromSinkAndSource(in, out);
+    }
+  }
+
   /**
    * An helper method that checks if the project name specified by the user's request is valid.
    *
@@ -190,7 +267,6 @@ public class WebSocketController extends Controller {
    * @return {@code true} if a directory exists with that name, {@code false} otherwise.
    */
   private boolean projectExists(String project) {
-    return Files.exists(
-        new File(myWorkspaceDir + File.separator + project).toPath(), LinkOption.NOFOLLOW_LINKS);
+    return myCompilerServices.getWorkspaceIndex().hasProject(project);
   }
 }
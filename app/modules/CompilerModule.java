@@ -0,0 +1,89 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package modules;
+
+import com.google.inject.AbstractModule;
+import com.typesafe.config.Config;
+import compiler.backend.ClusterCompilerBackend;
+import compiler.backend.CompilerBackend;
+import compiler.backend.ForkedWorkerCompilerBackend;
+import compiler.backend.ResolveCompilerBackend;
+import compiler.backend.StubCompilerBackend;
+import compiler.warmup.CompilerWarmUp;
+import play.Environment;
+
+/**
+ * This is the {@code Guice} module that binds all the compiler related components used by this
+ * application.
+ *
+ * <p>For more information, see: <a
+ * href="https://www.playframework.com/documentation/latest/JavaDependencyInjection">Dependency
+ * Injection</a>
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class CompilerModule extends AbstractModule {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The configuration manager. */
+  private final Config myConfiguration;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates the module responsible for binding the compiler related components.
+   *
+   * @param environment Contains all information related current deployment environment.
+   * @param config The configuration manager.
+   */
+  public CompilerModule(Environment environment, Config config) {
+    myConfiguration = config;
+  }
+
+  // ===========================================================
+  // Protected Methods
+  // ===========================================================
+
+  /**
+   * This method binds the compiler backend specified by {@code webapi.compiler.backend} and starts
+   * the warm-up stage as soon as the application is created.
+   */
+  @Override
+  protected final void configure() {
+    String backend = myConfiguration.getString("webapi.compiler.backend").toLowerCase();
+    switch (backend) {
+      case "cluster":
+        // Every node must start its compile worker, even if it never receives a request itself
+        bind(CompilerBackend.class).to(ClusterCompilerBackend.class).asEagerSingleton();
+        break;
+      case "forked":
+        bind(CompilerBackend.class).to(ForkedWorkerCompilerBackend.class);
+        break;
+      case "resolve":
+        bind(CompilerBackend.class).to(ResolveCompilerBackend.class);
+        break;
+      case "stub":
+        bind(CompilerBackend.class).to(StubCompilerBackend.class);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown compiler backend: " + backend);
+    }
+
+    bind(CompilerWarmUp.class).asEagerSingleton();
+  }
+}
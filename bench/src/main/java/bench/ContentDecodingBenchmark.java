@@ -0,0 +1,145 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package bench;
+
+import akka.util.ByteString;
+import akka.util.ByteStringBuilder;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import compiler.inputmessage.BinaryMessageDecoder;
+import compiler.inputmessage.CompilerMessage;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import play.libs.Json;
+
+/**
+ * This benchmark compares the cost of turning an incoming file into the compiler's {@link
+ * CharStream} when it is sent as a JSON text frame (parsed, mapped to a {@link CompilerMessage},
+ * URL-decoded and then copied into a stream) and when it is sent as a binary frame (decoded
+ * straight into the stream by {@link BinaryMessageDecoder}). Run it using the {@code gc} profiler
+ * to see how many bytes each path allocates per file ({@code gc.alloc.rate.norm}):
+ *
+ * <pre>
+ * sbt "bench/jmh:run -prof gc ContentDecodingBenchmark"
+ * </pre>
+ *
+ * <p>(Note: Play has already decoded a text frame into a {@link String} before it reaches the
+ * compiler actor, so that copy isn't counted for the text path.)
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContentDecodingBenchmark {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** A line of a theory file (with a few non-ASCII symbols) used to build the file's content. */
+  private static final String SAMPLE_LINE =
+      "    Theorem Lemma_1: For all S: Str(Entity), S ⊆ S ∧ |S| ≥ 0;\n";
+
+  /** The file sent as a binary frame. */
+  private ByteString myBinaryFrame;
+
+  /** Number of characters in the file. */
+  @Param({"4096", "262144", "4194304"})
+  public int myContentSize;
+
+  /** The file sent as a JSON text frame. */
+  private String myTextFrame;
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method decodes the file sent as a binary frame.
+   *
+   * @return The compiler's {@link CharStream}.
+   */
+  @Benchmark
+  public final CharStream binaryFrame() {
+    CompilerMessage message = BinaryMessageDecoder.decode(myBinaryFrame, Integer.MAX_VALUE);
+
+    return message.contentBuffer.toCharStream(message.name);
+  }
+
+  /**
+   * This method decodes the file sent as a JSON text frame, the same way the {@code /compiler}
+   * {@code WebSocket} and {@code AbstractCompilerActor.decode} do.
+   *
+   * @return The compiler's {@link CharStream}.
+   * @throws UnsupportedEncodingException This shouldn't happen.
+   */
+  @Benchmark
+  public final CharStream jsonTextFrame() throws UnsupportedEncodingException {
+    CompilerMessage message = Json.fromJson(Json.parse(myTextFrame), CompilerMessage.class);
+    String decoded = URLDecoder.decode(message.content.replaceAll("%20", " "), "UTF-8");
+
+    return CharStreams.fromString(decoded, message.name);
+  }
+
+  /**
+   * This method builds the file and both of its frames.
+   *
+   * @throws UnsupportedEncodingException This shouldn't happen.
+   */
+  @Setup
+  public final void setup() throws UnsupportedEncodingException {
+    StringBuilder sb = new StringBuilder(myContentSize + SAMPLE_LINE.length());
+    while (sb.length() < myContentSize) {
+      sb.append(SAMPLE_LINE);
+    }
+    String content = sb.substring(0, myContentSize);
+
+    ObjectNode header = Json.newObject();
+    header.put("name", "Benchmark_Theory");
+    header.put("type", "t");
+    header.put("project", "RESOLVE-Workspace");
+
+    // Browsers encode the content using encodeURIComponent
+    ObjectNode textMessage = header.deepCopy();
+    textMessage.put("content", URLEncoder.encode(content, "UTF-8").replace("+", "%20"));
+    myTextFrame = Json.stringify(textMessage);
+
+    byte[] headerBytes = Json.stringify(header).getBytes(StandardCharsets.UTF_8);
+    myBinaryFrame =
+        new ByteStringBuilder()
+            .putByte((byte) (headerBytes.length >>> 8))
+            .putByte((byte) headerBytes.length)
+            .putBytes(headerBytes)
+            .putBytes(content.getBytes(StandardCharsets.UTF_8))
+            .result();
+  }
+}
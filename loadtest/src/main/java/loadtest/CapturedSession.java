@@ -0,0 +1,161 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package loadtest;
+
+import akka.japi.Pair;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class contains one {@code WebSocket} session recorded by the WebAPI's {@code
+ * TrafficRecorder}: the job and project it was opened with, when it was opened and the messages
+ * that were sent (relative to the time it was opened).
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class CapturedSession {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Name of the job to be executed. */
+  public final String job;
+
+  /** Pairs of offsets (relative to {@link #openedAt}) and JSON encoded messages. */
+  public final List<Pair<Duration, String>> messages;
+
+  /** Wall clock time (in milliseconds) when the session was opened. */
+  public final long openedAt;
+
+  /** {@code RESOLVE} project folder to be used. */
+  public final String project;
+
+  /** Number of messages whose content was truncated (or not stored) by the recorder. */
+  public final int truncatedMessages;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a captured session.
+   *
+   * @param job Name of the job to be executed.
+   * @param project {@code RESOLVE} project folder to be used.
+   * @param openedAt Wall clock time (in milliseconds) when the session was opened.
+   * @param messages Pairs of offsets and JSON encoded messages.
+   * @param truncatedMessages Number of messages whose content was truncated.
+   */
+  private CapturedSession(
+      String job,
+      String project,
+      long openedAt,
+      List<Pair<Duration, String>> messages,
+      int truncatedMessages) {
+    this.job = job;
+    this.messages = messages;
+    this.openedAt = openedAt;
+    this.project = project;
+    this.truncatedMessages = truncatedMessages;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method reads a capture log and groups its records by session. The sessions are returned
+   * in the order they were opened.
+   *
+   * @param logFile Path to the capture log.
+   * @return The captured sessions.
+   * @throws IOException If the log can't be read.
+   */
+  public static List<CapturedSession> load(String logFile) throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    Map<String, List<JsonNode>> records = new LinkedHashMap<>();
+    try (BufferedReader reader =
+        Files.newBufferedReader(Paths.get(logFile), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.trim().isEmpty()) {
+          JsonNode record = mapper.readTree(line);
+          records
+              .computeIfAbsent(record.path("session").asText(), k -> new ArrayList<>())
+              .add(record);
+        }
+      }
+    }
+
+    List<CapturedSession> sessions = new ArrayList<>();
+    for (List<JsonNode> sessionRecords : records.values()) {
+      sessions.add(fromRecords(mapper, sessionRecords));
+    }
+    sessions.sort(Comparator.comparingLong(session -> session.openedAt));
+
+    return sessions;
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that builds a session from all of its records.
+   *
+   * @param mapper A {@code Jackson} object mapper.
+   * @param records All the records that belong to a session.
+   * @return The captured session.
+   */
+  private static CapturedSession fromRecords(ObjectMapper mapper, List<JsonNode> records) {
+    JsonNode first = records.get(0);
+    long openedAt = first.path("timestamp").asLong() - first.path("offsetMillis").asLong();
+    List<Pair<Duration, String>> messages = new ArrayList<>();
+    int truncated = 0;
+    for (JsonNode record : records) {
+      if (record.path("event").asText().equals("message")) {
+        JsonNode captured = record.path("message");
+        ObjectNode message = mapper.createObjectNode();
+        for (String field : new String[] {"name", "type", "project", "content"}) {
+          if (captured.hasNonNull(field)) {
+            message.put(field, captured.get(field).asText());
+          }
+        }
+
+        if (captured.path("truncated").asBoolean()) {
+          truncated++;
+        }
+
+        messages.add(
+            Pair.create(
+                Duration.ofMillis(record.path("offsetMillis").asLong()), message.toString()));
+      }
+    }
+
+    return new CapturedSession(
+        first.path("job").asText(), first.path("project").asText(), openedAt, messages, truncated);
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package loadtest;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.model.ws.Message;
+import akka.http.javadsl.model.ws.TextMessage;
+import akka.http.javadsl.model.ws.WebSocketRequest;
+import akka.http.javadsl.model.ws.WebSocketUpgradeResponse;
+import akka.japi.Pair;
+import akka.pattern.Patterns;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class opens a {@code WebSocket} to the compiler, sends one or more {@code CompilerMessage
+ * CompilerMessages} and measures how long it takes for the server to respond and to close the
+ * connection.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class CompilerSocketClient {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The {@code Akka HTTP} extension used to open connections. */
+  private final Http myHttp;
+
+  /** A {@code Jackson} object mapper used to read the status of each frame. */
+  private final ObjectMapper myMapper;
+
+  /** A factory that makes the streams we create run. */
+  private final Materializer myMaterializer;
+
+  /** The actor system that runs our connections. */
+  private final ActorSystem mySystem;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a client that uses the specified actor system to open connections.
+   *
+   * @param system The actor system that runs our connections.
+   * @param materializer A factory that makes the streams we create run.
+   */
+  public CompilerSocketClient(ActorSystem system, Materializer materializer) {
+    myHttp = Http.get(system);
+    myMapper = new ObjectMapper();
+    myMaterializer = materializer;
+    mySystem = system;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method opens a new {@code WebSocket}, sends {@code payload} and waits for the server to
+   * close the connection. The returned stage never completes exceptionally; failures are recorded
+   * in the {@link RequestResult}.
+   *
+   * @param uri The complete {@code WebSocket} URI.
+   * @param payload A JSON encoded {@code CompilerMessage}.
+   * @param timeout Maximum amount of time to wait for the request.
+   * @return A stage that completes with the request's outcome.
+   */
+  public final CompletionStage<RequestResult> submit(String uri, String payload, Duration timeout) {
+    return submit(uri, Collections.singletonList(Pair.create(Duration.ZERO, payload)), timeout);
+  }
+
+  /**
+   * This method opens a new {@code WebSocket}, sends each payload once its delay (relative to the
+   * time the connection was opened) has passed and waits for the server to close the connection.
+   * The returned stage never completes exceptionally; failures are recorded in the {@link
+   * RequestResult}.
+   *
+   * @param uri The complete {@code WebSocket} URI.
+   * @param payloads Pairs of delays and JSON encoded {@code CompilerMessage CompilerMessages}.
+   * @param timeout Maximum amount of time to wait for the request.
+   * @return A stage that completes with the request's outcome.
+   */
+  public final CompletionStage<RequestResult> submit(
+      String uri, List<Pair<Duration, String>> payloads, Duration timeout) {
+    long start = System.nanoTime();
+    AtomicLong firstFrame = new AtomicLong(-1);
+    AtomicInteger frames = new AtomicInteger();
+    AtomicBoolean receivedError = new AtomicBoolean(false);
+
+    // Incoming frames only need to be timed and checked for errors.
+    Sink<Message, CompletionStage<Done>> in =
+        Flow.<Message>create()
+            .mapAsync(1, this::readText)
+            .toMat(
+                Sink.foreach(
+                    text -> {
+                      firstFrame.compareAndSet(-1, System.nanoTime());
+                      frames.incrementAndGet();
+                      if (isErrorFrame(text)) {
+                        receivedError.set(true);
+                      }
+                    }),
+                Keep.right());
+
+    // Keep our end open until the server is done with us.
+    Source<Message, CompletableFuture<Optional<Message>>> out =
+        Source.from(payloads)
+            .mapAsync(1, p -> sendAt(start, p.first(), p.second()))
+            .concatMat(Source.<Message>maybe(), Keep.right());
+
+    Pair<
+            CompletionStage<WebSocketUpgradeResponse>,
+            Pair<CompletionStage<Done>, CompletableFuture<Optional<Message>>>>
+        connection =
+            myHttp.singleWebSocketRequest(
+                WebSocketRequest.create(uri),
+                Flow.fromSinkAndSourceMat(in, out, Keep.both()),
+                myMaterializer);
+    CompletableFuture<Optional<Message>> closeOurEnd = connection.second().second();
+
+    CompletableFuture<RequestResult> result = new CompletableFuture<>();
+    connection
+        .first()
+        .thenAccept(
+            upgrade -> {
+              if (!upgrade.isValid()) {
+                result.complete(
+                    new RequestResult(
+                        start, -1, System.nanoTime(), 0, false, upgrade.invalidationReason()));
+              }
+            });
+    connection
+        .second()
+        .first()
+        .whenComplete(
+            (done, t) ->
+                result.complete(
+                    new RequestResult(
+                        start,
+                        firstFrame.get(),
+                        System.nanoTime(),
+                        frames.get(),
+                        receivedError.get(),
+                        t == null ? null : String.valueOf(t.getMessage()))));
+    mySystem
+        .scheduler()
+        .scheduleOnce(
+            timeout,
+            () ->
+                result.complete(
+                    new RequestResult(
+                        start,
+                        firstFrame.get(),
+                        System.nanoTime(),
+                        frames.get(),
+                        receivedError.get(),
+                        "Timed out")),
+            mySystem.dispatcher());
+
+    // Close our end once we have an answer (no-op if the server already closed it)
+    return result.whenComplete((r, t) -> closeOurEnd.complete(Optional.empty()));
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that checks to see if a frame has an error status.
+   *
+   * @param text A text frame's content.
+   * @return {@code true} if the frame is an error, {@code false} otherwise.
+   */
+  private boolean isErrorFrame(String text) {
+    try {
+      return !text.isEmpty() && "error".equals(myMapper.readTree(text).path("status").asText());
+    } catch (IOException e) {
+      return true;
+    }
+  }
+
+  /**
+   * An helper method that collects the (possibly streamed) contents of a frame.
+   *
+   * @param message A frame received from the server.
+   * @return A stage that completes with the frame's text or an empty string for binary frames.
+   */
+  private CompletionStage<String> readText(Message message) {
+    if (message.isText()) {
+      TextMessage textMessage = message.asTextMessage();
+      if (textMessage.isStrict()) {
+        return CompletableFuture.completedFuture(textMessage.getStrictText());
+      }
+
+      return textMessage.getStreamedText().runFold("", String::concat, myMaterializer);
+    }
+
+    return message
+        .asBinaryMessage()
+        .getStreamedData()
+        .runWith(Sink.ignore(), myMaterializer)
+        .thenApply(done -> "");
+  }
+
+  /**
+   * An helper method that creates a frame once {@code delay} has passed since {@code start}.
+   *
+   * @param start Time (in nanoseconds) when the connection was opened.
+   * @param delay Delay relative to {@code start}.
+   * @param payload A JSON encoded {@code CompilerMessage}.
+   * @return A stage that completes with the frame at the scheduled time.
+   */
+  private CompletionStage<Message> sendAt(long start, Duration delay, String payload) {
+    Message message = TextMessage.create(payload);
+    long wait = start + delay.toNanos() - System.nanoTime();
+    if (wait <= 0) {
+      return CompletableFuture.completedFuture(message);
+    }
+
+    return Patterns.after(
+        Duration.ofNanos(wait),
+        mySystem.scheduler(),
+        mySystem.dispatcher(),
+        () -> CompletableFuture.completedFuture(message));
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class loads all the source files in a directory and turns each of them into a ready to send
+ * {@code CompilerMessage} payload. Payloads are handed out in a round robin fashion.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class Corpus {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Index of the next payload to be handed out. */
+  private final AtomicInteger myNextIndex;
+
+  /** The JSON encoded {@code CompilerMessage} payloads. */
+  private final List<String> myPayloads;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates a corpus containing the specified payloads.
+   *
+   * @param payloads The JSON encoded {@code CompilerMessage} payloads.
+   */
+  private Corpus(List<String> payloads) {
+    myNextIndex = new AtomicInteger();
+    myPayloads = payloads;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method loads every regular file in {@code corpusDir}. The file name (without its
+   * extension) is used as the message's {@code name}.
+   *
+   * @param corpusDir Directory containing the source files.
+   * @param project {@code RESOLVE} project folder to be used.
+   * @param type The file type sent in each message.
+   * @return A {@link Corpus} with one payload per file.
+   * @throws IOException If the directory or one of its files can't be read.
+   */
+  public static Corpus load(String corpusDir, String project, String type) throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    List<Path> files;
+    try (Stream<Path> stream = Files.list(Paths.get(corpusDir))) {
+      files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    }
+
+    List<String> payloads = new ArrayList<>();
+    for (Path file : files) {
+      String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      payloads.add(toPayload(mapper, baseName(file), type, project, content));
+    }
+
+    if (payloads.isEmpty()) {
+      throw new IOException("No source files found in: " + corpusDir);
+    }
+
+    return new Corpus(payloads);
+  }
+
+  /**
+   * This method returns the next payload.
+   *
+   * @return A JSON encoded {@code CompilerMessage}.
+   */
+  public final String next() {
+    return myPayloads.get(Math.floorMod(myNextIndex.getAndIncrement(), myPayloads.size()));
+  }
+
+  /**
+   * This method returns the number of payloads in this corpus.
+   *
+   * @return The number of payloads.
+   */
+  public final int size() {
+    return myPayloads.size();
+  }
+
+  /**
+   * This method builds a JSON encoded {@code CompilerMessage} using the same content encoding the
+   * WebAPI expects.
+   *
+   * @param mapper A {@code Jackson} object mapper.
+   * @param name Name of the file.
+   * @param type The file type.
+   * @param project {@code RESOLVE} project folder to be used.
+   * @param content Contents of the file.
+   * @return The JSON encoded {@code CompilerMessage}.
+   */
+  public static String toPayload(
+      ObjectMapper mapper, String name, String type, String project, String content) {
+    ObjectNode message = mapper.createObjectNode();
+    message.put("name", name);
+    message.put("type", type);
+    message.put("project", project);
+
+    try {
+      message.put("content", URLEncoder.encode(content, "UTF-8"));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+
+    return message.toString();
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that returns a file's name without its extension.
+   *
+   * @param file A file path.
+   * @return The file name without the extension.
+   */
+  private static String baseName(Path file) {
+    String fileName = file.getFileName().toString();
+    int dot = fileName.lastIndexOf('.');
+
+    return dot > 0 ? fileName.substring(0, dot) : fileName;
+  }
+}
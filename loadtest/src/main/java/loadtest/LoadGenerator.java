@@ -0,0 +1,135 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package loadtest;
+
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the entry point for the {@code /compiler} load generator. It opens up to {@code
+ * --clients} concurrent {@code WebSockets}, each submitting one payload from the corpus, paced at
+ * {@code --rate} requests per second, and prints a {@link LoadReport} once every request has
+ * completed.
+ *
+ * <p>To measure the WebAPI's own overhead, run the application with {@code
+ * webapi.compiler.backend = "stub"}.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class LoadGenerator {
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * The main method for the load generator.
+   *
+   * @param args Command line arguments (see {@link LoadTestOptions#usage()}).
+   * @throws Exception If the corpus can't be loaded or the test is interrupted.
+   */
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options;
+    try {
+      options = LoadTestOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(LoadTestOptions.usage());
+      System.exit(1);
+      return;
+    }
+
+    if (options.help) {
+      System.out.println(LoadTestOptions.usage());
+      return;
+    }
+
+    Corpus corpus = Corpus.load(options.corpusDir, options.project, options.type);
+    System.out.println(
+        "Loaded "
+            + corpus.size()
+            + " payloads. Sending "
+            + options.requests
+            + " requests to "
+            + options.socketUri()
+            + " using "
+            + options.clients
+            + " clients.");
+
+    ActorSystem system = ActorSystem.create("loadtest");
+    try {
+      CompilerSocketClient client =
+          new CompilerSocketClient(system, Materializer.matFromSystem(system));
+      LoadReport report = new LoadReport();
+      long elapsed = run(options, corpus, client, report);
+      report.print(System.out, elapsed);
+    } finally {
+      system.terminate();
+    }
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that submits all the requests and waits for them to complete.
+   *
+   * @param options The user specified options.
+   * @param corpus The payloads to be sent.
+   * @param client A client that submits the payloads.
+   * @param report The report where all the results are collected.
+   * @return How long the test ran in nanoseconds.
+   * @throws InterruptedException If we are interrupted while waiting.
+   */
+  private static long run(
+      LoadTestOptions options, Corpus corpus, CompilerSocketClient client, LoadReport report)
+      throws InterruptedException {
+    Semaphore idleClients = new Semaphore(options.clients);
+    String uri = options.socketUri();
+    long begin = System.nanoTime();
+    long deadline = options.duration == null ? Long.MAX_VALUE : begin + options.duration.toNanos();
+    long interval = options.rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / options.rate) : 0;
+
+    for (int i = 0; i < options.requests && System.nanoTime() < deadline; i++) {
+      // Open loop pacing: wait for this request's scheduled start time.
+      long scheduled = begin + i * interval;
+      long wait = scheduled - System.nanoTime();
+      if (wait > 0) {
+        TimeUnit.NANOSECONDS.sleep(wait);
+      }
+
+      if (!idleClients.tryAcquire()) {
+        if (interval > 0) {
+          report.addLateStart();
+        }
+        idleClients.acquire();
+      }
+
+      client
+          .submit(uri, corpus.next(), options.timeout)
+          .whenComplete(
+              (result, t) -> {
+                report.add(result);
+                idleClients.release();
+              });
+    }
+
+    // Wait for the in-flight requests
+    idleClients.acquire(options.clients);
+
+    return System.nanoTime() - begin;
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package loadtest;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class collects the {@link RequestResult RequestResults} of a test run and summarizes them
+ * as throughput, latency percentiles and error rate.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class LoadReport {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Number of requests that started later than their scheduled time. */
+  private int myLateStarts;
+
+  /** All the results collected so far. */
+  private final List<RequestResult> myResults;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /** This creates an empty report. */
+  public LoadReport() {
+    myLateStarts = 0;
+    myResults = new ArrayList<>();
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method adds the result of a completed request.
+   *
+   * @param result A request's outcome.
+   */
+  public final synchronized void add(RequestResult result) {
+    myResults.add(result);
+  }
+
+  /**
+   * This method records that a request started later than scheduled because every client was
+   * busy.
+   */
+  public final synchronized void addLateStart() {
+    myLateStarts++;
+  }
+
+  /**
+   * This method prints the summary of all the collected results.
+   *
+   * @param out The stream to print to.
+   * @param elapsedNanos How long the test ran.
+   */
+  public final synchronized void print(PrintStream out, long elapsedNanos) {
+    int total = myResults.size();
+    int errors = 0;
+    int failures = 0;
+    List<Long> firstFrameTimes = new ArrayList<>();
+    long[] completeTimes = new long[total];
+    for (int i = 0; i < total; i++) {
+      RequestResult result = myResults.get(i);
+      if (result.failure != null) {
+        failures++;
+      } else if (result.receivedError) {
+        errors++;
+      }
+
+      if (result.timeToFirstFrame() >= 0) {
+        firstFrameTimes.add(result.timeToFirstFrame());
+      }
+      completeTimes[i] = result.timeToComplete();
+    }
+
+    long[] firstFrames = firstFrameTimes.stream().mapToLong(Long::longValue).toArray();
+    Arrays.sort(firstFrames);
+    Arrays.sort(completeTimes);
+
+    double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    out.println("Requests:           " + total + " in " + String.format("%.2f", seconds) + "s");
+    out.println("Throughput:         " + String.format("%.2f", total / seconds) + " req/s");
+    out.println(
+        "Error rate:         "
+            + String.format("%.2f", total == 0 ? 0.0 : 100.0 * (errors + failures) / total)
+            + "% ("
+            + errors
+            + " error responses, "
+            + failures
+            + " transport failures/timeouts)");
+    out.println("Late starts:        " + myLateStarts + " (all clients were busy)");
+    out.println("Time to first frame " + percentiles(firstFrames));
+    out.println("Time to complete    " + percentiles(completeTimes));
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that returns the nearest-rank percentile of a sorted array.
+   *
+   * @param sorted Sorted values.
+   * @param percentile A percentile between 0 and 100.
+   * @return The value at that percentile.
+   */
+  private static long percentile(long[] sorted, double percentile) {
+    int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+
+    return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+  }
+
+  /**
+   * An helper method that formats the p50, p99 and p999 values of a sorted array of nanosecond
+   * timings in milliseconds.
+   *
+   * @param sorted Sorted timings in nanoseconds.
+   * @return A formatted string.
+   */
+  private static String percentiles(long[] sorted) {
+    if (sorted.length == 0) {
+      return "(no samples)";
+    }
+
+    return String.format(
+        "p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms",
+        percentile(sorted, 50) / 1e6,
+        percentile(sorted, 99) / 1e6,
+        percentile(sorted, 99.9) / 1e6,
+        sorted[sorted.length - 1] / 1e6);
+  }
+}
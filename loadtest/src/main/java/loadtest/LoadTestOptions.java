@@ -0,0 +1,168 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package loadtest;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class contains all the command line options accepted by the {@link LoadGenerator}.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class LoadTestOptions {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Number of concurrent {@code WebSocket} clients. */
+  public final int clients;
+
+  /** Directory containing the source files to be submitted. */
+  public final String corpusDir;
+
+  /** Maximum amount of time to run the test ({@code null} means no limit). */
+  public final Duration duration;
+
+  /** Flag that indicates the user only wants the usage message. */
+  public final boolean help;
+
+  /** Name of the compiler job to be executed. */
+  public final String job;
+
+  /** {@code RESOLVE} project folder to be used. */
+  public final String project;
+
+  /** Target number of requests started per second ({@code 0} means as fast as possible). */
+  public final double rate;
+
+  /** Total number of requests to be submitted. */
+  public final int requests;
+
+  /** Maximum amount of time to wait for a single request. */
+  public final Duration timeout;
+
+  /** The file type sent in each {@code CompilerMessage}. */
+  public final String type;
+
+  /** Base URL for the compiler's {@code WebSocket}. */
+  public final String url;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an object containing all the options specified by the user.
+   *
+   * @param values A map from option names to values.
+   */
+  private LoadTestOptions(Map<String, String> values) {
+    clients = Integer.parseInt(values.getOrDefault("clients", "10"));
+    corpusDir = values.get("corpus");
+    duration = values.containsKey("duration") ? Duration.parse(values.get("duration")) : null;
+    help = values.containsKey("help");
+    job = values.getOrDefault("job", "analyze");
+    project = values.get("project");
+    rate = Double.parseDouble(values.getOrDefault("rate", "0"));
+    requests = Integer.parseInt(values.getOrDefault("requests", "100"));
+    timeout = Duration.parse(values.getOrDefault("timeout", "PT60S"));
+    type = values.getOrDefault("type", "t");
+    url = values.getOrDefault("url", "ws://localhost:9000/compiler");
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * This method parses the command line arguments in the form {@code --name value}.
+   *
+   * @param args Command line arguments.
+   * @return The parsed options.
+   */
+  public static LoadTestOptions parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (int i = 0; i < args.length; i++) {
+      if (!args[i].startsWith("--")) {
+        throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+      }
+
+      String name = args[i].substring(2);
+      if (name.equals("help")) {
+        values.put(name, "true");
+      } else if (i + 1 < args.length) {
+        values.put(name, args[++i]);
+      } else {
+        throw new IllegalArgumentException("Missing value for: " + args[i]);
+      }
+    }
+
+    LoadTestOptions options = new LoadTestOptions(values);
+    if (!options.help && (options.corpusDir == null || options.project == null)) {
+      throw new IllegalArgumentException("Both --corpus and --project must be specified!");
+    }
+
+    return options;
+  }
+
+  /**
+   * This method returns the complete {@code WebSocket} URI for the specified job and project.
+   *
+   * @return The {@code WebSocket} URI as a string.
+   */
+  public final String socketUri() {
+    return socketUri(url, job, project);
+  }
+
+  /**
+   * This method returns the complete {@code WebSocket} URI for a job and project.
+   *
+   * @param url Base URL for the compiler's {@code WebSocket}.
+   * @param job Name of the job to be executed.
+   * @param project {@code RESOLVE} project folder to be used.
+   * @return The {@code WebSocket} URI as a string.
+   */
+  public static String socketUri(String url, String job, String project) {
+    try {
+      return url
+          + "?job="
+          + URLEncoder.encode(job, "UTF-8")
+          + "&project="
+          + URLEncoder.encode(project, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * This method returns the usage message.
+   *
+   * @return The usage message as a string.
+   */
+  public static String usage() {
+    return "Usage: loadtest.LoadGenerator --project <name> --corpus <dir> [options]\n"
+        + "  --url <ws-url>        compiler WebSocket (default: ws://localhost:9000/compiler)\n"
+        + "  --job <job>           compiler job to run (default: analyze)\n"
+        + "  --type <type>         file type sent with each message (default: t)\n"
+        + "  --clients <n>         number of concurrent clients (default: 10)\n"
+        + "  --rate <per-second>   target request rate, 0 means unlimited (default: 0)\n"
+        + "  --requests <n>        total number of requests (default: 100)\n"
+        + "  --duration <ISO-8601> stop after this amount of time, e.g. PT5M (default: none)\n"
+        + "  --timeout <ISO-8601>  per request timeout (default: PT60S)";
+  }
+}
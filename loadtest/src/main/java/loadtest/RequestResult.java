@@ -0,0 +1,104 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package loadtest;
+
+/**
+ * This class contains the timings and outcome of a single compiler request.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class RequestResult {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** Time (in nanoseconds) when the request completed. */
+  public final long endNanos;
+
+  /** A description of why the request failed or {@code null} if it didn't. */
+  public final String failure;
+
+  /** Time (in nanoseconds) when we received the first frame or {@code -1} if we didn't. */
+  public final long firstFrameNanos;
+
+  /** Number of frames received. */
+  public final int frames;
+
+  /** Flag that indicates the server sent us at least one error frame. */
+  public final boolean receivedError;
+
+  /** Time (in nanoseconds) when the request started. */
+  public final long startNanos;
+
+  // ===========================================================
+  // Constructors
+  // ===========================================================
+
+  /**
+   * This creates an object containing the timings and outcome of a request.
+   *
+   * @param startNanos Time when the request started.
+   * @param firstFrameNanos Time when we received the first frame or {@code -1}.
+   * @param endNanos Time when the request completed.
+   * @param frames Number of frames received.
+   * @param receivedError Whether or not we received an error frame.
+   * @param failure A description of why the request failed or {@code null}.
+   */
+  public RequestResult(
+      long startNanos,
+      long firstFrameNanos,
+      long endNanos,
+      int frames,
+      boolean receivedError,
+      String failure) {
+    this.endNanos = endNanos;
+    this.failure = failure;
+    this.firstFrameNanos = firstFrameNanos;
+    this.frames = frames;
+    this.receivedError = receivedError;
+    this.startNanos = startNanos;
+  }
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * Checks to see if this request failed, either because of a transport failure or because the
+   * server reported an error.
+   *
+   * @return {@code true} if the request failed, {@code false} otherwise.
+   */
+  public final boolean isError() {
+    return failure != null || receivedError;
+  }
+
+  /**
+   * This method returns the time it took to complete the request.
+   *
+   * @return The time to complete in nanoseconds.
+   */
+  public final long timeToComplete() {
+    return endNanos - startNanos;
+  }
+
+  /**
+   * This method returns the time it took to receive the first frame.
+   *
+   * @return The time to first frame in nanoseconds or {@code -1} if we didn't receive any frames.
+   */
+  public final long timeToFirstFrame() {
+    return firstFrameNanos < 0 ? -1 : firstFrameNanos - startNanos;
+  }
+}
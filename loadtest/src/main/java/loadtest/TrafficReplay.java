@@ -0,0 +1,171 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package loadtest;
+
+import akka.actor.ActorSystem;
+import akka.japi.Pair;
+import akka.stream.Materializer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the entry point for replaying a capture log written by the WebAPI's {@code
+ * TrafficRecorder}. Every captured session is re-opened at the same point in time (relative to
+ * the first session) and its messages are re-sent with the same timing, optionally sped up by
+ * {@code --speed}. A {@link LoadReport} is printed once every session has completed.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class TrafficReplay {
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * The main method for the traffic replay tool.
+   *
+   * @param args Command line arguments (see {@link #usage()}).
+   * @throws Exception If the log can't be read or the replay is interrupted.
+   */
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new HashMap<>();
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+    }
+
+    if (!options.containsKey("log")) {
+      System.err.println(usage());
+      System.exit(1);
+      return;
+    }
+
+    String url = options.getOrDefault("url", "ws://localhost:9000/compiler");
+    double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+    Duration timeout = Duration.parse(options.getOrDefault("timeout", "PT60S"));
+    if (speed <= 0) {
+      throw new IllegalArgumentException("--speed must be positive!");
+    }
+
+    List<CapturedSession> sessions = CapturedSession.load(options.get("log"));
+    int truncated = sessions.stream().mapToInt(session -> session.truncatedMessages).sum();
+    System.out.println(
+        "Replaying "
+            + sessions.size()
+            + " sessions at "
+            + speed
+            + "x speed against "
+            + url
+            + " ("
+            + truncated
+            + " messages have truncated or missing content).");
+
+    ActorSystem system = ActorSystem.create("replay");
+    try {
+      CompilerSocketClient client =
+          new CompilerSocketClient(system, Materializer.matFromSystem(system));
+      LoadReport report = new LoadReport();
+      long elapsed = replay(sessions, url, speed, timeout, client, report);
+      report.print(System.out, elapsed);
+    } finally {
+      system.terminate();
+    }
+  }
+
+  /**
+   * This method returns the usage message.
+   *
+   * @return The usage message as a string.
+   */
+  public static String usage() {
+    return "Usage: loadtest.TrafficReplay --log <capture-log> [options]\n"
+        + "  --url <ws-url>        compiler WebSocket (default: ws://localhost:9000/compiler)\n"
+        + "  --speed <factor>      1 replays in real time, 10 replays 10x faster (default: 1)\n"
+        + "  --timeout <ISO-8601>  per session timeout (default: PT60S)";
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that replays all the sessions and waits for them to complete.
+   *
+   * @param sessions The captured sessions ordered by the time they were opened.
+   * @param url Base URL for the compiler's {@code WebSocket}.
+   * @param speed The speed up factor.
+   * @param timeout Maximum amount of time to wait for a session.
+   * @param client A client that replays the sessions.
+   * @param report The report where all the results are collected.
+   * @return How long the replay ran in nanoseconds.
+   * @throws InterruptedException If we are interrupted while waiting.
+   */
+  private static long replay(
+      List<CapturedSession> sessions,
+      String url,
+      double speed,
+      Duration timeout,
+      CompilerSocketClient client,
+      LoadReport report)
+      throws InterruptedException {
+    List<CompletableFuture<RequestResult>> inFlight = new ArrayList<>();
+    long begin = System.nanoTime();
+    long firstOpenedAt = sessions.isEmpty() ? 0 : sessions.get(0).openedAt;
+
+    for (CapturedSession session : sessions) {
+      long scheduled = begin + scaled(session.openedAt - firstOpenedAt, speed);
+      long wait = scheduled - System.nanoTime();
+      if (wait > 0) {
+        TimeUnit.NANOSECONDS.sleep(wait);
+      }
+
+      List<Pair<Duration, String>> messages = new ArrayList<>();
+      for (Pair<Duration, String> message : session.messages) {
+        messages.add(
+            Pair.create(
+                Duration.ofNanos(scaled(message.first().toMillis(), speed)), message.second()));
+      }
+
+      String uri = LoadTestOptions.socketUri(url, session.job, session.project);
+      inFlight.add(
+          client
+              .submit(uri, messages, timeout)
+              .thenApply(
+                  result -> {
+                    report.add(result);
+                    return result;
+                  })
+              .toCompletableFuture());
+    }
+
+    CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0])).join();
+
+    return System.nanoTime() - begin;
+  }
+
+  /**
+   * An helper method that converts a captured offset into a replay offset.
+   *
+   * @param millis An offset in milliseconds.
+   * @param speed The speed up factor.
+   * @return The scaled offset in nanoseconds.
+   */
+  private static long scaled(long millis, double speed) {
+    return (long) (TimeUnit.MILLISECONDS.toNanos(millis) / speed);
+  }
+}
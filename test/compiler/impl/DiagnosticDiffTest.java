@@ -0,0 +1,149 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+
+package compiler.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import play.libs.Json;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This {@code JUnit} Test is designed to test which diagnostics the {@link DiagnosticDiff} reports
+ * as added or removed between successive analyses.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class DiagnosticDiffTest {
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /** A test to ensure only the diagnostics that changed are reported. */
+  @Test
+  public final void testAddedAndRemoved() {
+    DiagnosticDiff diff = new DiagnosticDiff();
+    ObjectNode kept = newDiagnostic("error", "Undeclared symbol: x", 3, 7);
+    ObjectNode fixed = newDiagnostic("error", "Undeclared symbol: y", 5, 1);
+    ObjectNode introduced = newDiagnostic("warning", "Unused variable: z", 9, 4);
+    diff.update(Arrays.asList(kept, fixed));
+
+    ObjectNode result = diff.update(Arrays.asList(kept, introduced));
+    assertEquals(Collections.singletonList(introduced), elements(result.get("added")));
+    assertEquals(Collections.singletonList(fixed), elements(result.get("removed")));
+  }
+
+  /** A test to ensure a diagnostic reported twice by the same analysis is only sent once. */
+  @Test
+  public final void testDuplicateDiagnostic() {
+    DiagnosticDiff diff = new DiagnosticDiff();
+    ObjectNode error = newDiagnostic("error", "Undeclared symbol: x", 3, 7);
+
+    ObjectNode result = diff.update(Arrays.asList(error, error.deepCopy()));
+    assertEquals(Collections.singletonList(error), elements(result.get("added")));
+
+    // Once it is fixed, it is only removed once
+    result = diff.update(Collections.emptyList());
+    assertEquals(Collections.singletonList(error), elements(result.get("removed")));
+  }
+
+  /** A test to ensure the first analysis reports all of its diagnostics as added. */
+  @Test
+  public final void testFirstUpdate() {
+    DiagnosticDiff diff = new DiagnosticDiff();
+    ObjectNode error = newDiagnostic("error", "Undeclared symbol: x", 3, 7);
+    ObjectNode warning = newDiagnostic("warning", "Unused variable: z", 9, 4);
+
+    ObjectNode result = diff.update(Arrays.asList(error, warning));
+    assertEquals("diagnostics", result.get("status").asText());
+    assertEquals(1, result.get("generation").asInt());
+    assertEquals(Arrays.asList(error, warning), elements(result.get("added")));
+    assertEquals(0, result.get("removed").size());
+  }
+
+  /** A test to ensure every update bumps the generation, even if nothing changed. */
+  @Test
+  public final void testGeneration() {
+    DiagnosticDiff diff = new DiagnosticDiff();
+    List<ObjectNode> diagnostics =
+        Collections.singletonList(newDiagnostic("error", "Undeclared symbol: x", 3, 7));
+    for (int generation = 1; generation <= 3; generation++) {
+      ObjectNode result = diff.update(diagnostics);
+      assertEquals(generation, result.get("generation").asInt());
+    }
+
+    ObjectNode result = diff.update(diagnostics);
+    assertEquals(0, result.get("added").size());
+    assertEquals(0, result.get("removed").size());
+  }
+
+  /** A test to ensure a diagnostic that moved is reported as removed and added again. */
+  @Test
+  public final void testMovedDiagnostic() {
+    DiagnosticDiff diff = new DiagnosticDiff();
+    ObjectNode before = newDiagnostic("error", "Undeclared symbol: x", 3, 7);
+    ObjectNode after = newDiagnostic("error", "Undeclared symbol: x", 4, 7);
+    diff.update(Collections.singletonList(before));
+
+    ObjectNode result = diff.update(Collections.singletonList(after));
+    assertEquals(Collections.singletonList(after), elements(result.get("added")));
+    assertEquals(Collections.singletonList(before), elements(result.get("removed")));
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that returns the elements of a JSON array.
+   *
+   * @param array A JSON array.
+   * @return A list with the array's elements.
+   */
+  private static List<JsonNode> elements(JsonNode array) {
+    List<JsonNode> elements = new ArrayList<>();
+    array.forEach(elements::add);
+
+    return elements;
+  }
+
+  /**
+   * An helper method that creates a diagnostic the same way {@link WebSocketStatusHandler} does.
+   *
+   * @param status The diagnostic's severity.
+   * @param msg The diagnostic's message.
+   * @param line Line of the diagnostic's location.
+   * @param column Column of the diagnostic's location.
+   * @return A JSON object that describes the diagnostic.
+   */
+  private static ObjectNode newDiagnostic(String status, String msg, int line, int column) {
+    ObjectNode location = Json.newObject();
+    location.put("file", "Test.mt");
+    location.put("line", line);
+    location.put("column", column);
+
+    ObjectNode diagnostic = Json.newObject();
+    diagnostic.put("status", status);
+    diagnostic.put("msg", msg);
+    diagnostic.set("msgLocation", location);
+
+    return diagnostic;
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+
+package compiler.inputmessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.antlr.v4.runtime.CharStream;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * This {@code JUnit} Test is designed to test how the {@link ContentBuffer} decodes content that
+ * arrives in several pieces.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class ContentBufferTest {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** A character that needs a surrogate pair in {@code UTF-16} (and 4 bytes in {@code UTF-8}). */
+  private static final String EMOJI = "\uD83D\uDE00";
+
+  /** Size of the buffer's character staging buffer. */
+  private static final int STAGING_SIZE = 8192;
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /** A test to ensure a declared length above the maximum is rejected right away. */
+  @Test
+  public final void testDeclaredLengthAboveMax() {
+    try {
+      new ContentBuffer(11, 10);
+      fail("Expected the declared length to be rejected");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  /** A test to ensure an escaped character that straddles the staging buffer is kept. */
+  @Test
+  public final void testEscapedSurrogatePairAtStagingBoundary() {
+    StringBuilder content = new StringBuilder();
+    StringBuilder encoded = new StringBuilder();
+    for (int i = 0; i < STAGING_SIZE - 1; i++) {
+      content.append('a');
+      encoded.append('a');
+    }
+    content.append(EMOJI).append('b');
+    encoded.append("%F0%9F%98%80b");
+
+    ContentBuffer buffer = new ContentBuffer(content.length(), content.length());
+    buffer.appendEncoded(encoded);
+
+    assertEquals(content.toString(), toString(buffer));
+  }
+
+  /** A test to ensure an escape sequence that is cut off or isn't hexadecimal is rejected. */
+  @Test
+  public final void testInvalidEscapes() {
+    for (String piece : new String[] {"abc%4", "abc%", "%zz"}) {
+      try {
+        new ContentBuffer(10, 10).appendEncoded(piece);
+        fail("Expected the escape sequence in " + piece + " to be rejected");
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+    }
+  }
+
+  /** A test to ensure a client can't send more than the maximum by declaring a shorter length. */
+  @Test
+  public final void testMaxLength() {
+    ContentBuffer buffer = new ContentBuffer(4, 10);
+    buffer.appendEncoded("0123456789");
+    assertEquals(10, buffer.length());
+
+    try {
+      buffer.appendEncoded("a");
+      fail("Expected the content to exceed the maximum length");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  /** A test to ensure the maximum length also applies to binary ({@code UTF-8}) pieces. */
+  @Test
+  public final void testMaxLengthUtf8() {
+    ContentBuffer buffer = new ContentBuffer(4, 10);
+    try {
+      buffer.appendUtf8(ByteBuffer.wrap(new byte[STAGING_SIZE * 2]));
+      fail("Expected the content to exceed the maximum length");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  /** A test to ensure multi-byte characters can be split anywhere across encoded pieces. */
+  @Test
+  public final void testMultiByteSplitAcrossPieces() {
+    ContentBuffer buffer = new ContentBuffer(8, 8);
+    buffer.appendEncoded("caf%C3");
+    buffer.appendEncoded("%A9 %E2%82");
+    buffer.appendEncoded("%AC%F0");
+    buffer.appendEncoded("%9F");
+    buffer.appendEncoded("%98");
+    buffer.appendEncoded("%80");
+
+    assertEquals("caf\u00E9 \u20AC" + EMOJI, toString(buffer));
+  }
+
+  /** A test to ensure percent escapes, {@code +} and unescaped characters are decoded. */
+  @Test
+  public final void testPercentEscapes() {
+    ContentBuffer buffer = new ContentBuffer(16, 16);
+    buffer.appendEncoded("a%20b+c%2Bd%25");
+    buffer.appendEncoded("\u00E9%0A");
+
+    assertEquals("a b c+d%\u00E9\n", toString(buffer));
+  }
+
+  /** A test to ensure a surrogate pair split across two pieces is kept together. */
+  @Test
+  public final void testSurrogatePairAcrossPieces() {
+    ContentBuffer buffer = new ContentBuffer(4, 4);
+    buffer.appendEncoded("x" + EMOJI.charAt(0));
+    assertEquals(1, buffer.length());
+    buffer.appendEncoded(EMOJI.charAt(1) + "y");
+
+    assertEquals("x" + EMOJI + "y", toString(buffer));
+  }
+
+  /** A test to ensure an unescaped surrogate pair that straddles the staging buffer is kept. */
+  @Test
+  public final void testSurrogatePairAtStagingBoundary() {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < STAGING_SIZE - 1; i++) {
+      content.append('\u00E9');
+    }
+    content.append(EMOJI).append('\u00E9');
+
+    ContentBuffer buffer = new ContentBuffer(content.length(), content.length());
+    buffer.appendEncoded(content);
+
+    assertEquals(content.toString(), toString(buffer));
+  }
+
+  /** A test to ensure a bad {@code UTF-8} sequence is replaced instead of failing the file. */
+  @Test
+  public final void testTruncatedCharacterIsReplaced() {
+    ContentBuffer buffer = new ContentBuffer(2, 2);
+    buffer.appendEncoded("a%C3");
+
+    assertEquals("a\uFFFD", toString(buffer));
+  }
+
+  /** A test to ensure binary pieces may end in the middle of a multi-byte character. */
+  @Test
+  public final void testUtf8SplitAcrossPieces() {
+    String content = "caf\u00E9 \u20AC" + EMOJI;
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+    // Every possible split into two pieces
+    for (int split = 0; split <= bytes.length; split++) {
+      ContentBuffer buffer = new ContentBuffer(content.length(), content.length());
+      buffer.appendUtf8(ByteBuffer.wrap(bytes, 0, split));
+      buffer.appendUtf8(ByteBuffer.wrap(bytes, split, bytes.length - split));
+
+      assertEquals(content, toString(buffer));
+    }
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that finishes a buffer and returns its content.
+   *
+   * @param buffer The buffer.
+   * @return The decoded content.
+   */
+  private static String toString(ContentBuffer buffer) {
+    CharStream stream = buffer.toCharStream("Test.mt");
+
+    return stream.toString();
+  }
+}
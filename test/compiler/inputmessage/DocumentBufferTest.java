@@ -0,0 +1,208 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+
+package compiler.inputmessage;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * This {@code JUnit} Test is designed to test how the {@link DocumentBuffer} applies edits to its
+ * pieces, rolls back invalid batches and checks the version the edits were made for.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class DocumentBufferTest {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The version our documents start at. */
+  private static final int INITIAL_VERSION = 1;
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /** A test to ensure a batch that adds a lot of text that is deleted again gets compacted. */
+  @Test
+  public final void testCompactAfterDeletedText() {
+    DocumentBuffer document = new DocumentBuffer("abc", INITIAL_VERSION, 10000);
+    char[] text = new char[2000];
+    Arrays.fill(text, 'x');
+
+    // The added text is kept around while it is still part of the document
+    document.applyEdits(INITIAL_VERSION, edits(newEdit(1, 1, new String(text))));
+    assertEquals(3, document.getPieceCount());
+
+    // The added text is more than twice the document's length once it is deleted
+    document.applyEdits(INITIAL_VERSION + 1, edits(newEdit(1, 2001, "")));
+    assertEquals(1, document.getPieceCount());
+    assertEquals("abc", toString(document));
+  }
+
+  /** A test to ensure the pieces are merged once there are too many of them. */
+  @Test
+  public final void testCompactTooManyPieces() {
+    char[] content = new char[2000];
+    Arrays.fill(content, 'a');
+    DocumentBuffer document = new DocumentBuffer(new String(content), INITIAL_VERSION, 10000);
+    StringBuilder expected = new StringBuilder(new String(content));
+
+    // Every edit splits an original piece, so each one adds two pieces
+    int version = INITIAL_VERSION;
+    boolean compacted = false;
+    for (int i = 0; i < 600; i++) {
+      int position = 2 * i;
+      version = document.applyEdits(version, edits(newEdit(position, position, "b")));
+      expected.insert(position, 'b');
+
+      assertTrue(document.getPieceCount() <= 1025);
+      compacted |= document.getPieceCount() == 1;
+    }
+
+    assertTrue(compacted);
+    assertEquals(expected.toString(), toString(document));
+  }
+
+  /** A test to ensure typing right after the previous edit extends that edit's piece. */
+  @Test
+  public final void testExtendAdjacentAddedPiece() {
+    DocumentBuffer document = new DocumentBuffer("hello world", INITIAL_VERSION, 100);
+    int version = document.applyEdits(INITIAL_VERSION, edits(newEdit(5, 5, ",")));
+    version = document.applyEdits(version, edits(newEdit(6, 6, " my")));
+    version = document.applyEdits(version, edits(newEdit(9, 9, " dear")));
+    assertEquals(3, document.getPieceCount());
+
+    // An edit somewhere else gets its own piece
+    document.applyEdits(version, edits(newEdit(0, 0, ">")));
+    assertEquals(4, document.getPieceCount());
+    assertEquals(">hello, my dear world", toString(document));
+  }
+
+  /** A test to ensure the document's length can't exceed the maximum. */
+  @Test
+  public final void testMaxLength() {
+    DocumentBuffer document = new DocumentBuffer("abc", INITIAL_VERSION, 5);
+    try {
+      document.applyEdits(INITIAL_VERSION, edits(newEdit(3, 3, "def")));
+      fail("Expected the document to exceed the maximum length");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    assertEquals(INITIAL_VERSION, document.getVersion());
+    assertEquals("abc", toString(document));
+  }
+
+  /** A test to ensure none of the edits in a batch are applied if one of them is invalid. */
+  @Test
+  public final void testRollbackOnInvalidEdit() {
+    DocumentBuffer document = new DocumentBuffer("hello world", INITIAL_VERSION, 100);
+    try {
+      document.applyEdits(INITIAL_VERSION, edits(newEdit(0, 5, "goodbye"), newEdit(20, 25, "")));
+      fail("Expected the second edit to be rejected");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    assertEquals(INITIAL_VERSION, document.getVersion());
+    assertEquals(11, document.length());
+    assertEquals(1, document.getPieceCount());
+
+    // The added characters of the rejected batch don't show up later
+    document.applyEdits(INITIAL_VERSION, edits(newEdit(6, 11, "there")));
+    assertEquals("hello there", toString(document));
+  }
+
+  /** A test to ensure edits in the middle of a piece split it, and deletes span pieces. */
+  @Test
+  public final void testSplit() {
+    DocumentBuffer document = new DocumentBuffer("hello world", INITIAL_VERSION, 100);
+    int version = document.applyEdits(INITIAL_VERSION, edits(newEdit(5, 5, " big")));
+    assertEquals(3, document.getPieceCount());
+    assertEquals(15, document.length());
+
+    // Delete across all three pieces
+    document.applyEdits(version, edits(newEdit(3, 12, "")));
+    assertEquals(6, document.length());
+    assertEquals("helrld", toString(document));
+  }
+
+  /** A test to ensure edits made for another version of the document are rejected. */
+  @Test
+  public final void testStaleVersion() {
+    DocumentBuffer document = new DocumentBuffer("abc", INITIAL_VERSION, 100);
+    int version = document.applyEdits(INITIAL_VERSION, edits(newEdit(0, 0, "x")));
+    assertEquals(INITIAL_VERSION + 1, version);
+
+    for (Integer stale : new Integer[] {null, INITIAL_VERSION, version + 1}) {
+      try {
+        document.applyEdits(stale, edits(newEdit(0, 0, "y")));
+        fail("Expected the edits for version " + stale + " to be rejected");
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+    }
+
+    assertEquals(version, document.getVersion());
+    assertEquals("xabc", toString(document));
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that creates a batch of edits.
+   *
+   * @param edits The edits in the batch.
+   * @return A list of edits.
+   */
+  private static List<TextEdit> edits(TextEdit... edits) {
+    return Arrays.asList(edits);
+  }
+
+  /**
+   * An helper method that creates an edit.
+   *
+   * @param start Position of the first character to be replaced.
+   * @param end Position right after the last character to be replaced.
+   * @param text The replacement text.
+   * @return A new {@link TextEdit}.
+   */
+  private static TextEdit newEdit(int start, int end, String text) {
+    TextEdit edit = new TextEdit();
+    edit.start = start;
+    edit.end = end;
+    edit.text = text;
+
+    return edit;
+  }
+
+  /**
+   * An helper method that returns a document's content.
+   *
+   * @param document The document.
+   * @return The document's content.
+   */
+  private static String toString(DocumentBuffer document) {
+    return document.toCharStream("Test.mt").toString();
+  }
+}
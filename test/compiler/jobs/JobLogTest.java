@@ -0,0 +1,316 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+
+package compiler.jobs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import play.api.inject.DefaultApplicationLifecycle;
+import play.inject.DelegateApplicationLifecycle;
+import play.libs.Json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This {@code JUnit} Test is designed to test that the {@link JobLog} recovers the records it
+ * wrote, even if the application stopped in the middle of writing them. Each test uses its own
+ * temporary directory and reads it back using a new {@link JobLog}, the same way a restarted
+ * application does.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class JobLogTest {
+
+  // ===========================================================
+  // Member Fields
+  // ===========================================================
+
+  /** The application's lifecycle, used to seal the logs' segments. */
+  private DefaultApplicationLifecycle myLifecycle;
+
+  /** The directory containing the segment files. */
+  private Path myLogDir;
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /**
+   * Setup for each job log test.
+   *
+   * @throws IOException If the temporary directory couldn't be created.
+   */
+  @Before
+  public final void setup() throws IOException {
+    myLifecycle = new DefaultApplicationLifecycle();
+    myLogDir = Files.createTempDirectory("joblog");
+  }
+
+  /**
+   * Tear down code for each job log test.
+   *
+   * @throws IOException If the temporary directory couldn't be removed.
+   */
+  @After
+  public final void tearDown() throws IOException {
+    myLifecycle.stop();
+    try (Stream<Path> paths = Files.walk(myLogDir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  /** A test to ensure every record written to the log is recovered. */
+  @Test
+  public final void testAppendAndRecover() {
+    JobLog log = newJobLog(16 * 1024);
+    assertEquals(0, log.recover().size());
+
+    JobRecord record = newRecord(log, "job-1", "a", "b");
+    log.done(record.getId());
+
+    List<JobRecord> records = newJobLog(16 * 1024).recover();
+    assertEquals(1, records.size());
+    assertEquals("job-1", records.get(0).getId());
+    assertEquals("analyze", records.get(0).getJob());
+    assertEquals("RESOLVE-Workspace", records.get(0).getProject());
+    assertEquals(Arrays.asList("a", "b"), messages(records.get(0)));
+    assertTrue(records.get(0).isDone());
+  }
+
+  /** A test to ensure only the jobs that are still in the registry survive a compaction. */
+  @Test
+  public final void testCompaction() throws IOException {
+    JobLog log = newJobLog(2048);
+    log.recover();
+
+    // The dead job fills a few segments, the live job has entries at both ends
+    JobRecord live = newRecord(log, "live", "first");
+    JobRecord dead = newRecord(log, "dead");
+    for (int i = 0; i < 100; i++) {
+      frame(log, dead, "dead frame " + i);
+    }
+    log.done(dead.getId());
+    frame(log, live, "last");
+    log.done(live.getId());
+    int segmentCount = segments().size();
+
+    log.compact(Collections.singleton("live"));
+    assertTrue(segments().size() < segmentCount);
+
+    List<JobRecord> records = newJobLog(2048).recover();
+    assertEquals(1, records.size());
+    assertEquals("live", records.get(0).getId());
+    assertEquals(Arrays.asList("first", "last"), messages(records.get(0)));
+    assertTrue(records.get(0).isDone());
+  }
+
+  /** A test to ensure a last entry that doesn't match its checksum is ignored. */
+  @Test
+  public final void testCorruptLastEntry() throws IOException {
+    JobLog log = newJobLog(16 * 1024);
+    log.recover();
+    newRecord(log, "job-1", "a", "corrupt");
+
+    // Flip one of the last entry's bytes
+    Path segment = segments().get(0);
+    int position = indexOf(segment, "corrupt");
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {'C'}), position);
+    }
+
+    List<JobRecord> records = newJobLog(16 * 1024).recover();
+    assertEquals(1, records.size());
+    assertEquals("a", messages(records.get(0)).get(0));
+    assertEquals(2, records.get(0).getFrames(0).size());
+  }
+
+  /** A test to ensure entries keep going into new segments once the current one is full. */
+  @Test
+  public final void testSegmentRollover() throws IOException {
+    JobLog log = newJobLog(2048);
+    log.recover();
+    JobRecord record = newRecord(log, "job-1");
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      expected.add("frame " + i);
+      frame(log, record, "frame " + i);
+    }
+    log.done(record.getId());
+    assertTrue(segments().size() > 1);
+
+    List<JobRecord> records = newJobLog(2048).recover();
+    assertEquals(1, records.size());
+    assertEquals(expected, messages(records.get(0)));
+  }
+
+  /** A test to ensure a last entry that was only partially written is ignored. */
+  @Test
+  public final void testTruncatedLastEntry() throws IOException {
+    JobLog log = newJobLog(16 * 1024);
+    log.recover();
+    newRecord(log, "job-1", "a", "truncated");
+
+    // Cut the file in the middle of the last entry
+    Path segment = segments().get(0);
+    int position = indexOf(segment, "truncated");
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(position + 3);
+    }
+
+    List<JobRecord> records = newJobLog(16 * 1024).recover();
+    assertEquals(1, records.size());
+    assertEquals("a", messages(records.get(0)).get(0));
+    assertEquals(2, records.get(0).getFrames(0).size());
+  }
+
+  /** A test to ensure a job that wasn't done gets an error frame, but only once. */
+  @Test
+  public final void testUnfinishedJob() {
+    JobLog log = newJobLog(16 * 1024);
+    log.recover();
+    newRecord(log, "job-1", "a");
+
+    List<JobRecord> records = newJobLog(16 * 1024).recover();
+    assertEquals(1, records.size());
+    List<JsonNode> frames = records.get(0).getFrames(0);
+    assertEquals(2, frames.size());
+    assertEquals("a", frames.get(0).get("msg").asText());
+    assertEquals("error", frames.get(1).get("status").asText());
+    assertTrue(records.get(0).isDone());
+
+    // The error frame and the done entry were written to the log as well
+    records = newJobLog(16 * 1024).recover();
+    assertEquals(1, records.size());
+    assertEquals(frames, records.get(0).getFrames(0));
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that adds a frame to a record and writes it to the log, the same way the
+   * {@link JobRegistry} does.
+   *
+   * @param log The job log.
+   * @param record The job's record.
+   * @param msg The frame's message.
+   */
+  private static void frame(JobLog log, JobRecord record, String msg) {
+    JsonNode frame = Json.newObject().put("status", "info").put("msg", msg);
+    log.frame(record.getId(), record.append(frame), frame);
+  }
+
+  /**
+   * An helper method that finds the first occurrence of a string in a file.
+   *
+   * @param file The file to search.
+   * @param text The string to look for.
+   * @return The string's position in the file.
+   * @throws IOException If the file couldn't be read.
+   */
+  private static int indexOf(Path file, String text) throws IOException {
+    String contents = new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+    int position = contents.indexOf(text);
+    assertTrue(position > 0);
+
+    return position;
+  }
+
+  /**
+   * An helper method that returns the messages of a record's frames.
+   *
+   * @param record The job's record.
+   * @return The frames' messages.
+   */
+  private static List<String> messages(JobRecord record) {
+    List<String> messages = new ArrayList<>();
+    for (JsonNode frame : record.getFrames(0)) {
+      messages.add(frame.get("msg").asText());
+    }
+
+    return messages;
+  }
+
+  /**
+   * An helper method that creates a job log writing to this test's directory.
+   *
+   * @param segmentSize The size of a new segment (in bytes).
+   * @return A new {@link JobLog}.
+   */
+  private JobLog newJobLog(long segmentSize) {
+    Config config =
+        ConfigFactory.parseString(
+            "webapi.compiler.jobs.log.enabled = true"
+                + "\nwebapi.compiler.jobs.log.dir = \""
+                + myLogDir
+                + "\"\nwebapi.compiler.jobs.log.segmentSize = "
+                + segmentSize
+                + "\nwebapi.compiler.jobs.log.maxAge = 24h"
+                + "\nwebapi.compiler.jobs.log.maxSize = 1G"
+                + "\nwebapi.compiler.jobs.log.compactionThreshold = 0.5");
+
+    return new JobLog(config, new DelegateApplicationLifecycle(myLifecycle));
+  }
+
+  /**
+   * An helper method that creates a record, writes its start entry and then its frames to the log.
+   *
+   * @param log The job log.
+   * @param id The job's unique id.
+   * @param msgs The messages of the job's frames.
+   * @return The job's record.
+   */
+  private static JobRecord newRecord(JobLog log, String id, String... msgs) {
+    JobRecord record = new JobRecord(id, "analyze", "RESOLVE-Workspace");
+    log.start(record);
+    for (String msg : msgs) {
+      frame(log, record, msg);
+    }
+
+    return record;
+  }
+
+  /**
+   * An helper method that lists the segment files, from the oldest to the newest.
+   *
+   * @return The segment files.
+   * @throws IOException If the directory couldn't be listed.
+   */
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> paths = Files.list(myLogDir)) {
+      return paths.sorted().collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+
+package compiler.scheduling;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This {@code JUnit} Test is designed to test how the {@link AdaptiveConcurrencyLimit} grows and
+ * backs off. The garbage collection threshold is set to {@code 1.0} (a value the measured pressure
+ * never exceeds), so only the job run times decide whether the server is overloaded.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class AdaptiveConcurrencyLimitTest {
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /** A test to ensure the limit backs off once for all the jobs that were running at the time. */
+  @Test
+  public final void testBackoffOncePerRound() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(newConfig(true), 8);
+    CompileJobClass slowedDown = newSlowedDownClass();
+    limit.onComplete(slowedDown, true);
+    assertEquals(4, limit.getLimit());
+
+    // The other 7 jobs were started under the old limit and report the same overload
+    for (int i = 0; i < 7; i++) {
+      limit.onComplete(slowedDown, true);
+    }
+    assertEquals(4, limit.getLimit());
+
+    // Once they have finished, the limit may back off again
+    limit.onComplete(slowedDown, true);
+    assertEquals(2, limit.getLimit());
+  }
+
+  /** A test to ensure a disabled limit stays at the scheduler's capacity. */
+  @Test
+  public final void testDisabled() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(newConfig(false), 8);
+    CompileJobClass slowedDown = newSlowedDownClass();
+    for (int i = 0; i < 5; i++) {
+      limit.onComplete(slowedDown, true);
+    }
+
+    assertEquals(8, limit.getLimit());
+  }
+
+  /** A test to ensure the limit grows by roughly one slot per round of saturated jobs. */
+  @Test
+  public final void testIncreaseWhenSaturated() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(newConfig(true), 8);
+    limit.onComplete(newSlowedDownClass(), true);
+    assertEquals(4, limit.getLimit());
+
+    // Jobs that didn't have to compete for a slot don't change the limit
+    CompileJobClass steady = newSteadyClass();
+    limit.onComplete(steady, false);
+    assertEquals(4, limit.getLimit());
+
+    // 4 + 1/4 + 1/4.25 + 1/4.49 + 1/4.71 + 1/4.92 > 5
+    for (int i = 0; i < 5; i++) {
+      limit.onComplete(steady, true);
+    }
+    assertEquals(5, limit.getLimit());
+  }
+
+  /** A test to ensure the limit never grows past the scheduler's capacity. */
+  @Test
+  public final void testMaxLimit() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(newConfig(true), 8);
+    CompileJobClass steady = newSteadyClass();
+    for (int i = 0; i < 100; i++) {
+      limit.onComplete(steady, true);
+    }
+
+    assertEquals(8, limit.getLimit());
+  }
+
+  /** A test to ensure the limit backs off while jobs slow down, but never below the minimum. */
+  @Test
+  public final void testMinLimit() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(newConfig(true), 8);
+    CompileJobClass slowedDown = newSlowedDownClass();
+    limit.onComplete(slowedDown, true);
+    assertEquals(4, limit.getLimit());
+
+    for (int i = 0; i < 100; i++) {
+      limit.onComplete(slowedDown, true);
+    }
+    assertEquals(2, limit.getLimit());
+  }
+
+  /** A test to ensure a class needs a few finished jobs before its run times are trusted. */
+  @Test
+  public final void testNoBackoffForNewClass() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(newConfig(true), 8);
+    CompileJobClass jobClass = newJobClass();
+    jobClass.recordRunTime(1_000_000);
+    jobClass.recordRunTime(100_000_000);
+    limit.onComplete(jobClass, true);
+
+    assertEquals(8, limit.getLimit());
+  }
+
+  /** A test to ensure a class that is slow while slots are free doesn't lower the limit. */
+  @Test
+  public final void testNoBackoffWhenNotSaturated() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(newConfig(true), 8);
+    CompileJobClass slowedDown = newSlowedDownClass();
+    for (int i = 0; i < 5; i++) {
+      limit.onComplete(slowedDown, false);
+    }
+
+    assertEquals(8, limit.getLimit());
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that creates the {@code adaptiveLimit} settings used by these tests.
+   *
+   * @param enabled Whether or not the limit is allowed to change.
+   * @return The settings.
+   */
+  private static Config newConfig(boolean enabled) {
+    return ConfigFactory.parseString(
+        "enabled = "
+            + enabled
+            + "\nminLimit = 2"
+            + "\nbackoffRatio = 0.5"
+            + "\nlatencyTolerance = 2.0"
+            + "\ngcPressureThreshold = 1.0");
+  }
+
+  /**
+   * An helper method that creates a job class without any finished jobs.
+   *
+   * @return A new {@link CompileJobClass}.
+   */
+  private static CompileJobClass newJobClass() {
+    return new CompileJobClass("analyze", 0, 0, Collections.emptyMap(), 1.0);
+  }
+
+  /**
+   * An helper method that creates a job class whose last job took ten times longer than usual. Its
+   * recent run time is roughly three times its usual run time.
+   *
+   * @return A new {@link CompileJobClass}.
+   */
+  private static CompileJobClass newSlowedDownClass() {
+    CompileJobClass jobClass = newSteadyClass();
+    jobClass.recordRunTime(10_000_000);
+
+    return jobClass;
+  }
+
+  /**
+   * An helper method that creates a job class whose jobs always take the same time.
+   *
+   * @return A new {@link CompileJobClass}.
+   */
+  private static CompileJobClass newSteadyClass() {
+    CompileJobClass jobClass = newJobClass();
+    for (int i = 0; i < 10; i++) {
+      jobClass.recordRunTime(1_000_000);
+    }
+
+    return jobClass;
+  }
+}
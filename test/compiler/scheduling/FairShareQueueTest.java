@@ -0,0 +1,181 @@
+/*
+ * ---------------------------------
+ * Copyright (c) 2020
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+
+package compiler.scheduling;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This {@code JUnit} Test is designed to test the order in which the {@link FairShareQueue} serves
+ * jobs from different projects and clients.
+ *
+ * @author Yu-Shan Sun
+ * @version 1.0
+ */
+public class FairShareQueueTest {
+
+  // ===========================================================
+  // Public Methods
+  // ===========================================================
+
+  /** A test to ensure an empty queue doesn't return any jobs. */
+  @Test
+  public final void testEmptyQueue() {
+    FairShareQueue queue = new FairShareQueue(Collections.emptyMap(), 1.0);
+
+    assertTrue(queue.isEmpty());
+    assertNull(queue.peek());
+    assertNull(queue.poll());
+  }
+
+  /** A test to ensure a client with a large backlog doesn't starve a client with a few jobs. */
+  @Test
+  public final void testHeavyAndLightClients() {
+    FairShareQueue queue = new FairShareQueue(Collections.emptyMap(), 1.0);
+    addJobs(queue, "Project", "heavy", 20);
+    addJobs(queue, "Project", "light", 2);
+
+    // Both of the light client's jobs are served within the first four jobs
+    int light = 0;
+    for (int i = 0; i < 4; i++) {
+      if (queue.poll().getClientId().equals("light")) {
+        light++;
+      }
+    }
+    assertEquals(2, light);
+
+    // The rest of the heavy client's jobs are still served
+    assertEquals(18, queue.size());
+    for (int i = 0; i < 18; i++) {
+      assertEquals("heavy", queue.poll().getClientId());
+    }
+    assertTrue(queue.isEmpty());
+  }
+
+  /** A test to ensure a project that was idle doesn't build up credit while it was idle. */
+  @Test
+  public final void testIdleFlowHasNoCredit() {
+    FairShareQueue queue = new FairShareQueue(Collections.emptyMap(), 1.0);
+    addJobs(queue, "Busy", "client", 20);
+    for (int i = 0; i < 10; i++) {
+      assertEquals("Busy", queue.poll().getProject());
+    }
+
+    // The newcomer shares the slots with the busy project instead of catching up
+    addJobs(queue, "Idle", "client", 5);
+    Map<String, Integer> served = poll(queue, 10);
+    assertEquals(5, (int) served.get("Busy"));
+    assertEquals(5, (int) served.get("Idle"));
+  }
+
+  /** A test to ensure {@code peek} returns the same job as the next {@code poll}. */
+  @Test
+  public final void testPeek() {
+    FairShareQueue queue = new FairShareQueue(Collections.emptyMap(), 1.0);
+    addJobs(queue, "A", "client", 3);
+    addJobs(queue, "B", "client", 3);
+
+    while (!queue.isEmpty()) {
+      CompileJob next = queue.peek();
+      assertSame(next, queue.poll());
+    }
+  }
+
+  /** A test to ensure removing jobs keeps the size and the flows up to date. */
+  @Test
+  public final void testRemove() {
+    FairShareQueue queue = new FairShareQueue(Collections.emptyMap(), 1.0);
+    CompileJob first = newJob("A", "client");
+    CompileJob second = newJob("B", "client");
+    queue.add(first);
+    queue.add(second);
+
+    assertTrue(queue.remove(first));
+    assertFalse(queue.remove(first));
+    assertFalse(queue.remove(newJob("C", "client")));
+    assertEquals(1, queue.size());
+
+    // The project without any jobs left is no longer selected
+    assertSame(second, queue.peek());
+    assertSame(second, queue.poll());
+    assertTrue(queue.isEmpty());
+  }
+
+  /** A test to ensure projects are served in proportion to their weights. */
+  @Test
+  public final void testWeightedProjects() {
+    Map<String, Double> weights = new HashMap<>();
+    weights.put("Heavy", 2.0);
+    FairShareQueue queue = new FairShareQueue(weights, 1.0);
+    addJobs(queue, "Heavy", "client", 30);
+    addJobs(queue, "Light", "client", 30);
+
+    Map<String, Integer> served = poll(queue, 30);
+    assertEquals(20, (int) served.get("Heavy"));
+    assertEquals(10, (int) served.get("Light"));
+    assertEquals(30, queue.size());
+  }
+
+  // ===========================================================
+  // Private Methods
+  // ===========================================================
+
+  /**
+   * An helper method that queues several jobs for the same project and client.
+   *
+   * @param queue The queue.
+   * @param project RESOLVE project folder.
+   * @param clientId The client that requested the jobs.
+   * @param count Number of jobs to be queued.
+   */
+  private static void addJobs(FairShareQueue queue, String project, String clientId, int count) {
+    for (int i = 0; i < count; i++) {
+      queue.add(newJob(project, clientId));
+    }
+  }
+
+  /**
+   * An helper method that creates a job that doesn't do anything.
+   *
+   * @param project RESOLVE project folder.
+   * @param clientId The client that requested the job.
+   * @return A new {@link CompileJob}.
+   */
+  private static CompileJob newJob(String project, String clientId) {
+    return new CompileJob("analyze", project, clientId, 0, () -> {});
+  }
+
+  /**
+   * An helper method that removes several jobs and counts them by project.
+   *
+   * @param queue The queue.
+   * @param count Number of jobs to be removed.
+   * @return A map from project names to the number of jobs served.
+   */
+  private static Map<String, Integer> poll(FairShareQueue queue, int count) {
+    Map<String, Integer> served = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      served.merge(queue.poll().getProject(), 1, Integer::sum);
+    }
+
+    return served;
+  }
+}
@@ -18,11 +18,13 @@ import org.junit.Before;
 import org.junit.Test;
 import play.Application;
 import play.inject.guice.GuiceApplicationBuilder;
+import play.libs.Json;
 import play.mvc.Http.RequestBuilder;
 import play.mvc.Result;
 import play.test.Helpers;
 
 import static org.junit.Assert.assertEquals;
+import static play.mvc.Http.Status.BAD_REQUEST;
 import static play.mvc.Http.Status.NOT_FOUND;
 import static play.mvc.Http.Status.OK;
 import static play.test.Helpers.route;
@@ -46,12 +48,16 @@ public class RouterTest {
   // Public Methods
   // ===========================================================
 
-  /** Setup for each route test. */
+  /**
+   * Setup for each route test. The stub compiler is used, so the routes behave the same whether or
+   * not the {@code RESOLVE} compiler jar is in {@code custom_lib}.
+   */
   @Before
   public final void setup() {
     myApplication =
         new GuiceApplicationBuilder()
             .configure("webapi.workingdir", new File(".").getAbsolutePath())
+            .configure("webapi.compiler.backend", "stub")
             .build();
     Helpers.start(myApplication);
   }
@@ -72,6 +78,74 @@ public class RouterTest {
     assertEquals(NOT_FOUND, result.status());
   }
 
+  /** Check to see if the liveness check reports that we are up and running. */
+  @Test
+  public final void testHealthLiveRoute() {
+    RequestBuilder request = Helpers.fakeRequest().method("GET").uri("/health/live");
+
+    Result result = route(myApplication, request);
+    assertEquals(OK, result.status());
+  }
+
+  /** Check to see if the readiness check reports that an idle node is ready. */
+  @Test
+  public final void testHealthReadyRoute() {
+    RequestBuilder request = Helpers.fakeRequest().method("GET").uri("/health/ready");
+
+    Result result = route(myApplication, request);
+    assertEquals(OK, result.status());
+  }
+
+  /** Check to see if we get a 404 when streaming the events of a job that doesn't exist. */
+  @Test
+  public final void testJobEventsRoute() {
+    RequestBuilder request =
+        Helpers.fakeRequest().method("GET").uri("/compiler/jobs/Kiwi/events");
+
+    Result result = route(myApplication, request);
+    assertEquals(NOT_FOUND, result.status());
+  }
+
+  /** Check to see if we get a 404 when fetching a job that doesn't exist. */
+  @Test
+  public final void testJobRoute() {
+    RequestBuilder request = Helpers.fakeRequest().method("GET").uri("/compiler/jobs/Kiwi");
+
+    Result result = route(myApplication, request);
+    assertEquals(NOT_FOUND, result.status());
+  }
+
+  /** Check to see if submitting an unsupported job is rejected. */
+  @Test
+  public final void testJobSubmitRoute() {
+    RequestBuilder request =
+        Helpers.fakeRequest()
+            .method("POST")
+            .uri("/compiler/jobs?job=Kiwi&project=Kiwi")
+            .bodyJson(Json.newObject());
+
+    Result result = route(myApplication, request);
+    assertEquals(BAD_REQUEST, result.status());
+  }
+
+  /** Check to see if we can retrieve the metrics. */
+  @Test
+  public final void testMetricsRoute() {
+    RequestBuilder request = Helpers.fakeRequest().method("GET").uri("/metrics");
+
+    Result result = route(myApplication, request);
+    assertEquals(OK, result.status());
+  }
+
+  /** Check to see if we get a 404 when downloading an output that doesn't exist. */
+  @Test
+  public final void testOutputRoute() {
+    RequestBuilder request = Helpers.fakeRequest().method("GET").uri("/compiler/outputs/Kiwi");
+
+    Result result = route(myApplication, request);
+    assertEquals(NOT_FOUND, result.status());
+  }
+
   /** Check to see if we can retrieve the main index page. */
   @Test
   public final void testIndexRoute() {